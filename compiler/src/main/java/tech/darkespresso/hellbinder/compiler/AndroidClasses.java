@@ -34,6 +34,18 @@ public final class AndroidClasses {
   public static final ClassName CONTENT_RESOLVER =
       ClassName.get("android.content", "ContentResolver");
   public static final ClassName URI = ClassName.get("android.net", "Uri");
+  public static final ClassName CONTENT_URIS = ClassName.get("android.content", "ContentUris");
+  public static final ClassName CONTENT_OBSERVER =
+      ClassName.get("android.database", "ContentObserver");
+  public static final ClassName CANCELLATION_SIGNAL =
+      ClassName.get("android.os", "CancellationSignal");
+  public static final ClassName SYSTEM_CLOCK = ClassName.get("android.os", "SystemClock");
+  public static final ClassName BUNDLE = ClassName.get("android.os", "Bundle");
+  public static final ClassName BUILD_VERSION = ClassName.get("android.os", "Build", "VERSION");
+  public static final ClassName BUILD_VERSION_CODES =
+      ClassName.get("android.os", "Build", "VERSION_CODES");
+  public static final ClassName SQLITE_EXCEPTION =
+      ClassName.get("android.database.sqlite", "SQLiteException");
 
   private AndroidClasses() {
     throw new UnsupportedOperationException();
@@ -28,6 +28,7 @@ package tech.darkespresso.hellbinder.compiler;
 import com.google.common.base.Preconditions;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeName;
+import java.util.Arrays;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.processing.Messager;
@@ -36,10 +37,12 @@ import javax.lang.model.element.VariableElement;
 import javax.tools.Diagnostic;
 import tech.darkespresso.hellbinder.Operator;
 import tech.darkespresso.hellbinder.Order;
+import tech.darkespresso.hellbinder.Subquery;
 import tech.darkespresso.hellbinder.annotations.Column;
 import tech.darkespresso.hellbinder.annotations.Constraint;
 import tech.darkespresso.hellbinder.annotations.Id;
 import tech.darkespresso.hellbinder.annotations.SortCriterion;
+import tech.darkespresso.hellbinder.annotations.Version;
 import tech.darkespresso.hellbinder.compiler.generators.Constraining;
 import tech.darkespresso.hellbinder.compiler.generators.Ordering;
 
@@ -48,9 +51,12 @@ public class BoundField {
   private final String column;
   private final TypeName type;
   @Nullable private final MethodSpec constraint;
+  @Nullable private final MethodSpec rangeConstraint;
+  @Nullable private final MethodSpec subqueryConstraint;
   @Nullable private final MethodSpec sortBy;
   @Nonnull private final VariableElement field;
   @Nullable private final MethodSpec isNull;
+  @Nullable private final MethodSpec match;
 
   BoundField(@Nonnull VariableElement field) {
     this.field = Preconditions.checkNotNull(field);
@@ -64,6 +70,24 @@ public class BoundField {
               .addParameter(type, "value")
               .returns(Constraining.NAME)
               .build();
+      rangeConstraint =
+          MethodSpec.methodBuilder(field.getSimpleName().toString().concat("Between"))
+              .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+              .addParameter(type, "lower")
+              .addParameter(type, "upper")
+              .returns(Constraining.NAME)
+              .build();
+      if (TypeName.INT.equals(type) || TypeName.LONG.equals(type) || TypeName.SHORT.equals(type)) {
+        subqueryConstraint =
+            MethodSpec.methodBuilder(field.getSimpleName().toString())
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addParameter(Operator.class, "op")
+                .addParameter(Subquery.class, "values")
+                .returns(Constraining.NAME)
+                .build();
+      } else {
+        subqueryConstraint = null;
+      }
       Constraint constraintAnnotation = field.getAnnotation(Constraint.class);
       if (constraintAnnotation != null && constraintAnnotation.nullable()) {
         isNull =
@@ -75,9 +99,22 @@ public class BoundField {
       } else {
         isNull = null;
       }
+      if (constraintAnnotation != null && constraintAnnotation.fullText()) {
+        match =
+            MethodSpec.methodBuilder(field.getSimpleName().toString().concat("Matches"))
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addParameter(String.class, "query")
+                .returns(Constraining.NAME)
+                .build();
+      } else {
+        match = null;
+      }
     } else {
       constraint = null;
+      rangeConstraint = null;
+      subqueryConstraint = null;
       isNull = null;
+      match = null;
     }
     if (field.getAnnotation(SortCriterion.class) != null) {
       sortBy =
@@ -117,6 +154,55 @@ public class BoundField {
           element);
       valid = false;
     }
+    Id id = element.getAnnotation(Id.class);
+    TypeName type = TypeName.get(element.asType());
+    if (id != null
+        && id.appendToUri()
+        && !TypeName.LONG.equals(type)
+        && !TypeName.INT.equals(type)) {
+      messager.printMessage(
+          Diagnostic.Kind.ERROR,
+          String.format("Ids annotated with @%s appended to the URI must be ints or longs.", Id.class),
+          element);
+      valid = false;
+    }
+    Constraint constraint = element.getAnnotation(Constraint.class);
+    if (constraint != null
+        && constraint.fullText()
+        && !TypeName.get(String.class).equals(type)) {
+      messager.printMessage(
+          Diagnostic.Kind.ERROR,
+          String.format("Full-text fields annotated with @%s must be Strings.", Constraint.class),
+          element);
+      valid = false;
+    }
+    if (constraint != null
+        && constraint.indexed()
+        && !Arrays.asList(
+                TypeName.get(String.class),
+                TypeName.INT,
+                TypeName.LONG,
+                TypeName.SHORT,
+                TypeName.FLOAT,
+                TypeName.DOUBLE)
+            .contains(type)) {
+      messager.printMessage(
+          Diagnostic.Kind.ERROR,
+          String.format(
+              "Indexed fields annotated with @%s must be Strings or numbers.", Constraint.class),
+          element);
+      valid = false;
+    }
+    if (element.getAnnotation(Version.class) != null
+        && !TypeName.LONG.equals(type)
+        && !TypeName.INT.equals(type)
+        && !TypeName.SHORT.equals(type)) {
+      messager.printMessage(
+          Diagnostic.Kind.ERROR,
+          String.format("Fields annotated with @%s must be integral.", Version.class),
+          element);
+      valid = false;
+    }
     return valid;
   }
 
@@ -133,6 +219,18 @@ public class BoundField {
     return constraint;
   }
 
+  /** Returns the constraint taking the two inclusive bounds of {@link Operator#BETWEEN}. */
+  @Nullable
+  public MethodSpec getRangeConstraint() {
+    return rangeConstraint;
+  }
+
+  /** Returns the overload of the constraint taking a {@link Subquery}, if the field is integral. */
+  @Nullable
+  public MethodSpec getSubqueryConstraint() {
+    return subqueryConstraint;
+  }
+
   @Nullable
   public MethodSpec getSortBy() {
     return sortBy;
@@ -143,6 +241,12 @@ public class BoundField {
     return isNull;
   }
 
+  /** Returns the full-text match constraint, if the field is a full-text {@link Constraint}. */
+  @Nullable
+  public MethodSpec getMatch() {
+    return match;
+  }
+
   public String getFieldName() {
     return field.getSimpleName().toString();
   }
@@ -164,7 +268,24 @@ public class BoundField {
     return field.getAnnotation(Id.class) != null;
   }
 
+  /** Whether this is an id looked up by appending it to the content URI. */
+  public boolean isAppendedToUri() {
+    Id id = field.getAnnotation(Id.class);
+    return id != null && id.appendToUri();
+  }
+
   public boolean isNullable() {
     return isNull != null;
   }
+
+  /** Whether the column increases every time a row is modified. */
+  public boolean isVersion() {
+    return field.getAnnotation(Version.class) != null;
+  }
+
+  /** Whether the column is indexed by snapshots of the query results. */
+  public boolean isIndexed() {
+    Constraint constraint = field.getAnnotation(Constraint.class);
+    return constraint != null && constraint.indexed();
+  }
 }
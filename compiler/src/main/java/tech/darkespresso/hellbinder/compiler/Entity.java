@@ -37,8 +37,10 @@ import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeName;
 import java.lang.annotation.Annotation;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import javax.annotation.processing.Messager;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
@@ -51,7 +53,9 @@ import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Types;
 import tech.darkespresso.hellbinder.annotations.Column;
 import tech.darkespresso.hellbinder.annotations.ContentProviderEntity;
+import tech.darkespresso.hellbinder.annotations.Fingerprint;
 import tech.darkespresso.hellbinder.annotations.Id;
+import tech.darkespresso.hellbinder.annotations.Version;
 import tech.darkespresso.hellbinder.compiler.generators.CollectionClassGenerator;
 
 /** Wraps a class annotated by {@link ContentProviderEntity}. */
@@ -61,6 +65,7 @@ public class Entity {
   private final FieldSpec projection;
   private final MethodSpec bind;
   private final TypeElement element;
+  @Nullable private final String fingerprint;
 
   Entity(TypeElement element, Types types, Messager messager) throws ProcessingException {
     if (element.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
@@ -69,7 +74,9 @@ public class Entity {
     }
     this.element = element;
     typeName = TypeName.get(element.asType());
-    fields = extractColumnFields(messager, types);
+    List<TypeElement> hierarchy = getHierarchy(types);
+    fields = extractColumnFields(hierarchy, messager);
+    fingerprint = extractFingerprintField(hierarchy, messager);
     projection =
         FieldSpec.builder(String[].class, "PROJECTION")
             .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
@@ -79,10 +86,13 @@ public class Entity {
                     .map(BoundField::getColumn)
                     .collect(joining("\", \"", "{ \"", "\" }")))
             .build();
-    bind = CollectionClassGenerator.generateBind(typeName, fields, messager);
+    bind = CollectionClassGenerator.generateBind(typeName, fields, fingerprint, messager);
     if (fields.stream().filter(BoundField::isId).count() > 1) {
       messager.printMessage(ERROR, "more than 1 field annotated with " + Id.class, element);
     }
+    if (fields.stream().filter(BoundField::isVersion).count() > 1) {
+      messager.printMessage(ERROR, "more than 1 field annotated with " + Version.class, element);
+    }
   }
 
   public ClassName getCollectionClassName() {
@@ -92,6 +102,13 @@ public class Entity {
         element.getAnnotation(ContentProviderEntity.class).value());
   }
 
+  /** Returns the name of the table backing the content provider, or null if unknown. */
+  @Nullable
+  public String getTable() {
+    String table = element.getAnnotation(ContentProviderEntity.class).table();
+    return table.isEmpty() ? null : table;
+  }
+
   public FieldSpec getProjection() {
     return projection;
   }
@@ -100,6 +117,12 @@ public class Entity {
     return bind;
   }
 
+  /** Returns the name of the field annotated with {@link Fingerprint}, or null if there is none. */
+  @Nullable
+  public String getFingerprintField() {
+    return fingerprint;
+  }
+
   public TypeName getTypeName() {
     return typeName;
   }
@@ -120,7 +143,11 @@ public class Entity {
         .collect(Collectors.toList());
   }
 
-  private List<BoundField> extractColumnFields(Messager messager, Types types) {
+  /**
+   * Returns the class and its superclasses annotated with {@link ContentProviderEntity}, starting
+   * with the topmost one.
+   */
+  private List<TypeElement> getHierarchy(Types types) {
     final ArrayDeque<TypeElement> hierarchy = new ArrayDeque<>();
     TypeElement currentClass = element;
     do {
@@ -130,10 +157,12 @@ public class Entity {
       }
       currentClass = (TypeElement) types.asElement(currentClass.getSuperclass());
     } while (currentClass.getAnnotation(ContentProviderEntity.class) != null);
+    return new ArrayList<>(hierarchy);
+  }
 
+  private List<BoundField> extractColumnFields(List<TypeElement> hierarchy, Messager messager) {
     final BiMap<VariableElement, String> fieldColumnMap = HashBiMap.create();
-    while (!hierarchy.isEmpty()) {
-      currentClass = hierarchy.pop();
+    for (TypeElement currentClass : hierarchy) {
       for (VariableElement element : ElementFilter.fieldsIn(currentClass.getEnclosedElements())) {
         if (!BoundField.isValid(element, messager)) {
           continue;
@@ -150,4 +179,36 @@ public class Entity {
     }
     return fieldColumnMap.keySet().stream().map(BoundField::new).collect(toImmutableList());
   }
+
+  @Nullable
+  private String extractFingerprintField(List<TypeElement> hierarchy, Messager messager) {
+    String fingerprint = null;
+    for (TypeElement currentClass : hierarchy) {
+      for (VariableElement element : ElementFilter.fieldsIn(currentClass.getEnclosedElements())) {
+        if (element.getAnnotation(Fingerprint.class) == null) {
+          continue;
+        }
+        if (element.asType().getKind() != TypeKind.LONG
+            || element.getAnnotation(Column.class) != null
+            || !element.getModifiers().contains(Modifier.PUBLIC)
+            || element.getModifiers().contains(Modifier.STATIC)
+            || element.getModifiers().contains(Modifier.FINAL)) {
+          messager.printMessage(
+              ERROR,
+              String.format(
+                  "Fields annotated with @%s must be public, non-final, non-static longs "
+                      + "without @%s.",
+                  Fingerprint.class,
+                  Column.class),
+              element);
+        } else if (fingerprint != null) {
+          messager.printMessage(
+              ERROR, "more than 1 field annotated with " + Fingerprint.class, element);
+        } else {
+          fingerprint = element.getSimpleName().toString();
+        }
+      }
+    }
+    return fingerprint;
+  }
 }
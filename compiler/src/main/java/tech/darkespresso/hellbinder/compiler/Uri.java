@@ -81,6 +81,14 @@ public final class Uri {
     }
   }
 
+  /**
+   * @return the number of URIs built by the annotated method that the generated code should
+   *     remember, or 0 if they must not be cached.
+   */
+  public int getCacheSize() {
+    return needsParameters() ? uriElement.getAnnotation(ContentUri.class).cacheSize() : 0;
+  }
+
   public Element getElement() {
     return uriElement;
   }
@@ -94,6 +102,16 @@ public final class Uri {
         uriElement instanceof ExecutableElement ? "()" : "");
   }
 
+  /**
+   * @return the reference to the annotated method, e.g. {@code Foo.uri}, which must be followed by
+   *     the arguments in order to obtain the Uri.
+   */
+  public String getMethodReference() {
+    Preconditions.checkState(uriElement instanceof ExecutableElement);
+    return String.format(
+        "%s.%s", uriElement.getEnclosingElement().getSimpleName(), uriElement.getSimpleName());
+  }
+
   private Element validateUriElement(@Nonnull Element element, Messager messager)
       throws ProcessingException {
     element = Preconditions.checkNotNull(element);
@@ -119,6 +137,10 @@ public final class Uri {
       return variableElement;
     } else if (element instanceof ExecutableElement) {
       ExecutableElement executableElement = (ExecutableElement) element;
+      if (element.getAnnotation(ContentUri.class).cacheSize() < 0) {
+        messager.printMessage(
+            Diagnostic.Kind.ERROR, "The cacheSize of @ContentUri cannot be negative.", element);
+      }
       if (!AndroidClasses.URI
           .reflectionName()
           .equals(executableElement.getReturnType().toString())) {
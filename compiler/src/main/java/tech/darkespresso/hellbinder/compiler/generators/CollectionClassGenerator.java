@@ -32,18 +32,31 @@ import static tech.darkespresso.hellbinder.compiler.utils.CodeGen.cursorGetterFo
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import java.util.Arrays;
 import java.util.List;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.processing.Messager;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.VariableElement;
+import tech.darkespresso.hellbinder.BoundedCache;
+import tech.darkespresso.hellbinder.EntityComparator;
+import tech.darkespresso.hellbinder.Field;
+import tech.darkespresso.hellbinder.LongCache;
 import tech.darkespresso.hellbinder.Operator;
+import tech.darkespresso.hellbinder.Order;
+import tech.darkespresso.hellbinder.RowDiff;
 import tech.darkespresso.hellbinder.annotations.ContentProviderEntity;
 import tech.darkespresso.hellbinder.annotations.ContentUri;
 import tech.darkespresso.hellbinder.compiler.AndroidClasses;
@@ -102,9 +115,17 @@ import tech.darkespresso.hellbinder.compiler.utils.CollectionUtils;
  *   public static CloseableList<Contact> get(ContentResolver contentResolver) { ... }
  *
  *   public static Contact getById(ContentResolver contentResolver, long id) { ... }
+ *
+ *   public static EntityComparator<Contact> comparator(Field<Contact> field, Order order) { ... }
  * }}</pre>
+ *
+ * {@code comparator} is only generated if some fields are annotated with {@link
+ * tech.darkespresso.hellbinder.annotations.SortCriterion}, and sorts loaded entities the same way
+ * the content provider would (see {@link EntityComparator}).
  */
 public class CollectionClassGenerator {
+  static final String BIND = "bind";
+  static final String CONTENT_URI = "contentUri";
 
   private CollectionClassGenerator() {
     throw new UnsupportedOperationException();
@@ -131,6 +152,17 @@ public class CollectionClassGenerator {
 
     final List<BoundField> fields = entity.getFields();
     addRequiredInterfaces(entity.getTypeName(), builder, fields);
+    builder.addType(Fields.generate(entity.getTypeName(), fields));
+    if (fields.stream().anyMatch(BoundField::canBeUsedForSorting)) {
+      builder.addMethod(generateComparator(entity.getTypeName()));
+    }
+    BoundField id =
+        fields.stream().filter(BoundField::isId).collect(CollectionUtils.uniqueOrNull());
+    if (entity.getFingerprintField() != null
+        && id != null
+        && Executable.isIntegral(id.getType())) {
+      builder.addMethod(generateDiff(entity.getTypeName(), id, entity.getFingerprintField()));
+    }
 
     Uri uri;
     try {
@@ -138,34 +170,76 @@ public class CollectionClassGenerator {
           new Uri(entity.getElementsAnnotatedWith(ContentUri.class), entity.getElement(), messager);
     } catch (ProcessingException e) {
       messager.printMessage(ERROR, e.getMessage(), e.getElement());
-      return builder.build();
+      return builder.addType(Executable.generate(entity.getTypeName())).build();
     }
 
+    TypeSpec executable =
+        Executable.generate(
+            entity.getTypeName(),
+            fields,
+            uri.needsParameters()
+                ? ((ExecutableElement) uri.getElement())
+                    .getParameters()
+                    .stream()
+                    .map(ParameterSpec::get)
+                    .collect(toList())
+                : ImmutableList.of(),
+            entity.getTable());
+    builder.addType(executable);
     TypeSpec queryRoot = QueryRoot.generate(entity.getTypeName(), fields);
     if (uri.needsParameters()) {
       builder.addType(queryRoot);
+      addContentUri(builder, uri);
       builder.addMethod(generateWithUriParams(uri.getElement()));
       builder.addType(
           QueryBuilderImpl.generate(
-              entity.getTypeName(), entity.getProjection(), fields, queryRoot));
+              entity.getTypeName(),
+              entity.getProjection(),
+              fields,
+              queryRoot,
+              executable,
+              entity.getTable(),
+              entity.getFingerprintField()));
     } else {
       addRequiredRootMethods(builder, queryRoot, fields, uri.getLiteralExpression());
-      addStaticRootMethodsHelpers(builder, queryRoot, fields, uri.getLiteralExpression());
+      addStaticRootMethodsHelpers(
+          builder,
+          entity.getTypeName(),
+          entity.getProjection(),
+          queryRoot,
+          fields,
+          uri.getLiteralExpression());
+      addStaticExecutableHelpers(builder, executable, uri.getLiteralExpression());
       builder.addType(
-          QueryBuilderImpl.generate(entity.getTypeName(), entity.getProjection(), fields, null));
+          QueryBuilderImpl.generate(
+              entity.getTypeName(),
+              entity.getProjection(),
+              fields,
+              null,
+              executable,
+              entity.getTable(),
+              entity.getFingerprintField()));
     }
 
     return builder.build();
   }
 
+  /**
+   * Generates the method binding the columns of a row to the fields of an entity. If {@code
+   * fingerprint} is set, the method also mixes the values it reads into a fingerprint of the row,
+   * which it stores into that field.
+   */
   @VisibleForTesting
   public static MethodSpec generateBind(
-      @Nonnull TypeName entityType, @Nonnull List<BoundField> fields, @Nonnull Messager messager) {
+      @Nonnull TypeName entityType,
+      @Nonnull List<BoundField> fields,
+      @Nullable String fingerprint,
+      @Nonnull Messager messager) {
     entityType = Preconditions.checkNotNull(entityType);
     fields = Preconditions.checkNotNull(fields);
     messager = Preconditions.checkNotNull(messager);
     MethodSpec.Builder bindMethod =
-        MethodSpec.methodBuilder("bind")
+        MethodSpec.methodBuilder(BIND)
             .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
             .addParameter(entityType, "entity")
             .addParameter(AndroidClasses.CURSOR, "cursor");
@@ -179,6 +253,14 @@ public class CollectionClassGenerator {
         messager.printMessage(ERROR, e.getMessage(), field);
       }
     }
+    if (fingerprint != null) {
+      bindMethod.addStatement("long fingerprint = $T.SEED", RowDiff.class);
+      for (BoundField field : fields) {
+        bindMethod.addStatement(
+            "fingerprint = $T.mix(fingerprint, entity.$L)", RowDiff.class, field.getFieldName());
+      }
+      bindMethod.addStatement("entity.$L = fingerprint", fingerprint);
+    }
     return bindMethod.build();
   }
 
@@ -192,12 +274,12 @@ public class CollectionClassGenerator {
     if (fields.stream().anyMatch(BoundField::canBeConstrained)) {
       TypeSpec queryBuilder = QueryBuilder.generate(fields);
       builder.addType(queryBuilder);
-      builder.addType(Constraining.generate(entityType, hasSortCriteria));
+      builder.addType(Constraining.generate(hasSortCriteria));
     }
     if (hasSortCriteria) {
       TypeSpec orderBuilder = OrderBuilder.generate(fields);
       builder.addType(orderBuilder);
-      builder.addType(Ordering.generate(entityType));
+      builder.addType(Ordering.generate());
     }
   }
 
@@ -230,6 +312,8 @@ public class CollectionClassGenerator {
   @VisibleForTesting
   static void addStaticRootMethodsHelpers(
       @Nonnull TypeSpec.Builder builder,
+      @Nonnull TypeName entityType,
+      @Nonnull FieldSpec projection,
       @Nonnull TypeSpec queryRoot,
       @Nonnull List<BoundField> fields,
       @Nonnull String uri) {
@@ -260,6 +344,15 @@ public class CollectionClassGenerator {
               getById.parameters, p -> AndroidClasses.CONTENT_RESOLVER.equals(p.type));
       ParameterSpec idParam =
           CollectionUtils.getUnique(getById.parameters, p -> id.getType().equals(p.type));
+      if (id.isAppendedToUri()) {
+        builder.addMethod(
+            CodeGen.implementStatic(getById)
+                .addCode(
+                    QueryBuilderImpl.getByAppendedId(
+                        CodeBlock.of("$L", uri), entityType, projection, contentResolver, idParam))
+                .build());
+        return;
+      }
       builder.addMethod(
           CodeGen.implementStatic(getById)
               .addStatement(
@@ -278,23 +371,156 @@ public class CollectionClassGenerator {
     }
   }
 
+  @SuppressWarnings("WeakerAccess")
+  @VisibleForTesting
+  static void addStaticExecutableHelpers(
+      @Nonnull TypeSpec.Builder builder, @Nonnull TypeSpec executable, @Nonnull String uri) {
+    for (MethodSpec method : executable.methodSpecs) {
+      builder.addMethod(
+          CodeGen.implementStatic(method)
+              .addCode(TypeName.VOID.equals(method.returnType) ? "" : "return ")
+              .addCode("new $T($L).$N", QueryBuilderImpl.NAME, uri, method)
+              .addCode(
+                  method.parameters.stream().map(p -> "$N").collect(joining(", ", "(", ")")),
+                  method.parameters.toArray())
+              .addStatement("")
+              .build());
+    }
+  }
+
+  @SuppressWarnings("WeakerAccess")
+  @VisibleForTesting
+  static MethodSpec generateComparator(@Nonnull TypeName entityType) {
+    entityType = Preconditions.checkNotNull(entityType);
+    ParameterSpec field =
+        ParameterSpec.builder(
+                ParameterizedTypeName.get(ClassName.get(Field.class), entityType), "field")
+            .build();
+    ParameterSpec order = ParameterSpec.builder(Order.class, "order").build();
+    return MethodSpec.methodBuilder("comparator")
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addParameter(field)
+        .addParameter(order)
+        .returns(ParameterizedTypeName.get(ClassName.get(EntityComparator.class), entityType))
+        .addStatement("return $L", QueryBuilderImpl.newEntityComparator(field, order))
+        .build();
+  }
+
+  /**
+   * Generates a public static {@code diff} method, which compares two lists of entities sorted by
+   * id through their fingerprints (see {@link RowDiff}).
+   */
+  @SuppressWarnings("WeakerAccess")
+  @VisibleForTesting
+  static MethodSpec generateDiff(
+      @Nonnull TypeName entityType, @Nonnull BoundField id, @Nonnull String fingerprint) {
+    entityType = Preconditions.checkNotNull(entityType);
+    id = Preconditions.checkNotNull(id);
+    fingerprint = Preconditions.checkNotNull(fingerprint);
+    TypeName list = ParameterizedTypeName.get(ClassName.get(List.class), entityType);
+    return MethodSpec.methodBuilder("diff")
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addParameter(list, "oldList")
+        .addParameter(list, "newList")
+        .addParameter(RowDiff.Callback.class, "callback")
+        .addStatement(
+            "$T.diff(oldList, newList, entity -> entity.$L, entity -> entity.$L, callback)",
+            RowDiff.class,
+            id.getFieldName(),
+            fingerprint)
+        .build();
+  }
+
+  /**
+   * Adds a private static {@code contentUri} method taking the same parameters as the method
+   * annotated with {@link ContentUri}, which remembers the URIs it returned in a bounded cache.
+   * Single {@code long} or {@code int} parameters are used as keys directly, other parameters are
+   * compared as a list.
+   */
+  @SuppressWarnings("WeakerAccess")
+  @VisibleForTesting
+  static void addContentUri(@Nonnull TypeSpec.Builder builder, @Nonnull Uri uri) {
+    builder = Preconditions.checkNotNull(builder);
+    uri = Preconditions.checkNotNull(uri);
+    List<ParameterSpec> params =
+        ((ExecutableElement) uri.getElement())
+            .getParameters()
+            .stream()
+            .map(ParameterSpec::get)
+            .collect(toList());
+    CodeBlock call =
+        CodeBlock.builder()
+            .add("$L", uri.getMethodReference())
+            .add(
+                params.stream().map(p -> "$N").collect(joining(", ", "(", ")")), params.toArray())
+            .build();
+    MethodSpec.Builder contentUri =
+        MethodSpec.methodBuilder(CONTENT_URI)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .returns(AndroidClasses.URI)
+            .addParameters(params);
+    int cacheSize = uri.getCacheSize();
+    if (cacheSize == 0) {
+      builder.addMethod(contentUri.addStatement("return $L", call).build());
+      return;
+    }
+
+    CodeBlock key;
+    TypeName cacheType;
+    if (params.size() == 1
+        && (TypeName.LONG.equals(params.get(0).type) || TypeName.INT.equals(params.get(0).type))) {
+      key = CodeBlock.of("$N", params.get(0));
+      cacheType = ParameterizedTypeName.get(ClassName.get(LongCache.class), AndroidClasses.URI);
+    } else if (params.size() == 1) {
+      key = CodeBlock.of("$N", params.get(0));
+      cacheType =
+          ParameterizedTypeName.get(
+              ClassName.get(BoundedCache.class), params.get(0).type.box(), AndroidClasses.URI);
+    } else {
+      TypeName keyType = ParameterizedTypeName.get(List.class, Object.class);
+      contentUri.addStatement(
+          "$T key = $T.asList$L",
+          keyType,
+          Arrays.class,
+          CodeBlock.builder()
+              .add(
+                  params.stream().map(p -> "$N").collect(joining(", ", "(", ")")),
+                  params.toArray())
+              .build());
+      key = CodeBlock.of("key");
+      cacheType =
+          ParameterizedTypeName.get(ClassName.get(BoundedCache.class), keyType, AndroidClasses.URI);
+    }
+    FieldSpec cache =
+        FieldSpec.builder(cacheType, "URI_CACHE", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .initializer("new $T($L)", cacheType, cacheSize)
+            .build();
+    builder.addField(cache);
+    builder.addMethod(
+        contentUri
+            .addStatement("$T uri = $N.get($L)", AndroidClasses.URI, cache, key)
+            .beginControlFlow("if (uri == null)")
+            .addStatement("uri = $L", call)
+            .addStatement("$N.put($L, uri)", cache, key)
+            .endControlFlow()
+            .addStatement("return uri")
+            .build());
+  }
+
   @SuppressWarnings("WeakerAccess")
   @VisibleForTesting
   static MethodSpec generateWithUriParams(@Nonnull Element uriElement) {
     uriElement = Preconditions.checkNotNull(uriElement);
     Preconditions.checkArgument(uriElement instanceof ExecutableElement);
     ExecutableElement uriMethod = (ExecutableElement) uriElement;
-    String uriRef =
-        String.format(
-            "%s.%s", uriElement.getEnclosingElement().getSimpleName(), uriElement.getSimpleName());
     List<ParameterSpec> params =
         uriMethod.getParameters().stream().map(ParameterSpec::get).collect(toList());
     return MethodSpec.methodBuilder("withUriParams")
         .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
         .returns(QueryRoot.NAME)
         .addParameters(params)
-        .addCode("return new $T($L", QueryBuilderImpl.NAME, uriRef)
-        .addCode(params.stream().map(p -> "$N").collect(joining(",", "(", ")")), params.toArray())
+        .addCode("return new $T($L", QueryBuilderImpl.NAME, CONTENT_URI)
+        .addCode(params.stream().map(p -> "$N").collect(joining(", ", "(", ")")), params.toArray())
         .addStatement(")")
         .build();
   }
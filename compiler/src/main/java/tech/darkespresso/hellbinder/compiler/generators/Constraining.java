@@ -25,18 +25,12 @@
 
 package tech.darkespresso.hellbinder.compiler.generators;
 
-import com.google.common.base.Preconditions;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.MethodSpec;
-import com.squareup.javapoet.ParameterizedTypeName;
-import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
-import javax.annotation.Nonnull;
 import javax.lang.model.element.Modifier;
-import tech.darkespresso.hellbinder.QueryExecutor;
 import tech.darkespresso.hellbinder.annotations.ContentProviderEntity;
 import tech.darkespresso.hellbinder.annotations.SortCriterion;
-import tech.darkespresso.hellbinder.compiler.AndroidClasses;
 
 /**
  * Contains the name and the generate method for the interface returned when an constraint has been
@@ -46,13 +40,13 @@ import tech.darkespresso.hellbinder.compiler.AndroidClasses;
  * {@code Foo}. The generated interface will be:
  *
  * <pre>{@code
- * public interface Constraining extends QueryExecutor<Foo, ContentResolver> {
+ * public interface Constraining extends Executable {
  *     QueryBuilder and();
  *     QueryBuilder or();
  * }
  * }</pre>
  *
- * where {@code OrderBuilder} is the interface exposing the methods to establish sorting criteria.
+ * where {@code Executable} is the interface exposing the methods to execute the query.
  *
  * <p>If {@code Foo} has at least one field annotated with {@link SortCriterion SortCriterion}, then
  * the generated interface will contain an additional method:
@@ -73,8 +67,7 @@ public class Constraining {
     throw new UnsupportedOperationException();
   }
 
-  public static TypeSpec generate(@Nonnull TypeName entityType, boolean sortable) {
-    entityType = Preconditions.checkNotNull(entityType);
+  public static TypeSpec generate(boolean sortable) {
     MethodSpec and =
         MethodSpec.methodBuilder("and")
             .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
@@ -88,11 +81,7 @@ public class Constraining {
     TypeSpec.Builder builder =
         TypeSpec.interfaceBuilder("Constraining")
             .addModifiers(Modifier.PUBLIC)
-            .addSuperinterface(
-                ParameterizedTypeName.get(
-                    ClassName.get(QueryExecutor.class),
-                    entityType,
-                    AndroidClasses.CONTENT_RESOLVER))
+            .addSuperinterface(Executable.NAME)
             .addMethod(and)
             .addMethod(or);
 
@@ -33,10 +33,13 @@ import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
 import java.util.AbstractList;
+import java.util.concurrent.Future;
 import javax.annotation.Nonnull;
 import javax.lang.model.element.Modifier;
 import tech.darkespresso.hellbinder.CloseableList;
+import tech.darkespresso.hellbinder.Workers;
 import tech.darkespresso.hellbinder.compiler.AndroidClasses;
 
 /**
@@ -46,10 +49,32 @@ import tech.darkespresso.hellbinder.compiler.AndroidClasses;
  * the latter is present, this instance will always be populated with data extracted from the
  * cursor, and will <b>always</b> be returned by {@link AbstractList#get(int) get(int i)}.
  * Otherwise, a new instance of the entity class is returned every time.
+ *
+ * <p>The list can also be constructed with a {@code CancellationSignal} and a deadline (expressed
+ * in {@code SystemClock.uptimeMillis()}): both are checked before binding each row, so that
+ * iterating over a list whose results are no longer needed stops with an {@code
+ * OperationCanceledException}. While the query itself runs, the deadline is enforced by a timer
+ * that cancels the signal (see {@link #CANCEL_AT_DEADLINE}).
+ *
+ * <p>The constructor does not move the cursor: rows are only read when {@link AbstractList#get(int)
+ * get(int i)} positions the cursor on them.
  */
 public class EntityList {
   public static final ClassName NAME = ClassName.get("", "EntityList");
 
+  /**
+   * The name of the static method of the generated class that cancels the given signal if the
+   * deadline has passed, and then throws if the signal has been cancelled.
+   */
+  static final String THROW_IF_CANCELED = "throwIfCanceled";
+
+  /**
+   * The name of the static method of the generated class that schedules the cancellation of the
+   * given signal at the deadline, and returns the scheduled task (or null if there is no deadline),
+   * which must be cancelled once the query returns.
+   */
+  static final String CANCEL_AT_DEADLINE = "cancelAtDeadline";
+
   private EntityList() {
     throw new UnsupportedOperationException();
   }
@@ -65,12 +90,60 @@ public class EntityList {
         FieldSpec.builder(AndroidClasses.CURSOR, "mCursor", Modifier.PRIVATE, Modifier.FINAL)
             .build();
 
+    FieldSpec cancellationSignal =
+        FieldSpec.builder(
+                AndroidClasses.CANCELLATION_SIGNAL,
+                "mCancellationSignal",
+                Modifier.PRIVATE,
+                Modifier.FINAL)
+            .build();
+    FieldSpec deadline =
+        FieldSpec.builder(TypeName.LONG, "mDeadline", Modifier.PRIVATE, Modifier.FINAL).build();
+
     MethodSpec constructor =
         MethodSpec.constructorBuilder()
             .addModifiers(Modifier.PRIVATE)
             .addParameter(AndroidClasses.CURSOR, "cursor")
+            .addStatement("this(cursor, null, $T.MAX_VALUE)", Long.class)
+            .build();
+    MethodSpec cancellableConstructor =
+        MethodSpec.constructorBuilder()
+            .addModifiers(Modifier.PRIVATE)
+            .addParameter(AndroidClasses.CURSOR, "cursor")
+            .addParameter(AndroidClasses.CANCELLATION_SIGNAL, "cancellationSignal")
+            .addParameter(TypeName.LONG, "deadline")
             .addStatement("$N = cursor", cursor)
-            .addStatement("$N.moveToFirst()", cursor)
+            .addStatement("$N = cancellationSignal", cancellationSignal)
+            .addStatement("$N = deadline", deadline)
+            .build();
+    MethodSpec throwIfCanceled =
+        MethodSpec.methodBuilder(THROW_IF_CANCELED)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(AndroidClasses.CANCELLATION_SIGNAL, "cancellationSignal")
+            .addParameter(TypeName.LONG, "deadline")
+            .beginControlFlow(
+                "if (deadline != $T.MAX_VALUE && $T.uptimeMillis() >= deadline)",
+                Long.class,
+                AndroidClasses.SYSTEM_CLOCK)
+            .addStatement("cancellationSignal.cancel()")
+            .endControlFlow()
+            .addStatement("cancellationSignal.throwIfCanceled()")
+            .build();
+    MethodSpec cancelAtDeadline =
+        MethodSpec.methodBuilder(CANCEL_AT_DEADLINE)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(AndroidClasses.CANCELLATION_SIGNAL, "cancellationSignal")
+            .addParameter(TypeName.LONG, "deadline")
+            .returns(
+                ParameterizedTypeName.get(
+                    ClassName.get(Future.class), WildcardTypeName.subtypeOf(Object.class)))
+            .beginControlFlow("if (deadline == $T.MAX_VALUE)", Long.class)
+            .addStatement("return null")
+            .endControlFlow()
+            .addStatement(
+                "return $T.schedule(cancellationSignal::cancel, deadline - $T.uptimeMillis())",
+                Workers.class,
+                AndroidClasses.SYSTEM_CLOCK)
             .build();
     MethodSpec size =
         MethodSpec.methodBuilder("size")
@@ -97,6 +170,9 @@ public class EntityList {
             .beginControlFlow("if (index < 0 || index >= size())")
             .addStatement("throw new $T()", IndexOutOfBoundsException.class)
             .endControlFlow()
+            .beginControlFlow("if ($N != null)", cancellationSignal)
+            .addStatement("$N($N, $N)", throwIfCanceled, cancellationSignal, deadline)
+            .endControlFlow()
             .addStatement("entity = entity == null ? new $T() : entity", entityType)
             .addStatement("$N.moveToPosition(index)", cursor)
             .addStatement("$N(entity, $N)", bind, cursor)
@@ -114,8 +190,17 @@ public class EntityList {
         .superclass(ParameterizedTypeName.get(ClassName.get(AbstractList.class), entityType))
         .addSuperinterface(
             ParameterizedTypeName.get(ClassName.get(CloseableList.class), entityType))
-        .addMethods(ImmutableList.of(constructor, size, get, getWithEntity, close))
-        .addFields(ImmutableList.of(cursor))
+        .addMethods(
+            ImmutableList.of(
+                constructor,
+                cancellableConstructor,
+                throwIfCanceled,
+                cancelAtDeadline,
+                size,
+                get,
+                getWithEntity,
+                close))
+        .addFields(ImmutableList.of(cursor, cancellationSignal, deadline))
         .build();
   }
 }
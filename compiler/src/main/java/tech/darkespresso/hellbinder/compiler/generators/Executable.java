@@ -0,0 +1,628 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tech.darkespresso.hellbinder.compiler.generators;
+
+import static tech.darkespresso.hellbinder.compiler.AndroidClasses.CANCELLATION_SIGNAL;
+import static tech.darkespresso.hellbinder.compiler.AndroidClasses.CONTENT_RESOLVER;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.lang.model.element.Modifier;
+import tech.darkespresso.hellbinder.CloseableIterator;
+import tech.darkespresso.hellbinder.CloseableList;
+import tech.darkespresso.hellbinder.CountCache;
+import tech.darkespresso.hellbinder.DoubleList;
+import tech.darkespresso.hellbinder.Field;
+import tech.darkespresso.hellbinder.IntField;
+import tech.darkespresso.hellbinder.IntList;
+import tech.darkespresso.hellbinder.IntegralField;
+import tech.darkespresso.hellbinder.LazyList;
+import tech.darkespresso.hellbinder.LiveQuery;
+import tech.darkespresso.hellbinder.LongIntMap;
+import tech.darkespresso.hellbinder.LongList;
+import tech.darkespresso.hellbinder.LongObjectMap;
+import tech.darkespresso.hellbinder.Order;
+import tech.darkespresso.hellbinder.QueryExecutor;
+import tech.darkespresso.hellbinder.ReadAheadIterator;
+import tech.darkespresso.hellbinder.RealField;
+import tech.darkespresso.hellbinder.Snapshot;
+import tech.darkespresso.hellbinder.StringField;
+import tech.darkespresso.hellbinder.Subquery;
+import tech.darkespresso.hellbinder.Workers;
+import tech.darkespresso.hellbinder.annotations.Column;
+import tech.darkespresso.hellbinder.annotations.ContentProviderEntity;
+import tech.darkespresso.hellbinder.annotations.ContentUri;
+import tech.darkespresso.hellbinder.annotations.Id;
+import tech.darkespresso.hellbinder.annotations.SortCriterion;
+import tech.darkespresso.hellbinder.annotations.Version;
+import tech.darkespresso.hellbinder.compiler.BoundField;
+import tech.darkespresso.hellbinder.compiler.utils.CollectionUtils;
+
+/**
+ * Contains the name and the generate method for the interface exposing the methods that execute a
+ * query.
+ *
+ * <p>Suppose the class annotated with {@link ContentProviderEntity} is named {@code Foo}.
+ *
+ * <p>The generated interface will be:
+ *
+ * <pre>{@code
+ * public interface Executable extends QueryExecutor<Foo, ContentResolver> {
+ *     CloseableList<Foo> get(ContentResolver contentResolver,
+ *         CancellationSignal cancellationSignal);
+ *     CloseableList<Foo> get(ContentResolver contentResolver,
+ *         CancellationSignal cancellationSignal, long deadline);
+ *     int count(ContentResolver contentResolver, CancellationSignal cancellationSignal);
+ *     int count(ContentResolver contentResolver, CancellationSignal cancellationSignal,
+ *         long deadline);
+ *     CloseableIterator<Foo> readAhead(ContentResolver contentResolver, int capacity);
+ *     CloseableList<Foo> getLazily(ContentResolver contentResolver);
+ *     int cachedCount(ContentResolver contentResolver, CountCache cache);
+ *     int estimateCount(ContentResolver contentResolver, CountCache cache);
+ *     int[] countMany(ContentResolver contentResolver, Executable... predicates);
+ *     List<Foo> topK(ContentResolver contentResolver, int k, Comparator<? super Foo> comparator);
+ *     Predicate<Foo> toPredicate();
+ *     Snapshot<Foo> snapshot(ContentResolver contentResolver);
+ *     List<Foo> filter(Snapshot<Foo> snapshot);
+ *     LiveQuery<Foo> observe(ContentResolver contentResolver, long windowMillis,
+ *         LiveQuery.Listener<Foo> listener);
+ * }
+ * }</pre>
+ *
+ * <p>The cancellation signal is handed to the content provider, and it is checked again (together
+ * with the deadline, expressed in {@code SystemClock.uptimeMillis()}) every time a row is bound.
+ * While the query runs, a timer cancels the signal when the deadline passes, so that the provider
+ * stops a slow query. Once the signal is cancelled or the deadline has passed, an {@code
+ * OperationCanceledException} is thrown.
+ *
+ * <p>{@code readAhead} returns an iterator whose rows are bound by a background thread, up to
+ * {@code capacity} rows ahead of the consumer (see {@link ReadAheadIterator}). It must be closed if
+ * the iteration stops before the last row.
+ *
+ * <p>{@code getLazily} returns a list that only runs the query when it is first accessed (see
+ * {@link LazyList}).
+ *
+ * <p>{@code cachedCount} returns the count stored in the {@link CountCache} for the same URI,
+ * selection and arguments, and computes and stores it otherwise. {@code estimateCount} returns a
+ * count stored in the cache too, but otherwise avoids {@code count(*)}: on API 26 and above it
+ * asks for a single-row page, whose extras hold the total count if the provider supports paging,
+ * and it otherwise counts the rows of a cursor that only projects the id.
+ *
+ * <p>{@code countMany} returns, for each predicate, the number of rows satisfying both the query
+ * and the constraints of the predicate (which must be built from the same URI), using a single
+ * query whose projection contains one {@code sum(CASE WHEN ... THEN 1 ELSE 0 END)} per predicate.
+ * If the provider rejects that projection (with an {@code IllegalArgumentException} or a {@code
+ * SQLiteException}), each count is run separately; any other exception is thrown.
+ *
+ * <p>{@code topK} returns the {@code k} smallest entities satisfying the query according to the
+ * comparator, sorted by it. It streams the rows through a heap of at most {@code k} entities, so
+ * it never holds more than {@code k + 1} of them in memory, and the entity evicted from the heap
+ * is reused to bind the next row; the heap is sized by the number of rows rather than by {@code
+ * k}, which may be arbitrarily large. It throws an {@link IllegalArgumentException} if {@code k}
+ * is negative. This is meant for providers that ignore {@code LIMIT}, or for orders that the
+ * provider cannot compute. If {@code Foo} has fields annotated with {@link
+ * SortCriterion}, the interface will also contain:
+ *
+ * <pre>{@code
+ *     List<Foo> topKBy(ContentResolver contentResolver, Field<Foo> field, Order order, int k);
+ * }</pre>
+ *
+ * which does the same with the comparator mirroring the way the provider sorts by that field.
+ *
+ * <p>{@code toPredicate} returns a predicate satisfied by the entities that satisfy the
+ * constraints of the query, so that lists which have already been loaded can be filtered without
+ * querying the provider again (see {@link tech.darkespresso.hellbinder.Condition#compile}).
+ *
+ * <p>{@code snapshot} loads the entities satisfying the query into a {@link Snapshot}, and {@code
+ * filter} returns those of a snapshot which satisfy the constraints of the query, looking up the
+ * fields annotated with {@code @Constraint(indexed = true)} in the indexes of the snapshot.
+ *
+ * <p>{@code observe} registers a {@code ContentObserver} on the URI of the query, and runs the
+ * query again on a background thread when changes are notified, coalescing the notifications
+ * received within {@code windowMillis}. The listener is called with the first results, and then
+ * only when they have changed if {@code Foo} has a field annotated with {@code @Fingerprint} (see
+ * {@link LiveQuery}). Closing the returned {@link LiveQuery} unregisters the observer.
+ *
+ * <p>If the method annotated with {@link ContentUri} takes some parameters, say {@code long
+ * accountId}, the interface will also contain:
+ *
+ * <pre>{@code
+ *     CloseableList<Foo> fanOut(ContentResolver contentResolver, long... accountId);
+ * }</pre>
+ *
+ * which runs the query concurrently against every URI obtained from the given parameters, and
+ * merges the results according to the established sort criteria. If the method takes more than
+ * one parameter, {@code fanOut} takes one array per parameter, and all arrays must have the same
+ * length.
+ *
+ * <p>If {@code Foo} has a field of type {@code int}, {@code long} or {@code short} annotated with
+ * {@link Id}, the interface will also contain:
+ *
+ * <pre>{@code
+ *     void parallelScan(ContentResolver contentResolver, int partitions,
+ *         Consumer<? super Foo> consumer);
+ *     LongObjectMap<Foo> toIdMap(ContentResolver contentResolver);
+ * }</pre>
+ *
+ * {@code parallelScan} splits the range of ids satisfying the query into {@code partitions}
+ * disjoint ranges, and reads each of them with its own cursor on the {@link Workers} pool, which
+ * has one thread per core: partitions beyond {@link Workers#parallelism()} wait for a free one.
+ * {@code toIdMap} returns the entities satisfying the query keyed by their id, in the established
+ * order, without boxing the ids. If {@code Foo} also has a field annotated with {@link Version},
+ * the interface will also contain:
+ *
+ * <pre>{@code
+ *     void refresh(ContentResolver contentResolver, Snapshot<Foo> snapshot);
+ * }</pre>
+ *
+ * which brings a snapshot of the query up to date: it reads the rows satisfying the query whose
+ * version is at least the greatest version in the snapshot, and the ids of all the rows
+ * satisfying the query, in the established order, then {@linkplain Snapshot#merge merges} them
+ * into the snapshot. Rows inserted between both queries are read by id. If the table backing the
+ * content provider is given by {@link ContentProviderEntity#table()}, the interface will also
+ * contain:
+ *
+ * <pre>{@code
+ *     Subquery selectId();
+ * }</pre>
+ *
+ * which returns the ids satisfying the query as a {@link Subquery}, to be used as the right-hand
+ * side of a constraint of another entity, so that the content provider runs both queries at once.
+ *
+ * <p>If {@code Foo} has fields of type {@code int}, {@code long} or {@code short}, the interface
+ * will also contain aggregate functions computed by the content provider, taking one of the
+ * constants generated by {@link Fields}:
+ *
+ * <pre>{@code
+ *     long sumOf(ContentResolver contentResolver, IntegralField<Foo> field);
+ *     OptionalLong minOf(ContentResolver contentResolver, IntegralField<Foo> field);
+ *     OptionalLong maxOf(ContentResolver contentResolver, IntegralField<Foo> field);
+ *     OptionalDouble avgOf(ContentResolver contentResolver, IntegralField<Foo> field);
+ * }</pre>
+ *
+ * and similarly, if it has fields of type {@code float} or {@code double}, {@code sumOf}, {@code
+ * minOf}, {@code maxOf} and {@code avgOf} taking a {@code RealField<Foo>}, and returning {@code
+ * double}, {@code OptionalDouble}, {@code OptionalDouble} and {@code OptionalDouble}. The
+ * optionals are empty when no row (or only {@code NULL} values) satisfy the query.
+ *
+ * <p>If {@code Foo} has integral fields, or fields of type {@link String}, the interface will also
+ * contain:
+ *
+ * <pre>{@code
+ *     LongIntMap countBy(ContentResolver contentResolver, IntegralField<Foo> field);
+ *     long[] distinct(ContentResolver contentResolver, IntegralField<Foo> field);
+ *     Map<String, Integer> countBy(ContentResolver contentResolver, StringField<Foo> field);
+ *     List<String> distinct(ContentResolver contentResolver, StringField<Foo> field);
+ * }</pre>
+ *
+ * which return the number of rows satisfying the query for each value of the field, and the
+ * distinct values of the field. On API 30 and later, the rows are grouped by the content provider
+ * if it honors {@code ContentResolver.QUERY_ARG_SQL_GROUP_BY}; otherwise, the values of the column
+ * are streamed and counted in a single pass, and providers found to ignore the argument are not
+ * asked to group again. Rows where an integral field is {@code NULL} are left
+ * out, since they have no {@code long} key; for a {@link String} field, they are counted under the
+ * {@code null} key.
+ *
+ * <p>Finally, the interface will contain, depending on the types of the fields of {@code Foo}:
+ *
+ * <pre>{@code
+ *     IntList pluckInt(ContentResolver contentResolver, IntField<Foo> field);
+ *     LongList pluckLong(ContentResolver contentResolver, IntegralField<Foo> field);
+ *     DoubleList pluckDouble(ContentResolver contentResolver, RealField<Foo> field);
+ *     List<String> pluckString(ContentResolver contentResolver, StringField<Foo> field);
+ * }</pre>
+ *
+ * which return the values of a single column for the rows satisfying the query, in the
+ * established order, without binding any entity. {@code NULL} values are read as 0 or {@code
+ * null}. {@code pluckInt} is only generated if {@code Foo} has an {@code int} or {@code short}
+ * field, and only accepts the {@link IntField} constants of such fields, so that {@code long}
+ * values are never truncated.
+ */
+public class Executable {
+  public static final ClassName NAME = ClassName.get("", "Executable");
+  static final String FAN_OUT = "fanOut";
+  static final String PARALLEL_SCAN = "parallelScan";
+  static final String READ_AHEAD = "readAhead";
+  static final String GET_LAZILY = "getLazily";
+  static final String CACHED_COUNT = "cachedCount";
+  static final String ESTIMATE_COUNT = "estimateCount";
+  static final String COUNT_MANY = "countMany";
+  static final String TOP_K = "topK";
+  static final String TOP_K_BY = "topKBy";
+  static final String TO_PREDICATE = "toPredicate";
+  static final String SNAPSHOT = "snapshot";
+  static final String FILTER = "filter";
+  static final String REFRESH = "refresh";
+  static final String OBSERVE = "observe";
+  static final String COUNT_BY = "countBy";
+  static final String DISTINCT = "distinct";
+  static final String SELECT_ID = "selectId";
+  static final String TO_ID_MAP = "toIdMap";
+  static final String PLUCK_INT = "pluckInt";
+  static final String PLUCK_LONG = "pluckLong";
+  static final String PLUCK_DOUBLE = "pluckDouble";
+  static final String PLUCK_STRING = "pluckString";
+  static final ImmutableList<String> PLUCKS =
+      ImmutableList.of(PLUCK_INT, PLUCK_LONG, PLUCK_DOUBLE, PLUCK_STRING);
+  /** The names of the aggregate functions, each being the name of the SQL function plus "Of". */
+  static final ImmutableList<String> AGGREGATES =
+      ImmutableList.of("sumOf", "minOf", "maxOf", "avgOf");
+
+  private Executable() {
+    throw new UnsupportedOperationException();
+  }
+
+  public static TypeSpec generate(@Nonnull TypeName entityType) {
+    return generate(entityType, ImmutableList.of(), ImmutableList.of());
+  }
+
+  /**
+   * @param entityType the class annotated with {@link ContentProviderEntity}.
+   * @param fields the fields of the entity annotated with {@link Column}.
+   * @param uriParameters the parameters of the method annotated with {@link ContentUri}, if any.
+   */
+  public static TypeSpec generate(
+      @Nonnull TypeName entityType,
+      @Nonnull List<BoundField> fields,
+      @Nonnull List<ParameterSpec> uriParameters) {
+    return generate(entityType, fields, uriParameters, null);
+  }
+
+  /**
+   * @param entityType the class annotated with {@link ContentProviderEntity}.
+   * @param fields the fields of the entity annotated with {@link Column}.
+   * @param uriParameters the parameters of the method annotated with {@link ContentUri}, if any.
+   * @param table the table backing the content provider, if known.
+   */
+  public static TypeSpec generate(
+      @Nonnull TypeName entityType,
+      @Nonnull List<BoundField> fields,
+      @Nonnull List<ParameterSpec> uriParameters,
+      @Nullable String table) {
+    entityType = Preconditions.checkNotNull(entityType);
+    fields = Preconditions.checkNotNull(fields);
+    uriParameters = Preconditions.checkNotNull(uriParameters);
+    TypeName entityList = ParameterizedTypeName.get(ClassName.get(CloseableList.class), entityType);
+    MethodSpec get =
+        MethodSpec.methodBuilder("get")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(CANCELLATION_SIGNAL, "cancellationSignal")
+            .returns(entityList)
+            .build();
+    MethodSpec getWithDeadline =
+        get.toBuilder().addParameter(TypeName.LONG, "deadline").build();
+    MethodSpec count =
+        MethodSpec.methodBuilder("count")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(CANCELLATION_SIGNAL, "cancellationSignal")
+            .returns(TypeName.INT)
+            .build();
+    MethodSpec countWithDeadline =
+        count.toBuilder().addParameter(TypeName.LONG, "deadline").build();
+    MethodSpec readAhead =
+        MethodSpec.methodBuilder(READ_AHEAD)
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(TypeName.INT, "capacity")
+            .returns(ParameterizedTypeName.get(ClassName.get(CloseableIterator.class), entityType))
+            .build();
+    MethodSpec getLazily =
+        MethodSpec.methodBuilder(GET_LAZILY)
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .returns(entityList)
+            .build();
+    MethodSpec cachedCount =
+        MethodSpec.methodBuilder(CACHED_COUNT)
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(CountCache.class, "cache")
+            .returns(TypeName.INT)
+            .build();
+    MethodSpec estimateCount =
+        MethodSpec.methodBuilder(ESTIMATE_COUNT)
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(CountCache.class, "cache")
+            .returns(TypeName.INT)
+            .build();
+    MethodSpec countMany =
+        MethodSpec.methodBuilder(COUNT_MANY)
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(ArrayTypeName.of(NAME), "predicates")
+            .varargs()
+            .returns(ArrayTypeName.of(TypeName.INT))
+            .build();
+    MethodSpec topK =
+        MethodSpec.methodBuilder(TOP_K)
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(TypeName.INT, "k")
+            .addParameter(
+                ParameterizedTypeName.get(
+                    ClassName.get(Comparator.class), WildcardTypeName.supertypeOf(entityType)),
+                "comparator")
+            .returns(ParameterizedTypeName.get(ClassName.get(List.class), entityType))
+            .build();
+    MethodSpec toPredicate =
+        MethodSpec.methodBuilder(TO_PREDICATE)
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .returns(ParameterizedTypeName.get(ClassName.get(Predicate.class), entityType))
+            .build();
+    TypeName snapshotType = ParameterizedTypeName.get(ClassName.get(Snapshot.class), entityType);
+    MethodSpec snapshot =
+        MethodSpec.methodBuilder(SNAPSHOT)
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .returns(snapshotType)
+            .build();
+    MethodSpec filter =
+        MethodSpec.methodBuilder(FILTER)
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(snapshotType, "snapshot")
+            .returns(ParameterizedTypeName.get(ClassName.get(List.class), entityType))
+            .build();
+    MethodSpec observe =
+        MethodSpec.methodBuilder(OBSERVE)
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(TypeName.LONG, "windowMillis")
+            .addParameter(
+                ParameterizedTypeName.get(ClassName.get(LiveQuery.Listener.class), entityType),
+                "listener")
+            .returns(ParameterizedTypeName.get(ClassName.get(LiveQuery.class), entityType))
+            .build();
+    TypeSpec.Builder builder =
+        TypeSpec.interfaceBuilder(NAME)
+            .addModifiers(Modifier.PUBLIC)
+            .addSuperinterface(
+                ParameterizedTypeName.get(
+                    ClassName.get(QueryExecutor.class), entityType, CONTENT_RESOLVER))
+            .addMethods(
+                ImmutableList.of(
+                    get,
+                    getWithDeadline,
+                    count,
+                    countWithDeadline,
+                    readAhead,
+                    getLazily,
+                    cachedCount,
+                    estimateCount,
+                    countMany,
+                    topK,
+                    toPredicate,
+                    snapshot,
+                    filter,
+                    observe));
+    if (fields.stream().anyMatch(BoundField::canBeUsedForSorting)) {
+      builder.addMethod(
+          MethodSpec.methodBuilder(TOP_K_BY)
+              .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+              .addParameter(CONTENT_RESOLVER, "contentResolver")
+              .addParameter(
+                  ParameterizedTypeName.get(ClassName.get(Field.class), entityType), "field")
+              .addParameter(Order.class, "order")
+              .addParameter(TypeName.INT, "k")
+              .returns(ParameterizedTypeName.get(ClassName.get(List.class), entityType))
+              .build());
+    }
+    if (!uriParameters.isEmpty()) {
+      builder.addMethod(
+          MethodSpec.methodBuilder(FAN_OUT)
+              .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+              .addParameter(CONTENT_RESOLVER, "contentResolver")
+              .addParameters(
+                  uriParameters
+                      .stream()
+                      .map(p -> ParameterSpec.builder(ArrayTypeName.of(p.type), p.name).build())
+                      .collect(Collectors.toList()))
+              .varargs(uriParameters.size() == 1)
+              .returns(entityList)
+              .build());
+    }
+    BoundField id =
+        fields.stream().filter(BoundField::isId).collect(CollectionUtils.uniqueOrNull());
+    if (id != null && isIntegral(id.getType())) {
+      builder.addMethod(
+          MethodSpec.methodBuilder(PARALLEL_SCAN)
+              .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+              .addParameter(CONTENT_RESOLVER, "contentResolver")
+              .addParameter(TypeName.INT, "partitions")
+              .addParameter(
+                  ParameterizedTypeName.get(
+                      ClassName.get(Consumer.class), WildcardTypeName.supertypeOf(entityType)),
+                  "consumer")
+              .build());
+      builder.addMethod(
+          MethodSpec.methodBuilder(TO_ID_MAP)
+              .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+              .addParameter(CONTENT_RESOLVER, "contentResolver")
+              .returns(ParameterizedTypeName.get(ClassName.get(LongObjectMap.class), entityType))
+              .build());
+      if (fields.stream().anyMatch(BoundField::isVersion)) {
+        builder.addMethod(
+            MethodSpec.methodBuilder(REFRESH)
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addParameter(CONTENT_RESOLVER, "contentResolver")
+                .addParameter(
+                    ParameterizedTypeName.get(ClassName.get(Snapshot.class), entityType),
+                    "snapshot")
+                .build());
+      }
+      if (table != null) {
+        builder.addMethod(
+            MethodSpec.methodBuilder(SELECT_ID)
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .returns(Subquery.class)
+                .build());
+      }
+    }
+    addAggregates(builder, entityType, fields, ClassName.get(IntegralField.class), TypeName.LONG);
+    addAggregates(builder, entityType, fields, ClassName.get(RealField.class), TypeName.DOUBLE);
+    addGrouping(
+        builder,
+        entityType,
+        fields,
+        ClassName.get(IntegralField.class),
+        ClassName.get(LongIntMap.class),
+        ArrayTypeName.of(TypeName.LONG));
+    addGrouping(
+        builder,
+        entityType,
+        fields,
+        ClassName.get(StringField.class),
+        ParameterizedTypeName.get(Map.class, String.class, Integer.class),
+        ParameterizedTypeName.get(List.class, String.class));
+    addPluck(
+        builder,
+        entityType,
+        fields,
+        PLUCK_INT,
+        ClassName.get(IntField.class),
+        ClassName.get(IntList.class));
+    addPluck(
+        builder,
+        entityType,
+        fields,
+        PLUCK_LONG,
+        ClassName.get(IntegralField.class),
+        ClassName.get(LongList.class));
+    addPluck(
+        builder,
+        entityType,
+        fields,
+        PLUCK_DOUBLE,
+        ClassName.get(RealField.class),
+        ClassName.get(DoubleList.class));
+    addPluck(
+        builder,
+        entityType,
+        fields,
+        PLUCK_STRING,
+        ClassName.get(StringField.class),
+        ParameterizedTypeName.get(List.class, String.class));
+    return builder.build();
+  }
+
+  private static void addPluck(
+      TypeSpec.Builder builder,
+      TypeName entityType,
+      List<BoundField> fields,
+      String name,
+      ClassName fieldClass,
+      TypeName values) {
+    if (fields
+        .stream()
+        .noneMatch(
+            f ->
+                fieldClass.equals(Fields.fieldClassFor(f.getType()))
+                    || fieldClass.equals(Fields.constantClassFor(f.getType())))) {
+      return;
+    }
+    builder.addMethod(
+        MethodSpec.methodBuilder(name)
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(ParameterizedTypeName.get(fieldClass, entityType), "field")
+            .returns(values)
+            .build());
+  }
+
+  private static void addGrouping(
+      TypeSpec.Builder builder,
+      TypeName entityType,
+      List<BoundField> fields,
+      ClassName fieldClass,
+      TypeName counts,
+      TypeName values) {
+    if (fields.stream().noneMatch(f -> fieldClass.equals(Fields.fieldClassFor(f.getType())))) {
+      return;
+    }
+    TypeName field = ParameterizedTypeName.get(fieldClass, entityType);
+    builder.addMethod(
+        MethodSpec.methodBuilder(COUNT_BY)
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(field, "field")
+            .returns(counts)
+            .build());
+    builder.addMethod(
+        MethodSpec.methodBuilder(DISTINCT)
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(field, "field")
+            .returns(values)
+            .build());
+  }
+
+  private static void addAggregates(
+      TypeSpec.Builder builder,
+      TypeName entityType,
+      List<BoundField> fields,
+      ClassName fieldClass,
+      TypeName resultType) {
+    if (fields.stream().noneMatch(f -> fieldClass.equals(Fields.fieldClassFor(f.getType())))) {
+      return;
+    }
+    ClassName optional =
+        ClassName.get(TypeName.LONG.equals(resultType) ? OptionalLong.class : OptionalDouble.class);
+    TypeName[] returnTypes = {resultType, optional, optional, ClassName.get(OptionalDouble.class)};
+    for (int i = 0; i < AGGREGATES.size(); ++i) {
+      builder.addMethod(
+          MethodSpec.methodBuilder(AGGREGATES.get(i))
+              .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+              .addParameter(CONTENT_RESOLVER, "contentResolver")
+              .addParameter(ParameterizedTypeName.get(fieldClass, entityType), "field")
+              .returns(returnTypes[i])
+              .build());
+    }
+  }
+
+  static boolean isIntegral(TypeName type) {
+    return TypeName.INT.equals(type) || TypeName.LONG.equals(type) || TypeName.SHORT.equals(type);
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder.compiler.generators;
+
+import com.google.common.base.CaseFormat;
+import com.google.common.base.Preconditions;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.lang.model.element.Modifier;
+import tech.darkespresso.hellbinder.Field;
+import tech.darkespresso.hellbinder.IntField;
+import tech.darkespresso.hellbinder.IntegralField;
+import tech.darkespresso.hellbinder.RealField;
+import tech.darkespresso.hellbinder.StringField;
+import tech.darkespresso.hellbinder.annotations.Column;
+import tech.darkespresso.hellbinder.annotations.ContentProviderEntity;
+import tech.darkespresso.hellbinder.compiler.BoundField;
+
+/**
+ * Contains the name and the generate method for the class holding a {@link Field} constant for
+ * each field of an entity.
+ *
+ * <p>Suppose the class annotated with {@link ContentProviderEntity} is named {@code Foo}, and it
+ * has two {@link Column}-annotated fields: {@code long totalAmount}, bound to the column {@code
+ * total_amount}, and {@code String name}, bound to the column {@code name}.
+ *
+ * <p>The generated class will be:
+ *
+ * <pre>{@code
+ * public static final class Fields {
+ *     public static final IntegralField<Foo> TOTAL_AMOUNT = new IntegralField<Foo>("total_amount");
+ *     public static final StringField<Foo> NAME = new StringField<Foo>("name");
+ *
+ *     private Fields() {
+ *       throw new UnsupportedOperationException();
+ *     }
+ * }
+ * }</pre>
+ *
+ * The constants are passed to the methods of {@link Executable} that work on a single column, such
+ * as {@code sumOf}. Those of {@code int} or {@code short} fields are {@link IntField}s, which can
+ * also be passed to {@code pluckInt}.
+ */
+public class Fields {
+  public static final ClassName NAME = ClassName.get("", "Fields");
+
+  private Fields() {
+    throw new UnsupportedOperationException();
+  }
+
+  public static TypeSpec generate(@Nonnull TypeName entityType, @Nonnull List<BoundField> fields) {
+    entityType = Preconditions.checkNotNull(entityType);
+    fields = Preconditions.checkNotNull(fields);
+    TypeSpec.Builder builder =
+        TypeSpec.classBuilder(NAME)
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PRIVATE)
+                    .addStatement("throw new $T()", UnsupportedOperationException.class)
+                    .build());
+    for (BoundField field : fields) {
+      ClassName fieldClass = constantClassFor(field.getType());
+      if (fieldClass == null) {
+        // Unsupported types are reported when generating the bind method.
+        continue;
+      }
+      TypeName type = ParameterizedTypeName.get(fieldClass, entityType);
+      builder.addField(
+          FieldSpec.builder(
+                  type, constantName(field), Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+              .initializer("new $T($S)", type, field.getColumn())
+              .build());
+    }
+    return builder.build();
+  }
+
+  /** Returns the name of the constant identifying the given field, e.g. TOTAL_AMOUNT. */
+  static String constantName(@Nonnull BoundField field) {
+    return CaseFormat.LOWER_CAMEL.to(CaseFormat.UPPER_UNDERSCORE, field.getFieldName());
+  }
+
+  /**
+   * Returns the class of the constants identifying fields of the given type, which is {@link
+   * IntField} for {@code int} and {@code short} fields and {@link #fieldClassFor(TypeName)}
+   * otherwise.
+   */
+  @Nullable
+  static ClassName constantClassFor(@Nonnull TypeName type) {
+    if (TypeName.INT.equals(type) || TypeName.SHORT.equals(type)) {
+      return ClassName.get(IntField.class);
+    }
+    return fieldClassFor(type);
+  }
+
+  /**
+   * Returns the subclass of {@link Field} used for fields of the given type, or null if the type is
+   * not supported.
+   */
+  @Nullable
+  static ClassName fieldClassFor(@Nonnull TypeName type) {
+    if (TypeName.INT.equals(type) || TypeName.LONG.equals(type) || TypeName.SHORT.equals(type)) {
+      return ClassName.get(IntegralField.class);
+    } else if (TypeName.FLOAT.equals(type) || TypeName.DOUBLE.equals(type)) {
+      return ClassName.get(RealField.class);
+    } else if (TypeName.get(String.class).equals(type)) {
+      return ClassName.get(StringField.class);
+    }
+    return null;
+  }
+}
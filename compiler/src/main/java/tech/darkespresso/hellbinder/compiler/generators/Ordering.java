@@ -25,17 +25,10 @@
 
 package tech.darkespresso.hellbinder.compiler.generators;
 
-import static tech.darkespresso.hellbinder.compiler.AndroidClasses.CONTENT_RESOLVER;
-
-import com.google.common.base.Preconditions;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.MethodSpec;
-import com.squareup.javapoet.ParameterizedTypeName;
-import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
-import javax.annotation.Nonnull;
 import javax.lang.model.element.Modifier;
-import tech.darkespresso.hellbinder.QueryExecutor;
 import tech.darkespresso.hellbinder.annotations.ContentProviderEntity;
 
 /**
@@ -47,12 +40,13 @@ import tech.darkespresso.hellbinder.annotations.ContentProviderEntity;
  * <p>The generated interface will be:
  *
  * <pre>{@code
- * public interface Ordering extends QueryExecutor<Foo, ContentResolver> {
+ * public interface Ordering extends Executable {
  *     OrderBuilder thenBy();
  * }
  * }</pre>
  *
- * where {@code OrderBuilder} is the interface exposing the methods to establish sorting criteria.
+ * where {@code OrderBuilder} is the interface exposing the methods to establish sorting criteria,
+ * and {@code Executable} is the interface exposing the methods to execute the query.
  */
 public class Ordering {
   public static final ClassName NAME = ClassName.get("", "Ordering");
@@ -61,8 +55,7 @@ public class Ordering {
     throw new UnsupportedOperationException();
   }
 
-  public static TypeSpec generate(@Nonnull TypeName entityType) {
-    entityType = Preconditions.checkNotNull(entityType);
+  public static TypeSpec generate() {
     MethodSpec thenBy =
         MethodSpec.methodBuilder("thenBy")
             .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
@@ -70,9 +63,7 @@ public class Ordering {
             .build();
     return TypeSpec.interfaceBuilder(NAME.simpleName())
         .addModifiers(Modifier.PUBLIC)
-        .addSuperinterface(
-            ParameterizedTypeName.get(
-                ClassName.get(QueryExecutor.class), entityType, CONTENT_RESOLVER))
+        .addSuperinterface(Executable.NAME)
         .addMethod(thenBy)
         .build();
   }
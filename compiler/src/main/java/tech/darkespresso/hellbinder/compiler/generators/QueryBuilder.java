@@ -27,12 +27,15 @@ package tech.darkespresso.hellbinder.compiler.generators;
 
 import com.google.common.base.Preconditions;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeSpec;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.lang.model.element.Modifier;
 import tech.darkespresso.hellbinder.Operator;
+import tech.darkespresso.hellbinder.Subquery;
 import tech.darkespresso.hellbinder.annotations.Column;
 import tech.darkespresso.hellbinder.annotations.Constraint;
 import tech.darkespresso.hellbinder.annotations.ContentProviderEntity;
@@ -56,9 +59,32 @@ import tech.darkespresso.hellbinder.compiler.BoundField;
  *
  * where {@link Operator op} is used to specify what kind of relation must there be between the
  * field and the given value.
+ *
+ * <p>Each constraint also comes with {@code barBetween(int lower, int upper)}, which takes the two
+ * inclusive bounds of {@link Operator#BETWEEN}, and constraints on {@code int}, {@code long} or
+ * {@code short} fields have an overload taking a {@link Subquery}, such as the ids selected by a
+ * query on another entity:
+ *
+ * <pre>{@code
+ *     Constraining barBetween(int lower, int upper);
+ *     Constraining bar(Operator op, Subquery values);
+ * }</pre>
+ *
+ * <p>Fields whose {@link Constraint} is nullable or full-text also get {@code barIsNull(boolean
+ * value)} or {@code barMatches(String query)}.
+ *
+ * <p>Finally, the interface contains
+ *
+ * <pre>{@code
+ *     Constraining group(Constraining constraints);
+ * }</pre>
+ *
+ * which adds the constraints of another query, built with {@code where()}, as a single
+ * parenthesized term: {@code where().bar(EQ, 1).and().group(where().bar(EQ, 2).or().bar(EQ, 3))}.
  */
 public class QueryBuilder {
   static final ClassName NAME = ClassName.get("", "QueryBuilder");
+  static final String GROUP = "group";
 
   private QueryBuilder() {
     throw new UnsupportedOperationException();
@@ -68,18 +94,42 @@ public class QueryBuilder {
     Preconditions.checkArgument(!fields.isEmpty());
     return TypeSpec.interfaceBuilder(NAME)
         .addModifiers(Modifier.PUBLIC)
+        .addMethod(
+            MethodSpec.methodBuilder(GROUP)
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addParameter(Constraining.NAME, "constraints")
+                .returns(Constraining.NAME)
+                .build())
         .addMethods(
             fields
                 .stream()
                 .filter(BoundField::canBeConstrained)
                 .map(BoundField::getConstraint)
                 .collect(Collectors.toList()))
+        .addMethods(
+            fields
+                .stream()
+                .map(BoundField::getRangeConstraint)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()))
+        .addMethods(
+            fields
+                .stream()
+                .map(BoundField::getSubqueryConstraint)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()))
         .addMethods(
             fields
                 .stream()
                 .filter(BoundField::isNullable)
                 .map(BoundField::getIsNull)
                 .collect(Collectors.toList()))
+        .addMethods(
+            fields
+                .stream()
+                .map(BoundField::getMatch)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()))
         .build();
   }
 }
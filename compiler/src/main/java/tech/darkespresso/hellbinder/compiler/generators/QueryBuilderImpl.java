@@ -27,6 +27,7 @@ package tech.darkespresso.hellbinder.compiler.generators;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
@@ -35,17 +36,44 @@ import com.squareup.javapoet.ParameterSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.lang.model.element.Modifier;
+import tech.darkespresso.hellbinder.CloseableIterator;
 import tech.darkespresso.hellbinder.CloseableList;
+import tech.darkespresso.hellbinder.ColumnAccessor;
+import tech.darkespresso.hellbinder.Condition;
+import tech.darkespresso.hellbinder.CountCache;
+import tech.darkespresso.hellbinder.EntityComparator;
+import tech.darkespresso.hellbinder.Field;
+import tech.darkespresso.hellbinder.IgnoredArguments;
+import tech.darkespresso.hellbinder.IntegralField;
+import tech.darkespresso.hellbinder.LazyList;
+import tech.darkespresso.hellbinder.LiveQuery;
+import tech.darkespresso.hellbinder.LongIntMap;
+import tech.darkespresso.hellbinder.MergedList;
 import tech.darkespresso.hellbinder.Operator;
 import tech.darkespresso.hellbinder.Order;
-import tech.darkespresso.hellbinder.QueryExecutor;
+import tech.darkespresso.hellbinder.ReadAheadIterator;
+import tech.darkespresso.hellbinder.RealField;
+import tech.darkespresso.hellbinder.Selection;
+import tech.darkespresso.hellbinder.Snapshot;
+import tech.darkespresso.hellbinder.Subquery;
+import tech.darkespresso.hellbinder.Workers;
 import tech.darkespresso.hellbinder.compiler.AndroidClasses;
 import tech.darkespresso.hellbinder.compiler.BoundField;
 import tech.darkespresso.hellbinder.compiler.utils.CodeGen;
@@ -55,15 +83,9 @@ import tech.darkespresso.hellbinder.compiler.utils.CollectionUtils;
 public class QueryBuilderImpl {
   public static final ClassName NAME = ClassName.get("", "QueryBuilderImpl");
 
-  private static final FieldSpec query =
-      FieldSpec.builder(StringBuilder.class, "mQuery", Modifier.PRIVATE, Modifier.FINAL)
-          .initializer("new $T()", StringBuilder.class)
-          .build();
-
-  private static final FieldSpec args =
-      FieldSpec.builder(ParameterizedTypeName.get(ArrayList.class, String.class), "mArgs")
-          .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
-          .initializer("new $T()", ParameterizedTypeName.get(ArrayList.class, String.class))
+  private static final FieldSpec selection =
+      FieldSpec.builder(Selection.class, "mSelection", Modifier.PRIVATE, Modifier.FINAL)
+          .initializer("new $T()", Selection.class)
           .build();
 
   private static final FieldSpec sortOrder =
@@ -74,22 +96,38 @@ public class QueryBuilderImpl {
   private static final FieldSpec uri =
       FieldSpec.builder(AndroidClasses.URI, "mUri", Modifier.PRIVATE, Modifier.FINAL).build();
 
+  private static final String COMPARATOR = "mComparator";
+  private static final String AGGREGATE = "aggregate";
+  private static final String GROUP_BY = "groupBy";
+  private static final String CONJUNCTION = "conjunction";
+  private static final String CRITERION_FOR = "criterionFor";
+  private static final String ACCESSOR_FOR = "accessorFor";
+
   public static TypeSpec generate(
       @Nonnull TypeName entityName,
       @Nonnull FieldSpec projection,
       @Nonnull List<BoundField> fields,
-      @Nullable TypeSpec queryRoot) {
+      @Nullable TypeSpec queryRoot,
+      @Nonnull TypeSpec executable,
+      @Nullable String table,
+      @Nullable String fingerprint) {
     entityName = Preconditions.checkNotNull(entityName);
     projection = Preconditions.checkNotNull(projection);
+    executable = Preconditions.checkNotNull(executable);
     TypeSpec.Builder builder =
         TypeSpec.classBuilder(NAME).addModifiers(Modifier.PRIVATE, Modifier.FINAL, Modifier.STATIC);
 
-    // The QueryBuilderImpl contains 4 private, final fields:
-    // StringBuilder mQuery;
-    // ArrayList<String> mArgs;
+    // The QueryBuilderImpl contains 3 private, final fields:
+    // Selection mSelection;
     // StringBuilder mSortOrder;
     // Uri mUri;
-    builder.addFields(ImmutableList.of(query, args, sortOrder, uri));
+    builder.addFields(ImmutableList.of(selection, sortOrder, uri));
+    // and the comparator mirroring mSortOrder, used to merge results coming from different URIs:
+    // EntityComparator<Entity> mComparator;
+    builder.addField(
+        ParameterizedTypeName.get(ClassName.get(EntityComparator.class), entityName),
+        COMPARATOR,
+        Modifier.PRIVATE);
 
     // mUri is the only field which is set with a constructor parameter.
     MethodSpec constructor =
@@ -101,19 +139,137 @@ public class QueryBuilderImpl {
     builder.addMethod(constructor);
 
     implementQueryExecutor(builder, entityName, projection);
-    boolean explicitlyImplementQueryExecutor =
+    implementExecutable(
+        builder,
+        entityName,
+        projection,
+        fields.stream().filter(BoundField::isId).collect(CollectionUtils.uniqueOrNull()));
+    Optional<MethodSpec> fanOut =
+        executable.methodSpecs.stream().filter(m -> Executable.FAN_OUT.equals(m.name)).findAny();
+    if (fanOut.isPresent()) {
+      builder.addMethod(
+          implementFanOut(fanOut.get(), projection, CollectionClassGenerator.CONTENT_URI));
+    }
+    Optional<MethodSpec> parallelScan =
+        executable
+            .methodSpecs
+            .stream()
+            .filter(m -> Executable.PARALLEL_SCAN.equals(m.name))
+            .findAny();
+    if (parallelScan.isPresent()) {
+      BoundField id =
+          fields.stream().filter(BoundField::isId).collect(CollectionUtils.uniqueOrNull());
+      builder.addMethod(
+          implementParallelScan(parallelScan.get(), projection, Preconditions.checkNotNull(id)));
+    }
+    MethodSpec toPredicate =
+        CollectionUtils.getUnique(
+            executable.methodSpecs, m -> Executable.TO_PREDICATE.equals(m.name));
+    builder.addMethod(generateAccessorFor(entityName, fields));
+    builder.addMethod(
+        CodeGen.override(toPredicate)
+            .addStatement(
+                "return $N.toCondition().compile($T::$L)", selection, NAME, ACCESSOR_FOR)
+            .build());
+    MethodSpec snapshot =
+        CollectionUtils.getUnique(executable.methodSpecs, m -> Executable.SNAPSHOT.equals(m.name));
+    builder.addMethod(implementSnapshot(snapshot, entityName, fields));
+    MethodSpec filter =
+        CollectionUtils.getUnique(executable.methodSpecs, m -> Executable.FILTER.equals(m.name));
+    builder.addMethod(
+        CodeGen.override(filter)
+            .addStatement(
+                "return $N.filter($N.toCondition())", filter.parameters.get(0), selection)
+            .build());
+    MethodSpec observe =
+        CollectionUtils.getUnique(executable.methodSpecs, m -> Executable.OBSERVE.equals(m.name));
+    builder.addMethod(implementObserve(observe, fingerprint));
+    MethodSpec topK =
+        CollectionUtils.getUnique(executable.methodSpecs, m -> Executable.TOP_K.equals(m.name));
+    builder.addMethod(implementTopK(topK, entityName));
+    Optional<MethodSpec> topKBy =
+        executable.methodSpecs.stream().filter(m -> Executable.TOP_K_BY.equals(m.name)).findAny();
+    if (topKBy.isPresent()) {
+      builder.addMethod(generateCriterionFor(entityName, fields));
+      builder.addMethod(implementTopKBy(topKBy.get(), topK));
+    }
+    Optional<MethodSpec> refresh =
+        executable.methodSpecs.stream().filter(m -> Executable.REFRESH.equals(m.name)).findAny();
+    if (refresh.isPresent()) {
+      BoundField id =
+          fields.stream().filter(BoundField::isId).collect(CollectionUtils.uniqueOrNull());
+      BoundField version =
+          fields.stream().filter(BoundField::isVersion).collect(CollectionUtils.uniqueOrNull());
+      builder.addMethod(
+          implementRefresh(
+              refresh.get(),
+              entityName,
+              projection,
+              Preconditions.checkNotNull(id),
+              Preconditions.checkNotNull(version)));
+    }
+    Optional<MethodSpec> toIdMap =
+        executable.methodSpecs.stream().filter(m -> Executable.TO_ID_MAP.equals(m.name)).findAny();
+    if (toIdMap.isPresent()) {
+      BoundField id =
+          fields.stream().filter(BoundField::isId).collect(CollectionUtils.uniqueOrNull());
+      builder.addMethod(
+          implementToIdMap(toIdMap.get(), entityName, Preconditions.checkNotNull(id)));
+    }
+    List<MethodSpec> aggregates =
+        executable
+            .methodSpecs
+            .stream()
+            .filter(m -> Executable.AGGREGATES.contains(m.name))
+            .collect(Collectors.toList());
+    if (!aggregates.isEmpty()) {
+      builder.addMethod(generateAggregate());
+      for (MethodSpec aggregate : aggregates) {
+        builder.addMethod(implementAggregate(aggregate));
+      }
+    }
+    List<MethodSpec> grouping =
+        executable
+            .methodSpecs
+            .stream()
+            .filter(m -> Executable.COUNT_BY.equals(m.name) || Executable.DISTINCT.equals(m.name))
+            .collect(Collectors.toList());
+    if (!grouping.isEmpty()) {
+      builder.addMethod(generateGroupBy());
+      for (MethodSpec method : grouping) {
+        builder.addMethod(
+            Executable.COUNT_BY.equals(method.name)
+                ? implementCountBy(method)
+                : implementDistinct(method));
+      }
+    }
+    builder.addMethods(
+        executable
+            .methodSpecs
+            .stream()
+            .filter(m -> Executable.PLUCKS.contains(m.name))
+            .map(QueryBuilderImpl::implementPluck)
+            .collect(Collectors.toList()));
+    Optional<MethodSpec> selectId =
+        executable.methodSpecs.stream().filter(m -> Executable.SELECT_ID.equals(m.name)).findAny();
+    if (selectId.isPresent()) {
+      BoundField id =
+          fields.stream().filter(BoundField::isId).collect(CollectionUtils.uniqueOrNull());
+      builder.addMethod(
+          implementSelectId(
+              selectId.get(), Preconditions.checkNotNull(id), Preconditions.checkNotNull(table)));
+    }
+    boolean explicitlyImplementExecutable =
         !(generateConstraints(builder, fields, queryRoot == null)
-            | generateSortCriteria(builder, fields));
-    if (explicitlyImplementQueryExecutor) {
-      builder.addSuperinterface(
-          ParameterizedTypeName.get(
-              ClassName.get(QueryExecutor.class), entityName, AndroidClasses.CONTENT_RESOLVER));
+            | generateSortCriteria(builder, entityName, fields));
+    if (explicitlyImplementExecutable) {
+      builder.addSuperinterface(Executable.NAME);
     }
 
     if (queryRoot != null) {
       BoundField id =
           fields.stream().filter(BoundField::isId).collect(CollectionUtils.uniqueOrNull());
-      implementQueryRoot(builder, queryRoot, id);
+      implementQueryRoot(builder, entityName, projection, queryRoot, id);
     }
     return builder.build();
   }
@@ -130,17 +286,45 @@ public class QueryBuilderImpl {
         .addSuperinterface(QueryBuilder.NAME)
         .addMethod(generateConstraintKeyword("and"))
         .addMethod(generateConstraintKeyword("or"))
+        .addMethod(
+            MethodSpec.methodBuilder(QueryBuilder.GROUP)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addParameter(Constraining.NAME, "constraints")
+                .returns(Constraining.NAME)
+                .addStatement(
+                    "$N.add((($T) constraints).$N.toCondition())", selection, NAME, selection)
+                .addStatement("return this")
+                .build())
         .addMethods(
             fields
                 .stream()
                 .filter(BoundField::canBeConstrained)
                 .map(QueryBuilderImpl::generateConstraint)
                 .collect(Collectors.toList()))
+        .addMethods(
+            fields
+                .stream()
+                .filter(f -> f.getRangeConstraint() != null)
+                .map(QueryBuilderImpl::generateRangeConstraint)
+                .collect(Collectors.toList()))
+        .addMethods(
+            fields
+                .stream()
+                .filter(f -> f.getSubqueryConstraint() != null)
+                .map(QueryBuilderImpl::generateSubqueryConstraint)
+                .collect(Collectors.toList()))
         .addMethods(
             fields
                 .stream()
                 .filter(BoundField::isNullable)
                 .map(QueryBuilderImpl::generateIsNull)
+                .collect(Collectors.toList()))
+        .addMethods(
+            fields
+                .stream()
+                .filter(f -> f.getMatch() != null)
+                .map(QueryBuilderImpl::generateMatch)
                 .collect(Collectors.toList()));
     if (implementSortBy && fields.stream().anyMatch(f -> f.getSortBy() != null)) {
       builder.addMethod(
@@ -156,21 +340,55 @@ public class QueryBuilderImpl {
 
   private static MethodSpec generateConstraintKeyword(@Nonnull String methodName) {
     Preconditions.checkArgument("and".equals(methodName) || "or".equals(methodName));
-    return MethodSpec.methodBuilder(methodName)
-        .addAnnotation(Override.class)
-        .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
-        .returns(QueryBuilder.NAME)
-        .addStatement("$N.append(\" $L \")", query, methodName.toUpperCase())
-        .addStatement("return this")
-        .build();
+    MethodSpec.Builder builder =
+        MethodSpec.methodBuilder(methodName)
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .returns(QueryBuilder.NAME);
+    // Constraints are joined by AND unless told otherwise.
+    if ("or".equals(methodName)) {
+      builder.addStatement("$N.or()", selection);
+    }
+    return builder.addStatement("return this").build();
   }
 
   private static boolean generateSortCriteria(
-      @Nonnull TypeSpec.Builder builder, @Nonnull List<BoundField> fields) {
+      @Nonnull TypeSpec.Builder builder,
+      @Nonnull TypeName entityName,
+      @Nonnull List<BoundField> fields) {
     if (fields.stream().noneMatch(BoundField::canBeUsedForSorting)) {
       return false;
     }
 
+    // The lambdas read by each criterion are constants, so that sorting allocates as little as
+    // possible.
+    for (BoundField field : fields) {
+      if (!field.canBeUsedForSorting()) {
+        continue;
+      }
+      if (field.getType().equals(TypeName.get(String.class))) {
+        builder.addField(
+            FieldSpec.builder(
+                    ParameterizedTypeName.get(
+                        ClassName.get(Function.class), entityName, ClassName.get(String.class)),
+                    sortConstantName(field),
+                    Modifier.PRIVATE,
+                    Modifier.STATIC,
+                    Modifier.FINAL)
+                .initializer("entity -> entity.$L", field.getFieldName())
+                .build());
+      } else {
+        builder.addField(
+            FieldSpec.builder(
+                    ParameterizedTypeName.get(ClassName.get(Comparator.class), entityName),
+                    sortConstantName(field),
+                    Modifier.PRIVATE,
+                    Modifier.STATIC,
+                    Modifier.FINAL)
+                .initializer("$L", ascending(field))
+                .build());
+      }
+    }
     builder
         .addSuperinterface(Ordering.NAME)
         .addSuperinterface(OrderBuilder.NAME)
@@ -206,7 +424,7 @@ public class QueryBuilderImpl {
             .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
             .addParameter(contentResolver)
             .returns(ParameterizedTypeName.get(ClassName.get(CloseableList.class), entityName))
-            .addCode(query("cursor", contentResolver, projection))
+            .addCode(query("cursor", contentResolver, projection, null))
             .addStatement("return new $T(cursor)", EntityList.NAME)
             .build();
     MethodSpec count =
@@ -215,7 +433,7 @@ public class QueryBuilderImpl {
             .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
             .addParameter(contentResolver)
             .returns(TypeName.INT)
-            .addCode(query("cursor", contentResolver, null))
+            .addCode(query("cursor", contentResolver, null, null))
             .beginControlFlow("try")
             .addStatement("cursor.moveToFirst()")
             .addStatement("return cursor.getInt(0)")
@@ -226,8 +444,723 @@ public class QueryBuilderImpl {
     builder.addMethods(ImmutableList.of(get, count));
   }
 
+  private static void implementExecutable(
+      @Nonnull TypeSpec.Builder builder,
+      @Nonnull TypeName entityName,
+      @Nonnull FieldSpec projection,
+      @Nullable BoundField id) {
+    // Executable's overrides:
+    // CloseableList<Entity> get(ContentResolver, CancellationSignal);
+    // CloseableList<Entity> get(ContentResolver, CancellationSignal, long deadline);
+    // int count(ContentResolver, CancellationSignal);
+    // int count(ContentResolver, CancellationSignal, long deadline);
+    // CloseableIterator<Entity> readAhead(ContentResolver, int capacity);
+    // CloseableList<Entity> getLazily(ContentResolver);
+    // int cachedCount(ContentResolver, CountCache);
+    // int estimateCount(ContentResolver, CountCache);
+    // int[] countMany(ContentResolver, Executable...);
+    ParameterSpec contentResolver =
+        ParameterSpec.builder(AndroidClasses.CONTENT_RESOLVER, "contentResolver").build();
+    ParameterSpec cancellationSignal =
+        ParameterSpec.builder(AndroidClasses.CANCELLATION_SIGNAL, "cancellationSignal").build();
+    ParameterSpec deadline = ParameterSpec.builder(TypeName.LONG, "deadline").build();
+    TypeName entityList = ParameterizedTypeName.get(ClassName.get(CloseableList.class), entityName);
+    MethodSpec get =
+        MethodSpec.methodBuilder("get")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addParameter(contentResolver)
+            .addParameter(cancellationSignal)
+            .returns(entityList)
+            .addStatement(
+                "return get($N, $N, $T.MAX_VALUE)", contentResolver, cancellationSignal, Long.class)
+            .build();
+    MethodSpec getWithDeadline =
+        MethodSpec.methodBuilder("get")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addParameter(contentResolver)
+            .addParameter(cancellationSignal)
+            .addParameter(deadline)
+            .returns(entityList)
+            .addCode(startDeadline(cancellationSignal, deadline))
+            .beginControlFlow("try")
+            .addCode(query("cursor", contentResolver, projection, cancellationSignal))
+            .addStatement(
+                "return new $T(cursor, $N, $N)", EntityList.NAME, cancellationSignal, deadline)
+            .nextControlFlow("finally")
+            .addCode(stopDeadline())
+            .endControlFlow()
+            .build();
+    MethodSpec count =
+        MethodSpec.methodBuilder("count")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addParameter(contentResolver)
+            .addParameter(cancellationSignal)
+            .returns(TypeName.INT)
+            .addStatement(
+                "return count($N, $N, $T.MAX_VALUE)",
+                contentResolver,
+                cancellationSignal,
+                Long.class)
+            .build();
+    MethodSpec countWithDeadline =
+        MethodSpec.methodBuilder("count")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addParameter(contentResolver)
+            .addParameter(cancellationSignal)
+            .addParameter(deadline)
+            .returns(TypeName.INT)
+            .addCode(startDeadline(cancellationSignal, deadline))
+            .beginControlFlow("try")
+            .addCode(query("cursor", contentResolver, null, cancellationSignal))
+            .beginControlFlow("try")
+            .addStatement("cursor.moveToFirst()")
+            .addStatement("return cursor.getInt(0)")
+            .nextControlFlow("finally")
+            .addStatement("cursor.close()")
+            .endControlFlow()
+            .nextControlFlow("finally")
+            .addCode(stopDeadline())
+            .endControlFlow()
+            .build();
+    ParameterSpec capacity = ParameterSpec.builder(TypeName.INT, "capacity").build();
+    MethodSpec readAhead =
+        MethodSpec.methodBuilder(Executable.READ_AHEAD)
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addParameter(contentResolver)
+            .addParameter(capacity)
+            .returns(ParameterizedTypeName.get(ClassName.get(CloseableIterator.class), entityName))
+            .addStatement(
+                "return new $T(get($N), $N)",
+                ParameterizedTypeName.get(ClassName.get(ReadAheadIterator.class), entityName),
+                contentResolver,
+                capacity)
+            .build();
+    MethodSpec getLazily =
+        MethodSpec.methodBuilder(Executable.GET_LAZILY)
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addParameter(contentResolver)
+            .returns(entityList)
+            .addStatement(
+                "return new $T(() -> get($N))",
+                ParameterizedTypeName.get(ClassName.get(LazyList.class), entityName),
+                contentResolver)
+            .build();
+    ParameterSpec cache = ParameterSpec.builder(CountCache.class, "cache").build();
+    TypeSpec observer =
+        TypeSpec.anonymousClassBuilder("null")
+            .superclass(AndroidClasses.CONTENT_OBSERVER)
+            .addMethod(
+                MethodSpec.methodBuilder("onChange")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(TypeName.BOOLEAN, "selfChange")
+                    .addStatement("$N.invalidate(uri)", cache)
+                    .build())
+            .build();
+    MethodSpec cachedCount =
+        MethodSpec.methodBuilder(Executable.CACHED_COUNT)
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addParameter(contentResolver)
+            .addParameter(cache)
+            .returns(TypeName.INT)
+            .addCode(selectionArguments())
+            .addStatement("String key = $T.key(query, args)", CountCache.class)
+            .addStatement("Integer cached = $N.get($N, key)", cache, uri)
+            .beginControlFlow("if (cached != null)")
+            .addStatement("return cached")
+            .endControlFlow()
+            .beginControlFlow("if ($N.startObserving($N))", cache, uri)
+            .addStatement("$T uri = $N", AndroidClasses.URI, uri)
+            .addStatement("$T observer = $L", AndroidClasses.CONTENT_OBSERVER, observer)
+            .addStatement("$N.registerContentObserver(uri, true, observer)", contentResolver)
+            .addStatement(
+                "$N.setObserver(uri, () -> $N.unregisterContentObserver(observer))",
+                cache,
+                contentResolver)
+            .endControlFlow()
+            .addComment("Read once the observer is registered, so that no change can be missed.")
+            .addStatement("int generation = $N.generation($N)", cache, uri)
+            .addStatement("int count = count($N)", contentResolver)
+            .addStatement("$N.put($N, key, count, generation)", cache, uri)
+            .addStatement("return count")
+            .build();
+    MethodSpec estimateCount =
+        implementEstimateCount(
+            contentResolver,
+            cache,
+            id != null
+                ? CodeBlock.of("new String[] { $S }", id.getColumn())
+                : CodeBlock.of("new String[] { $N[0] }", projection));
+    builder.addMethods(
+        ImmutableList.of(
+            get,
+            getWithDeadline,
+            count,
+            countWithDeadline,
+            readAhead,
+            getLazily,
+            cachedCount,
+            estimateCount,
+            generateConjunction(),
+            implementCountMany(contentResolver)));
+  }
+
+  /**
+   * Generates a method returning a new builder whose constraints are the conjunction of those of
+   * this builder and of another one.
+   */
+  private static MethodSpec generateConjunction() {
+    return MethodSpec.methodBuilder(CONJUNCTION)
+        .addModifiers(Modifier.PRIVATE)
+        .addParameter(NAME, "other")
+        .returns(NAME)
+        .addStatement("$T combined = new $T($N)", NAME, NAME, uri)
+        .addStatement("combined.$N.add($N.toCondition())", selection, selection)
+        .addStatement("combined.$N.add(other.$N.toCondition())", selection, selection)
+        .addStatement("return combined")
+        .build();
+  }
+
+  /**
+   * Generates the method returning the {@link ColumnAccessor} of each column that can be
+   * constrained, used to evaluate the constraints of a query in memory.
+   */
+  private static MethodSpec generateAccessorFor(
+      @Nonnull TypeName entityName, @Nonnull List<BoundField> fields) {
+    MethodSpec.Builder builder =
+        MethodSpec.methodBuilder(ACCESSOR_FOR)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(String.class, "column")
+            .returns(ParameterizedTypeName.get(ClassName.get(ColumnAccessor.class), entityName))
+            .beginControlFlow("switch (column)");
+    for (BoundField field : fields) {
+      ClassName fieldClass = Fields.fieldClassFor(field.getType());
+      if (!field.canBeConstrained() || fieldClass == null) {
+        continue;
+      }
+      String factory;
+      if (fieldClass.equals(ClassName.get(IntegralField.class))) {
+        factory = "ofLong";
+      } else if (fieldClass.equals(ClassName.get(RealField.class))) {
+        factory = "ofDouble";
+      } else {
+        factory = "ofString";
+      }
+      builder
+          .addCode("case $S:\n$>", field.getColumn())
+          .addStatement(
+              "return $T.$L(entity -> entity.$L)",
+              ColumnAccessor.class,
+              factory,
+              field.getFieldName())
+          .addCode("$<");
+    }
+    return builder
+        .addCode("default:\n$>")
+        .addStatement("throw new $T(column)", IllegalArgumentException.class)
+        .addCode("$<")
+        .endControlFlow()
+        .build();
+  }
+
+  private static MethodSpec implementSnapshot(
+      @Nonnull MethodSpec snapshot,
+      @Nonnull TypeName entityName,
+      @Nonnull List<BoundField> fields) {
+    ParameterSpec contentResolver = snapshot.parameters.get(0);
+    Object[] indexed =
+        fields.stream().filter(BoundField::isIndexed).map(BoundField::getColumn).toArray();
+    CodeBlock indexedColumns =
+        CodeBlock.of(String.join(", ", Collections.nCopies(indexed.length, "$S")), indexed);
+    return CodeGen.override(snapshot)
+        .addStatement(
+            "$T entities = get($N)",
+            ParameterizedTypeName.get(ClassName.get(CloseableList.class), entityName),
+            contentResolver)
+        .addStatement(
+            "$T list = new $T<>(entities.size())",
+            ParameterizedTypeName.get(ClassName.get(List.class), entityName),
+            ArrayList.class)
+        .beginControlFlow("try")
+        .beginControlFlow("for (int i = 0; i < entities.size(); ++i)")
+        .addStatement("list.add(entities.get(i))")
+        .endControlFlow()
+        .nextControlFlow("finally")
+        .addStatement("entities.close()")
+        .endControlFlow()
+        .addStatement(
+            "return new $T<>(list, $T::$L, $T.asList($L))",
+            Snapshot.class,
+            NAME,
+            ACCESSOR_FOR,
+            Arrays.class,
+            indexedColumns)
+        .build();
+  }
+
+  private static MethodSpec implementObserve(
+      @Nonnull MethodSpec observe, @Nullable String fingerprint) {
+    ParameterSpec contentResolver = observe.parameters.get(0);
+    ParameterSpec windowMillis = observe.parameters.get(1);
+    ParameterSpec listener = observe.parameters.get(2);
+    TypeSpec observer =
+        TypeSpec.anonymousClassBuilder("null")
+            .superclass(AndroidClasses.CONTENT_OBSERVER)
+            .addMethod(
+                MethodSpec.methodBuilder("onChange")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(TypeName.BOOLEAN, "selfChange")
+                    .addStatement("liveQuery.onChange()")
+                    .build())
+            .build();
+    return CodeGen.override(observe)
+        .addStatement(
+            "$T liveQuery = new $T<>(() -> $L($N).getEntities(), $L, $N, $N)",
+            observe.returnType,
+            LiveQuery.class,
+            Executable.SNAPSHOT,
+            contentResolver,
+            fingerprint == null ? "null" : "entity -> entity." + fingerprint,
+            windowMillis,
+            listener)
+        .addStatement("$T observer = $L", AndroidClasses.CONTENT_OBSERVER, observer)
+        .addComment("Registered before the first run, so that no change can be missed.")
+        .addStatement("$N.registerContentObserver($N, true, observer)", contentResolver, uri)
+        .addStatement(
+            "liveQuery.start(() -> $N.unregisterContentObserver(observer))", contentResolver)
+        .addStatement("return liveQuery")
+        .build();
+  }
+
+  private static MethodSpec implementTopK(@Nonnull MethodSpec topK, @Nonnull TypeName entityName) {
+    ParameterSpec contentResolver = topK.parameters.get(0);
+    ParameterSpec k = topK.parameters.get(1);
+    ParameterSpec comparator = topK.parameters.get(2);
+    TypeName heap = ParameterizedTypeName.get(ClassName.get(PriorityQueue.class), entityName);
+    return CodeGen.override(topK)
+        .beginControlFlow("if ($N < 0)", k)
+        .addStatement(
+            "throw new $T($S + $N)", IllegalArgumentException.class, "k must not be negative: ", k)
+        .endControlFlow()
+        .beginControlFlow("if ($N == 0)", k)
+        .addStatement("return new $T<>()", ArrayList.class)
+        .endControlFlow()
+        .addStatement(
+            "$T entities = get($N)",
+            ParameterizedTypeName.get(ClassName.get(CloseableList.class), entityName),
+            contentResolver)
+        .addComment("The largest of the k smallest entities seen so far is at the head of the")
+        .addComment("heap, which never holds more entities than there are rows, whatever k is.")
+        .addStatement(
+            "$T heap = new $T($T.max(1, $T.min($N, entities.size())), $T.reverseOrder($N))",
+            heap,
+            heap,
+            Math.class,
+            Math.class,
+            k,
+            Collections.class,
+            comparator)
+        .beginControlFlow("try")
+        .addStatement("$T spare = null", entityName)
+        .beginControlFlow("for (int i = 0; i < entities.size(); ++i)")
+        .addStatement("$T entity = entities.get(i, spare)", entityName)
+        .beginControlFlow("if (heap.size() < $N)", k)
+        .addStatement("heap.add(entity)")
+        .addStatement("spare = null")
+        .nextControlFlow("else if ($N.compare(entity, heap.peek()) < 0)", comparator)
+        .addStatement("spare = heap.poll()")
+        .addStatement("heap.add(entity)")
+        .nextControlFlow("else")
+        .addStatement("spare = entity")
+        .endControlFlow()
+        .endControlFlow()
+        .nextControlFlow("finally")
+        .addStatement("entities.close()")
+        .endControlFlow()
+        .addStatement(
+            "$T result = new $T(heap)",
+            topK.returnType,
+            ParameterizedTypeName.get(ClassName.get(ArrayList.class), entityName))
+        .addStatement("result.sort($N)", comparator)
+        .addStatement("return result")
+        .build();
+  }
+
+  private static MethodSpec implementTopKBy(
+      @Nonnull MethodSpec topKBy, @Nonnull MethodSpec topK) {
+    ParameterSpec contentResolver = topKBy.parameters.get(0);
+    ParameterSpec field = topKBy.parameters.get(1);
+    ParameterSpec order = topKBy.parameters.get(2);
+    ParameterSpec k = topKBy.parameters.get(3);
+    return CodeGen.override(topKBy)
+        .addStatement(
+            "return $N($N, $N, $L)", topK, contentResolver, k, newEntityComparator(field, order))
+        .build();
+  }
+
+  /**
+   * Returns an expression creating the {@link EntityComparator} that sorts by {@code field} in the
+   * given {@code order}, which is only valid if {@link #generateCriterionFor} has been added.
+   */
+  static CodeBlock newEntityComparator(
+      @Nonnull ParameterSpec field, @Nonnull ParameterSpec order) {
+    return CodeBlock.of(
+        "new $T<>($T::$L, $N, $N)", EntityComparator.class, NAME, CRITERION_FOR, field, order);
+  }
+
+  /**
+   * Generates the {@link EntityComparator.Criteria} of the entity, which maps each field annotated
+   * with {@link tech.darkespresso.hellbinder.annotations.SortCriterion} to the criterion mirroring
+   * the way the provider sorts by it.
+   */
+  private static MethodSpec generateCriterionFor(
+      @Nonnull TypeName entityName, @Nonnull List<BoundField> fields) {
+    ParameterSpec field =
+        ParameterSpec.builder(
+                ParameterizedTypeName.get(ClassName.get(Field.class), entityName), "field")
+            .build();
+    ParameterSpec order = ParameterSpec.builder(Order.class, "order").build();
+    MethodSpec.Builder builder =
+        MethodSpec.methodBuilder(CRITERION_FOR)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(field)
+            .addParameter(order)
+            .returns(
+                ParameterizedTypeName.get(
+                    ClassName.get(EntityComparator.Criterion.class), entityName));
+    for (BoundField sortable : fields) {
+      if (!sortable.canBeUsedForSorting() || Fields.fieldClassFor(sortable.getType()) == null) {
+        continue;
+      }
+      builder
+          .beginControlFlow(
+              "if ($N == $T.$L)", field, Fields.NAME, Fields.constantName(sortable))
+          .addStatement("return $L", criterion(sortable, order))
+          .endControlFlow();
+    }
+    return builder
+        .addStatement(
+            "throw new $T($N + $S)",
+            IllegalArgumentException.class,
+            field,
+            " is not annotated with @SortCriterion")
+        .build();
+  }
+
+  private static MethodSpec implementToIdMap(
+      @Nonnull MethodSpec toIdMap, @Nonnull TypeName entityName, @Nonnull BoundField id) {
+    ParameterSpec contentResolver = toIdMap.parameters.get(0);
+    return CodeGen.override(toIdMap)
+        .addStatement(
+            "$T entities = get($N)",
+            ParameterizedTypeName.get(ClassName.get(CloseableList.class), entityName),
+            contentResolver)
+        .beginControlFlow("try")
+        .addComment("Sized from the cursor, so that the map never grows.")
+        .addStatement("$T map = new $T(entities.size())", toIdMap.returnType, toIdMap.returnType)
+        .beginControlFlow("for (int i = 0; i < entities.size(); ++i)")
+        .addStatement("$T entity = entities.get(i)", entityName)
+        .addStatement("map.put(entity.$L, entity)", id.getFieldName())
+        .endControlFlow()
+        .addStatement("return map")
+        .nextControlFlow("finally")
+        .addStatement("entities.close()")
+        .endControlFlow()
+        .build();
+  }
+
+  private static MethodSpec implementPluck(@Nonnull MethodSpec pluck) {
+    ParameterSpec contentResolver = pluck.parameters.get(0);
+    ParameterSpec field = pluck.parameters.get(1);
+    String getter;
+    TypeName values;
+    switch (pluck.name) {
+      case Executable.PLUCK_INT:
+        getter = "getInt";
+        values = pluck.returnType;
+        break;
+      case Executable.PLUCK_LONG:
+        getter = "getLong";
+        values = pluck.returnType;
+        break;
+      case Executable.PLUCK_DOUBLE:
+        getter = "getDouble";
+        values = pluck.returnType;
+        break;
+      case Executable.PLUCK_STRING:
+        getter = "getString";
+        values = ParameterizedTypeName.get(ArrayList.class, String.class);
+        break;
+      default:
+        throw new IllegalArgumentException(pluck.name);
+    }
+    return CodeGen.override(pluck)
+        .addCode(
+            query(
+                "cursor",
+                contentResolver,
+                CodeBlock.of("new String[] { $N.getColumn() }", field),
+                true,
+                null))
+        .beginControlFlow("try")
+        .addStatement("$T values = new $T(cursor.getCount())", pluck.returnType, values)
+        .beginControlFlow("while (cursor.moveToNext())")
+        .addStatement("values.add(cursor.$L(0))", getter)
+        .endControlFlow()
+        .addStatement("return values")
+        .nextControlFlow("finally")
+        .addStatement("cursor.close()")
+        .endControlFlow()
+        .build();
+  }
+
+  /**
+   * Returns the body of a {@code getById} method querying the URI of the single row, obtained by
+   * appending the id to {@code uri}, and binding its first row. Unlike selecting the id, this needs
+   * neither an {@code EntityList} nor the count of the rows.
+   */
+  static CodeBlock getByAppendedId(
+      @Nonnull CodeBlock uri,
+      @Nonnull TypeName entityType,
+      @Nonnull FieldSpec projection,
+      @Nonnull ParameterSpec contentResolver,
+      @Nonnull ParameterSpec id) {
+    return CodeBlock.builder()
+        .addStatement(
+            "$T cursor = $N.query($T.withAppendedId($L, $N), $N, null, null, null)",
+            AndroidClasses.CURSOR,
+            contentResolver,
+            AndroidClasses.CONTENT_URIS,
+            uri,
+            id,
+            projection)
+        .beginControlFlow("if (cursor == null)")
+        .addStatement("return null")
+        .endControlFlow()
+        .beginControlFlow("try")
+        .beginControlFlow("if (!cursor.moveToFirst())")
+        .addStatement("return null")
+        .endControlFlow()
+        .addStatement("$T entity = new $T()", entityType, entityType)
+        .addStatement("$L(entity, cursor)", CollectionClassGenerator.BIND)
+        .addStatement("return entity")
+        .nextControlFlow("finally")
+        .addStatement("cursor.close()")
+        .endControlFlow()
+        .build();
+  }
+
+  private static MethodSpec implementSelectId(
+      @Nonnull MethodSpec selectId, @Nonnull BoundField id, @Nonnull String table) {
+    String select = "SELECT " + id.getColumn() + " FROM " + table;
+    return CodeGen.override(selectId)
+        .addStatement("String query = $N.getSql()", selection)
+        .beginControlFlow("if (query == null)")
+        .addStatement("return new $T($S)", Subquery.class, select)
+        .endControlFlow()
+        .addStatement(
+            "return new $T($S + query + ')', $N.getArgs())",
+            Subquery.class,
+            select + " WHERE (",
+            selection)
+        .build();
+  }
+
+  private static MethodSpec implementCountMany(@Nonnull ParameterSpec contentResolver) {
+    ParameterSpec predicates =
+        ParameterSpec.builder(ArrayTypeName.of(Executable.NAME), "predicates").build();
+    return MethodSpec.methodBuilder(Executable.COUNT_MANY)
+        .addAnnotation(Override.class)
+        .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+        .addParameter(contentResolver)
+        .addParameter(predicates)
+        .varargs()
+        .returns(ArrayTypeName.of(TypeName.INT))
+        .beginControlFlow("if ($N.length == 0)", predicates)
+        .addStatement("return new int[0]")
+        .endControlFlow()
+        .addStatement("$T[] parts = new $T[$N.length]", NAME, NAME, predicates)
+        .addStatement("String[] projection = new String[$N.length]", predicates)
+        .addStatement(
+            "$T projectionArgs = new $T()",
+            ParameterizedTypeName.get(List.class, String.class),
+            ParameterizedTypeName.get(ArrayList.class, String.class))
+        .beginControlFlow("for (int i = 0; i < $N.length; ++i)", predicates)
+        .beginControlFlow(
+            "if (!($N[i] instanceof $T) || !(($T) $N[i]).$N.equals($N))",
+            predicates,
+            NAME,
+            NAME,
+            predicates,
+            uri,
+            uri)
+        .addStatement(
+            "throw new $T($S)",
+            IllegalArgumentException.class,
+            "The predicates must be built from the same URI as the query.")
+        .endControlFlow()
+        .addStatement("parts[i] = ($T) $N[i]", NAME, predicates)
+        .addStatement("String part = parts[i].$N.getSql()", selection)
+        .addStatement(
+            "projection[i] = part == null ? $S : $S + part + $S",
+            "count(*)",
+            "sum(CASE WHEN (",
+            ") THEN 1 ELSE 0 END)")
+        .addComment("The arguments of the projection are bound before those of the selection.")
+        .addStatement("projectionArgs.addAll(parts[i].$N.getArgList())", selection)
+        .endControlFlow()
+        .addStatement("projectionArgs.addAll($N.getArgList())", selection)
+        .addStatement("String query = $N.getSql()", selection)
+        .addStatement(
+            "String[] args = projectionArgs.isEmpty() ? null : "
+                + "projectionArgs.toArray(new String[projectionArgs.size()])")
+        .addStatement("int[] counts = new int[$N.length]", predicates)
+        .addStatement("$T cursor", AndroidClasses.CURSOR)
+        .beginControlFlow("try")
+        .addStatement(
+            "cursor = $N.query($N, projection, query, args, null)", contentResolver, uri)
+        .nextControlFlow(
+            "catch ($T | $T e)", IllegalArgumentException.class, AndroidClasses.SQLITE_EXCEPTION)
+        .addComment("The provider does not accept the projection; anything else is rethrown.")
+        .addStatement("cursor = null")
+        .endControlFlow()
+        .beginControlFlow("if (cursor != null)")
+        .beginControlFlow("try")
+        .beginControlFlow("if (cursor.getColumnCount() == projection.length)")
+        .beginControlFlow("if (cursor.moveToFirst())")
+        .beginControlFlow("for (int i = 0; i < counts.length; ++i)")
+        .addStatement("counts[i] = cursor.getInt(i)")
+        .endControlFlow()
+        .endControlFlow()
+        .addStatement("return counts")
+        .endControlFlow()
+        .nextControlFlow("finally")
+        .addStatement("cursor.close()")
+        .endControlFlow()
+        .endControlFlow()
+        .addComment("The provider does not accept expressions in the projection.")
+        .beginControlFlow("for (int i = 0; i < counts.length; ++i)")
+        .addStatement("counts[i] = $L(parts[i]).count($N)", CONJUNCTION, contentResolver)
+        .endControlFlow()
+        .addStatement("return counts")
+        .build();
+  }
+
+  /**
+   * Generates {@code estimateCount}, which returns the count cached for the query if it is still
+   * fresh, and otherwise asks the provider for a single-row page of the given column: providers
+   * that support paging report the total count in the extras of the cursor, without reading the
+   * rows, and providers that ignore the limit return every row, which the cursor counts without
+   * binding anything but the id. A provider that honours the limit without reporting the total
+   * count falls back on {@code count}.
+   */
+  private static MethodSpec implementEstimateCount(
+      ParameterSpec contentResolver, ParameterSpec cache, CodeBlock idProjection) {
+    ClassName resolver = AndroidClasses.CONTENT_RESOLVER;
+    return MethodSpec.methodBuilder(Executable.ESTIMATE_COUNT)
+        .addAnnotation(Override.class)
+        .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+        .addParameter(contentResolver)
+        .addParameter(cache)
+        .returns(TypeName.INT)
+        .addCode(selectionArguments())
+        .addStatement(
+            "Integer cached = $N.get($N, $T.key(query, args))", cache, uri, CountCache.class)
+        .beginControlFlow("if (cached != null)")
+        .addStatement("return cached")
+        .endControlFlow()
+        .addStatement("$T cursor", AndroidClasses.CURSOR)
+        .beginControlFlow(
+            "if ($T.SDK_INT >= $T.O)",
+            AndroidClasses.BUILD_VERSION,
+            AndroidClasses.BUILD_VERSION_CODES)
+        .addStatement("$T queryArgs = new $T()", AndroidClasses.BUNDLE, AndroidClasses.BUNDLE)
+        .addStatement("queryArgs.putString($T.QUERY_ARG_SQL_SELECTION, query)", resolver)
+        .addStatement("queryArgs.putStringArray($T.QUERY_ARG_SQL_SELECTION_ARGS, args)", resolver)
+        .addStatement("queryArgs.putInt($T.QUERY_ARG_LIMIT, 1)", resolver)
+        .addStatement(
+            "cursor = $N.query($N, $L, queryArgs, null)", contentResolver, uri, idProjection)
+        .nextControlFlow("else")
+        .addStatement(
+            "cursor = $N.query($N, $L, query, args, null)", contentResolver, uri, idProjection)
+        .endControlFlow()
+        .beginControlFlow("try")
+        .addStatement("$T extras = cursor.getExtras()", AndroidClasses.BUNDLE)
+        .beginControlFlow(
+            "if (extras != null && extras.containsKey($T.EXTRA_TOTAL_COUNT))", resolver)
+        .addStatement("return extras.getInt($T.EXTRA_TOTAL_COUNT)", resolver)
+        .endControlFlow()
+        .addStatement(
+            "String[] honored ="
+                + " extras == null ? null : extras.getStringArray($T.EXTRA_HONORED_ARGS)",
+            resolver)
+        .beginControlFlow(
+            "if (honored == null || !$T.asList(honored).contains($T.QUERY_ARG_LIMIT))",
+            Arrays.class,
+            resolver)
+        .addStatement("return cursor.getCount()")
+        .endControlFlow()
+        .nextControlFlow("finally")
+        .addStatement("cursor.close()")
+        .endControlFlow()
+        .addComment("The cursor only holds the first row.")
+        .addStatement("return count($N)", contentResolver)
+        .build();
+  }
+
+  /**
+   * Throws if the signal is cancelled or the deadline has passed, and otherwise declares the local
+   * variable {@code timer}, which cancels the signal at the deadline so that a query which is still
+   * running then is interrupted by the provider. The timer must be stopped with {@link
+   * #stopDeadline()} once the query returns.
+   */
+  private static CodeBlock startDeadline(ParameterSpec cancellationSignal, ParameterSpec deadline) {
+    // A signal is always needed when a deadline is given, as the deadline is enforced by
+    // cancelling it.
+    return CodeBlock.builder()
+        .beginControlFlow("if ($N == null)", cancellationSignal)
+        .addStatement("$N = new $T()", cancellationSignal, AndroidClasses.CANCELLATION_SIGNAL)
+        .endControlFlow()
+        .addStatement(
+            "$T.$L($N, $N)",
+            EntityList.NAME,
+            EntityList.THROW_IF_CANCELED,
+            cancellationSignal,
+            deadline)
+        .addStatement(
+            "$T timer = $T.$L($N, $N)",
+            ParameterizedTypeName.get(
+                ClassName.get(Future.class), WildcardTypeName.subtypeOf(Object.class)),
+            EntityList.NAME,
+            EntityList.CANCEL_AT_DEADLINE,
+            cancellationSignal,
+            deadline)
+        .build();
+  }
+
+  /** Stops the timer started by {@link #startDeadline}, if any. */
+  private static CodeBlock stopDeadline() {
+    return CodeBlock.builder()
+        .beginControlFlow("if (timer != null)")
+        .addStatement("timer.cancel(false)")
+        .endControlFlow()
+        .build();
+  }
+
   private static void implementQueryRoot(
-      @Nonnull TypeSpec.Builder builder, @Nonnull TypeSpec queryRoot, @Nullable BoundField id) {
+      @Nonnull TypeSpec.Builder builder,
+      @Nonnull TypeName entityName,
+      @Nonnull FieldSpec projection,
+      @Nonnull TypeSpec queryRoot,
+      @Nullable BoundField id) {
     builder.addSuperinterface(QueryRoot.NAME);
     Optional<MethodSpec> where =
         queryRoot.methodSpecs.stream().filter(m -> "where".equals(m.name)).findAny();
@@ -252,6 +1185,15 @@ public class QueryBuilderImpl {
               getById.get().parameters, p -> p.type.equals(AndroidClasses.CONTENT_RESOLVER));
       ParameterSpec idParam =
           CollectionUtils.getUnique(getById.get().parameters, p -> id.getType().equals(p.type));
+      if (id.isAppendedToUri()) {
+        builder.addMethod(
+            CodeGen.override(getById.get())
+                .addCode(
+                    getByAppendedId(
+                        CodeBlock.of("$N", uri), entityName, projection, contentResolver, idParam))
+                .build());
+        return;
+      }
       builder.addMethod(
           CodeGen.override(getById.get())
               .addStatement(
@@ -270,32 +1212,525 @@ public class QueryBuilderImpl {
     }
   }
 
+  private static MethodSpec implementFanOut(
+      @Nonnull MethodSpec fanOut, @Nonnull FieldSpec projection, @Nonnull String uriMethod) {
+    ParameterSpec contentResolver = fanOut.parameters.get(0);
+    List<ParameterSpec> uriParameters = fanOut.parameters.subList(1, fanOut.parameters.size());
+    ParameterSpec first = uriParameters.get(0);
+    TypeName shard = ParameterizedTypeName.get(ClassName.get(Callable.class), fanOut.returnType);
+    MethodSpec.Builder builder = CodeGen.override(fanOut);
+    for (ParameterSpec parameter : uriParameters.subList(1, uriParameters.size())) {
+      builder
+          .beginControlFlow("if ($N.length != $N.length)", parameter, first)
+          .addStatement(
+              "throw new $T($S)",
+              IllegalArgumentException.class,
+              "All the parameters must have the same length.")
+          .endControlFlow();
+    }
+    return builder
+        .addCode(queryArguments())
+        .addStatement(
+            "$T shards = new $T($N.length)",
+            ParameterizedTypeName.get(ClassName.get(List.class), shard),
+            ParameterizedTypeName.get(ClassName.get(ArrayList.class), shard),
+            first)
+        .beginControlFlow("for (int i = 0; i < $N.length; ++i)", first)
+        .addCode("$T uri = $L", AndroidClasses.URI, uriMethod)
+        .addCode(
+            uriParameters.stream().map(p -> "$N[i]").collect(Collectors.joining(", ", "(", ")")),
+            uriParameters.toArray())
+        .addStatement("")
+        .addStatement(
+            "shards.add(() -> new $T($N.query(uri, $N, query, args, sortOrder)))",
+            EntityList.NAME,
+            contentResolver,
+            projection)
+        .endControlFlow()
+        .addStatement("return $T.fanOut(shards, $N)", MergedList.class, COMPARATOR)
+        .build();
+  }
+
+  private static MethodSpec implementRefresh(
+      @Nonnull MethodSpec refresh,
+      @Nonnull TypeName entityName,
+      @Nonnull FieldSpec projection,
+      @Nonnull BoundField id,
+      @Nonnull BoundField version) {
+    ParameterSpec contentResolver = refresh.parameters.get(0);
+    ParameterSpec snapshot = refresh.parameters.get(1);
+    TypeName list = ParameterizedTypeName.get(ClassName.get(List.class), entityName);
+    return CodeGen.override(refresh)
+        .addComment("Rows at the watermark are read again: another one may have been written with")
+        .addComment("the same version after the snapshot was taken. Merging dedupes them by id.")
+        .addStatement("long watermark = $T.MIN_VALUE", Long.class)
+        .beginControlFlow("for ($T entity : $N.getEntities())", entityName, snapshot)
+        .addStatement("watermark = $T.max(watermark, entity.$L)", Math.class, version.getFieldName())
+        .endControlFlow()
+        .addCode(queryArguments())
+        .addStatement("String prefix = query == null ? \"\" : \"(\" + query + \") AND \"")
+        .addStatement("String[] prefixArgs = args == null ? new String[0] : args")
+        .addStatement(
+            "String[] changedArgs = $T.copyOf(prefixArgs, prefixArgs.length + 1)", Arrays.class)
+        .addStatement("changedArgs[prefixArgs.length] = $T.toString(watermark)", Long.class)
+        .addStatement("$T changed = new $T<>()", list, ArrayList.class)
+        .addCode(
+            readAll(
+                "changed",
+                CodeBlock.of(
+                    "$N.query($N, $N, prefix + $S, changedArgs, null)",
+                    contentResolver,
+                    uri,
+                    projection,
+                    version.getColumn() + ">=?")))
+        .addComment("The ids of all the rows reveal those that were deleted, and the order.")
+        .addStatement(
+            "$T cursor = $N.query($N, new String[] { $S }, query, args, sortOrder)",
+            AndroidClasses.CURSOR,
+            contentResolver,
+            uri,
+            id.getColumn())
+        .addStatement("long[] ids")
+        .beginControlFlow("try")
+        .addStatement("ids = new long[cursor.getCount()]")
+        .beginControlFlow("for (int i = 0; cursor.moveToNext(); ++i)")
+        .addStatement("ids[i] = cursor.getLong(0)")
+        .endControlFlow()
+        .nextControlFlow("finally")
+        .addStatement("cursor.close()")
+        .endControlFlow()
+        .addStatement(
+            "long[] missing = $N.merge(ids, changed, entity -> entity.$L)",
+            snapshot,
+            id.getFieldName())
+        .beginControlFlow("if (missing.length > 0)")
+        .addComment("Rows inserted after the first query; integral ids can be inlined.")
+        .addStatement(
+            "$T inQuery = new $T(prefix).append($S)",
+            StringBuilder.class,
+            StringBuilder.class,
+            id.getColumn() + " IN (")
+        .beginControlFlow("for (int i = 0; i < missing.length; ++i)")
+        .addStatement("inQuery.append(i == 0 ? \"\" : \",\").append(missing[i])")
+        .endControlFlow()
+        .addStatement("$T inserted = new $T<>(missing.length)", list, ArrayList.class)
+        .addCode(
+            readAll(
+                "inserted",
+                CodeBlock.of(
+                    "$N.query($N, $N, inQuery.append(')').toString(), args, null)",
+                    contentResolver,
+                    uri,
+                    projection)))
+        .addStatement("$N.merge(ids, inserted, entity -> entity.$L)", snapshot, id.getFieldName())
+        .endControlFlow()
+        .build();
+  }
+
+  /** Binds every row of the cursor returned by {@code query}, and adds them to a list. */
+  private static CodeBlock readAll(String listName, CodeBlock query) {
+    String rows = listName + "Rows";
+    return CodeBlock.builder()
+        .addStatement("$T $L = new $T($L)", EntityList.NAME, rows, EntityList.NAME, query)
+        .beginControlFlow("try")
+        .beginControlFlow("for (int i = 0; i < $L.size(); ++i)", rows)
+        .addStatement("$L.add($L.get(i))", listName, rows)
+        .endControlFlow()
+        .nextControlFlow("finally")
+        .addStatement("$L.close()", rows)
+        .endControlFlow()
+        .build();
+  }
+
+  private static MethodSpec implementParallelScan(
+      @Nonnull MethodSpec parallelScan, @Nonnull FieldSpec projection, @Nonnull BoundField id) {
+    ParameterSpec contentResolver = parallelScan.parameters.get(0);
+    ParameterSpec partitions = parallelScan.parameters.get(1);
+    ParameterSpec consumer = parallelScan.parameters.get(2);
+    String column = id.getColumn();
+    TypeName task = ParameterizedTypeName.get(Callable.class, Void.class);
+    return CodeGen.override(parallelScan)
+        .beginControlFlow("if ($N < 1)", partitions)
+        .addStatement(
+            "throw new $T($S)",
+            IllegalArgumentException.class,
+            "The number of partitions must be positive.")
+        .endControlFlow()
+        .addCode(selectionArguments())
+        .addStatement(
+            "$T range = $N.query($N, new String[] { $S, $S }, query, args, null)",
+            AndroidClasses.CURSOR,
+            contentResolver,
+            uri,
+            "min(" + column + ")",
+            "max(" + column + ")")
+        .addStatement("long min")
+        .addStatement("long max")
+        .beginControlFlow("try")
+        .beginControlFlow("if (!range.moveToFirst() || range.isNull(0))")
+        .addStatement("return")
+        .endControlFlow()
+        .addStatement("min = range.getLong(0)")
+        .addStatement("max = range.getLong(1)")
+        .nextControlFlow("finally")
+        .addStatement("range.close()")
+        .endControlFlow()
+        .addStatement(
+            "String prefix = query == null ? \"\" : \"(\" + query + \") AND \"")
+        .addStatement("String[] prefixArgs = args == null ? new String[0] : args")
+        .addComment("The range may span more than Long.MAX_VALUE ids, so it is unsigned. step is")
+        .addComment("only 0 if it has overflowed, when a single partition covers every long.")
+        .addStatement("long step = $T.divideUnsigned(max - min, $N) + 1", Long.class, partitions)
+        .addStatement(
+            "$T tasks = new $T()",
+            ParameterizedTypeName.get(ClassName.get(List.class), task),
+            ParameterizedTypeName.get(ClassName.get(ArrayList.class), task))
+        .beginControlFlow("for (long from = min; ; from += step)")
+        .addComment("The last partition has no upper bound, so that max + 1 cannot overflow.")
+        .addStatement(
+            "boolean last = step == 0 || $T.compareUnsigned(max - from, step) < 0", Long.class)
+        .addStatement(
+            "String[] partitionArgs = $T.copyOf(prefixArgs, prefixArgs.length + (last ? 1 : 2))",
+            Arrays.class)
+        .addStatement("partitionArgs[prefixArgs.length] = $T.toString(from)", Long.class)
+        .beginControlFlow("if (!last)")
+        .addStatement("partitionArgs[prefixArgs.length + 1] = $T.toString(from + step)", Long.class)
+        .endControlFlow()
+        .addStatement(
+            "String partitionQuery = prefix + (last ? $S : $S)",
+            column + ">=?",
+            column + ">=? AND " + column + "<?")
+        .beginControlFlow("tasks.add(() ->")
+        .addStatement(
+            "$T entities = new $T($N.query($N, $N, partitionQuery, partitionArgs, null))",
+            EntityList.NAME,
+            EntityList.NAME,
+            contentResolver,
+            uri,
+            projection)
+        .beginControlFlow("try")
+        .beginControlFlow("for (int i = 0; i < entities.size(); ++i)")
+        .addStatement("$N.accept(entities.get(i))", consumer)
+        .endControlFlow()
+        .nextControlFlow("finally")
+        .addStatement("entities.close()")
+        .endControlFlow()
+        .addStatement("return null")
+        .endControlFlow(")")
+        .beginControlFlow("if (last)")
+        .addStatement("break")
+        .endControlFlow()
+        .endControlFlow()
+        .addStatement("$T.invokeAll(tasks)", Workers.class)
+        .build();
+  }
+
+  /**
+   * Generates a method returning a cursor over the single row containing the value of the given
+   * SQL aggregate function applied to a field, over the rows satisfying the query.
+   */
+  private static MethodSpec generateAggregate() {
+    ParameterSpec contentResolver =
+        ParameterSpec.builder(AndroidClasses.CONTENT_RESOLVER, "contentResolver").build();
+    ParameterSpec function = ParameterSpec.builder(String.class, "function").build();
+    ParameterSpec field =
+        ParameterSpec.builder(
+                ParameterizedTypeName.get(
+                    ClassName.get(Field.class), WildcardTypeName.subtypeOf(Object.class)),
+                "field")
+            .build();
+    return MethodSpec.methodBuilder(AGGREGATE)
+        .addModifiers(Modifier.PRIVATE)
+        .addParameter(contentResolver)
+        .addParameter(function)
+        .addParameter(field)
+        .returns(AndroidClasses.CURSOR)
+        .addCode(
+            query(
+                "cursor",
+                contentResolver,
+                CodeBlock.of(
+                    "new String[] { $N + '(' + $N.getColumn() + ')' }", function, field),
+                false,
+                null))
+        .addStatement("return cursor")
+        .build();
+  }
+
+  private static MethodSpec implementAggregate(@Nonnull MethodSpec aggregate) {
+    ParameterSpec contentResolver = aggregate.parameters.get(0);
+    ParameterSpec field = aggregate.parameters.get(1);
+    String function = aggregate.name.substring(0, aggregate.name.length() - "Of".length());
+    TypeName returnType = aggregate.returnType;
+    CodeBlock value;
+    if (returnType.isPrimitive()) {
+      // sum() is NULL, rather than 0, when no row satisfies the query.
+      value =
+          CodeBlock.of(
+              "cursor.moveToFirst() && !cursor.isNull(0) ? cursor.$L(0) : 0",
+              TypeName.LONG.equals(returnType) ? "getLong" : "getDouble");
+    } else {
+      boolean isLong = ClassName.get(OptionalLong.class).equals(returnType);
+      value =
+          CodeBlock.of(
+              "cursor.moveToFirst() && !cursor.isNull(0) ? $T.of(cursor.$L(0)) : $T.empty()",
+              returnType,
+              isLong ? "getLong" : "getDouble",
+              returnType);
+    }
+    return CodeGen.override(aggregate)
+        .addStatement(
+            "$T cursor = $L($N, $S, $N)",
+            AndroidClasses.CURSOR,
+            AGGREGATE,
+            contentResolver,
+            function,
+            field)
+        .beginControlFlow("try")
+        .addStatement("return $L", value)
+        .nextControlFlow("finally")
+        .addStatement("cursor.close()")
+        .endControlFlow()
+        .build();
+  }
+
+  /**
+   * Generates a method returning a cursor over the values of the given field and the number of rows
+   * having each value, or null if the provider does not support grouping.
+   *
+   * <p>{@code GROUP BY} is passed as {@code QUERY_ARG_SQL_GROUP_BY} in the query arguments, which
+   * requires API 30. Providers may reject it (in which case they throw), or silently ignore it, as
+   * the default translation of query arguments into a selection does: if the provider does not
+   * list it in {@code EXTRA_HONORED_ARGS}, the third column detects the latter, as the number of
+   * distinct values within a group is always 1, but is greater than 1 when all rows are aggregated
+   * together (unless they all share the same value, in which case the result is correct anyway).
+   * Since an ignored grouping yields a single row, only that row needs checking. {@code quote()}
+   * makes {@code NULL} count as a value. Providers which do not group are remembered in {@link
+   * IgnoredArguments}, so that later calls go straight to the client-side count.
+   */
+  private static MethodSpec generateGroupBy() {
+    ParameterSpec contentResolver =
+        ParameterSpec.builder(AndroidClasses.CONTENT_RESOLVER, "contentResolver").build();
+    ParameterSpec field =
+        ParameterSpec.builder(
+                ParameterizedTypeName.get(
+                    ClassName.get(Field.class), WildcardTypeName.subtypeOf(Object.class)),
+                "field")
+            .build();
+    ClassName resolver = AndroidClasses.CONTENT_RESOLVER;
+    return MethodSpec.methodBuilder(GROUP_BY)
+        .addModifiers(Modifier.PRIVATE)
+        .addParameter(contentResolver)
+        .addParameter(field)
+        .returns(AndroidClasses.CURSOR)
+        .beginControlFlow(
+            "if ($T.SDK_INT < $T.R)",
+            AndroidClasses.BUILD_VERSION,
+            AndroidClasses.BUILD_VERSION_CODES)
+        .addComment("Grouping can only be requested through query arguments.")
+        .addStatement("return null")
+        .endControlFlow()
+        .addStatement("String authority = $N.getAuthority()", uri)
+        .beginControlFlow(
+            "if ($T.isIgnored($N, authority, $T.QUERY_ARG_SQL_GROUP_BY))",
+            IgnoredArguments.class,
+            contentResolver,
+            resolver)
+        .addStatement("return null")
+        .endControlFlow()
+        .addCode(selectionArguments())
+        .addStatement("String column = $N.getColumn()", field)
+        .addStatement(
+            "String[] projection = { column, $S, $S + column + $S }",
+            "count(*)",
+            "count(DISTINCT quote(",
+            "))")
+        .addStatement("$T queryArgs = new $T()", AndroidClasses.BUNDLE, AndroidClasses.BUNDLE)
+        .addStatement("queryArgs.putString($T.QUERY_ARG_SQL_SELECTION, query)", resolver)
+        .addStatement("queryArgs.putStringArray($T.QUERY_ARG_SQL_SELECTION_ARGS, args)", resolver)
+        .addStatement("queryArgs.putString($T.QUERY_ARG_SQL_GROUP_BY, column)", resolver)
+        .addStatement("$T cursor", AndroidClasses.CURSOR)
+        .beginControlFlow("try")
+        .addStatement(
+            "cursor = $N.query($N, projection, queryArgs, null)", contentResolver, uri)
+        .nextControlFlow(
+            "catch ($T | $T e)", IllegalArgumentException.class, AndroidClasses.SQLITE_EXCEPTION)
+        .addComment("The provider does not accept aggregates in the projection.")
+        .addStatement("cursor = null")
+        .endControlFlow()
+        .addStatement(
+            "boolean grouped = cursor != null && cursor.getColumnCount() == projection.length")
+        .beginControlFlow("if (grouped)")
+        .addStatement("$T extras = cursor.getExtras()", AndroidClasses.BUNDLE)
+        .addStatement(
+            "String[] honored ="
+                + " extras == null ? null : extras.getStringArray($T.EXTRA_HONORED_ARGS)",
+            resolver)
+        .beginControlFlow("if (honored != null)")
+        .addStatement(
+            "grouped = $T.asList(honored).contains($T.QUERY_ARG_SQL_GROUP_BY)",
+            Arrays.class,
+            resolver)
+        .nextControlFlow("else if (cursor.getCount() == 1 && cursor.moveToFirst())")
+        .addComment("A provider ignoring the grouping returns a single row for all the values.")
+        .addStatement("grouped = cursor.getInt(2) <= 1")
+        .addStatement("cursor.moveToPosition(-1)")
+        .endControlFlow()
+        .endControlFlow()
+        .beginControlFlow("if (!grouped)")
+        .beginControlFlow("if (cursor != null)")
+        .addStatement("cursor.close()")
+        .endControlFlow()
+        .addStatement(
+            "$T.setIgnored($N, authority, $T.QUERY_ARG_SQL_GROUP_BY)",
+            IgnoredArguments.class,
+            contentResolver,
+            resolver)
+        .addStatement("return null")
+        .endControlFlow()
+        .addStatement("return cursor")
+        .build();
+  }
+
+  private static MethodSpec implementCountBy(@Nonnull MethodSpec countBy) {
+    ParameterSpec contentResolver = countBy.parameters.get(0);
+    ParameterSpec field = countBy.parameters.get(1);
+    boolean integral = ClassName.get(LongIntMap.class).equals(countBy.returnType);
+    MethodSpec.Builder builder = CodeGen.override(countBy);
+    if (integral) {
+      builder.addStatement("$T counts = new $T()", LongIntMap.class, LongIntMap.class);
+    } else {
+      builder.addStatement(
+          "$T counts = new $T()",
+          countBy.returnType,
+          ParameterizedTypeName.get(HashMap.class, String.class, Integer.class));
+    }
+    builder
+        .addStatement(
+            "$T cursor = $L($N, $N)", AndroidClasses.CURSOR, GROUP_BY, contentResolver, field)
+        .addStatement("boolean grouped = cursor != null")
+        .beginControlFlow("if (!grouped)")
+        .addComment("Counts the values in a single pass instead.")
+        .addCode(
+            query(
+                "values",
+                contentResolver,
+                CodeBlock.of("new String[] { $N.getColumn() }", field),
+                false,
+                null))
+        .addStatement("cursor = values")
+        .endControlFlow()
+        .beginControlFlow("try")
+        .beginControlFlow("while (cursor.moveToNext())")
+        .addStatement("int count = grouped ? cursor.getInt(1) : 1");
+    if (integral) {
+      builder
+          .beginControlFlow("if (count == 0 || cursor.isNull(0))")
+          .addComment("Either no row at all, which was not grouped, or NULL, which has no key.")
+          .addStatement("continue")
+          .endControlFlow()
+          .addStatement("counts.add(cursor.getLong(0), count)");
+    } else {
+      builder
+          .beginControlFlow("if (count == 0)")
+          .addComment("No row at all, which was not grouped.")
+          .addStatement("continue")
+          .endControlFlow()
+          .addStatement("String value = cursor.getString(0)")
+          .addStatement("Integer previous = counts.get(value)")
+          .addStatement("counts.put(value, previous == null ? count : previous + count)");
+    }
+    return builder
+        .endControlFlow()
+        .nextControlFlow("finally")
+        .addStatement("cursor.close()")
+        .endControlFlow()
+        .addStatement("return counts")
+        .build();
+  }
+
+  private static MethodSpec implementDistinct(@Nonnull MethodSpec distinct) {
+    ParameterSpec contentResolver = distinct.parameters.get(0);
+    ParameterSpec field = distinct.parameters.get(1);
+    MethodSpec.Builder builder = CodeGen.override(distinct);
+    if (distinct.returnType.equals(ArrayTypeName.of(TypeName.LONG))) {
+      builder.addStatement(
+          "return $L($N, $N).keys()", Executable.COUNT_BY, contentResolver, field);
+    } else {
+      builder.addStatement(
+          "return new $T($L($N, $N).keySet())",
+          ParameterizedTypeName.get(ArrayList.class, String.class),
+          Executable.COUNT_BY,
+          contentResolver,
+          field);
+    }
+    return builder.build();
+  }
+
+  /** Declares the local variables {@code query}, {@code args} and {@code sortOrder}. */
+  private static CodeBlock queryArguments() {
+    return selectionArguments()
+        .toBuilder()
+        .addStatement(
+            "String sortOrder = $N.length() == 0 ? null : $N.toString()", sortOrder, sortOrder)
+        .build();
+  }
+
+  /** Declares the local variables {@code query} and {@code args}. */
+  private static CodeBlock selectionArguments() {
+    return CodeBlock.builder()
+        .addStatement("String query = $N.getSql()", selection)
+        .addStatement("String[] args = $N.getArgs()", selection)
+        .build();
+  }
+
   private static CodeBlock query(
-      String cursorName, ParameterSpec contentResolver, FieldSpec projection) {
-    CodeBlock.Builder builder =
-        CodeBlock.builder()
-            .addStatement("String query = $N.isEmpty() ? null : $N.toString()", args, query)
-            .addStatement("String[] args = $N.isEmpty() ? null : new String[$N.size()]", args, args)
-            .addStatement(
-                "String sortOrder = $N.length() == 0 ? null : $N.toString()", sortOrder, sortOrder)
-            .beginControlFlow("if (args != null)")
-            .addStatement("args = $N.toArray(args)", args)
-            .endControlFlow();
-    if (projection != null) {
+      String cursorName,
+      ParameterSpec contentResolver,
+      @Nullable FieldSpec projection,
+      @Nullable ParameterSpec cancellationSignal) {
+    // Counting does not need the rows to be sorted, so the provider is not asked to.
+    return projection != null
+        ? query(cursorName, contentResolver, CodeBlock.of("$N", projection), true, cancellationSignal)
+        : query(
+            cursorName,
+            contentResolver,
+            CodeBlock.of("new String[] { \"count(*)\" }"),
+            false,
+            cancellationSignal);
+  }
+
+  /**
+   * Declares the local variables {@code query} and {@code args} (and {@code sortOrder}, if {@code
+   * sorted}), and a cursor named {@code cursorName} obtained with the given projection.
+   */
+  private static CodeBlock query(
+      String cursorName,
+      ParameterSpec contentResolver,
+      CodeBlock projection,
+      boolean sorted,
+      @Nullable ParameterSpec cancellationSignal) {
+    CodeBlock.Builder builder = (sorted ? queryArguments() : selectionArguments()).toBuilder();
+    String orderBy = sorted ? "sortOrder" : "null";
+    if (cancellationSignal == null) {
       builder.addStatement(
-          "$T $L = $N.query($N, $N, query, args, sortOrder)",
+          "$T $L = $N.query($N, $L, query, args, $L)",
           AndroidClasses.CURSOR,
           cursorName,
           contentResolver,
           uri,
-          projection);
+          projection,
+          orderBy);
     } else {
       builder.addStatement(
-          "$T $L = $N.query($N, new String[] { \"count(*)\" }, query, args, sortOrder)",
+          "$T $L = $N.query($N, $L, query, args, $L, $N)",
           AndroidClasses.CURSOR,
           cursorName,
           contentResolver,
-          uri);
+          uri,
+          projection,
+          orderBy,
+          cancellationSignal);
     }
     return builder.build();
   }
@@ -311,9 +1746,48 @@ public class QueryBuilderImpl {
                 "$N.append($S).append(' ').append($N.toString())",
                 sortOrder,
                 boundField.getColumn(),
-                order)
-            .addStatement("return this");
-    return builder.build();
+                order);
+    builder.addStatement(
+        "$N = $T.thenBy($N, $L)",
+        COMPARATOR,
+        EntityComparator.class,
+        COMPARATOR,
+        criterion(boundField, order));
+    return builder.addStatement("return this").build();
+  }
+
+  /**
+   * Returns an expression creating the {@link EntityComparator.Criterion} that sorts by {@code
+   * boundField} in the given {@code order}.
+   */
+  private static CodeBlock criterion(BoundField boundField, ParameterSpec order) {
+    return CodeBlock.of(
+        boundField.getType().equals(TypeName.get(String.class))
+            ? "$T.byString($L, $N)"
+            : "$T.by($L, $N)",
+        EntityComparator.class,
+        sortConstantName(boundField),
+        order);
+  }
+
+  /**
+   * Returns the name of the constant holding the getter of a string field, or the comparator of
+   * any other field, used to sort by it.
+   */
+  private static String sortConstantName(BoundField boundField) {
+    return "SORT_BY_" + Fields.constantName(boundField);
+  }
+
+  /** Returns a lambda comparing entities by a primitive field in ascending order, without boxing. */
+  private static CodeBlock ascending(BoundField boundField) {
+    Preconditions.checkState(boundField.getType().isPrimitive());
+    TypeName comparisonType = boundField.getType();
+    if (TypeName.SHORT.equals(comparisonType)) {
+      comparisonType = TypeName.INT;
+    }
+    String fieldName = boundField.getFieldName();
+    return CodeBlock.of(
+        "(a, b) -> $T.compare(a.$L, b.$L)", comparisonType.box(), fieldName, fieldName);
   }
 
   private static MethodSpec generateConstraint(BoundField field) {
@@ -323,17 +1797,83 @@ public class QueryBuilderImpl {
             constraint.parameters, p -> p.type.equals(ClassName.get(Operator.class)));
     ParameterSpec value =
         CollectionUtils.getUnique(constraint.parameters, p -> p.type.equals(field.getType()));
-    MethodSpec.Builder builder =
-        CodeGen.override(constraint)
-            .addStatement(
-                "$N.append($S).append($N.toString()).append('?')", query, field.getColumn(), op);
+    MethodSpec.Builder builder = CodeGen.override(constraint);
+    if (!field.getType().equals(TypeName.get(String.class))) {
+      builder
+          .beginControlFlow("if ($N.isTextual())", op)
+          .addStatement(
+              "throw new $T($N + $S)",
+              IllegalArgumentException.class,
+              op,
+              " only applies to text columns")
+          .endControlFlow();
+    }
+    return builder
+        .addStatement(
+            "$N.add($T.compare($S, $N, $L))",
+            selection,
+            Condition.class,
+            field.getColumn(),
+            op,
+            argument(field, value))
+        .addStatement("return this")
+        .build();
+  }
+
+  private static MethodSpec generateRangeConstraint(BoundField field) {
+    MethodSpec constraint = Preconditions.checkNotNull(field.getRangeConstraint());
+    ParameterSpec lower = constraint.parameters.get(0);
+    ParameterSpec upper = constraint.parameters.get(1);
+    return CodeGen.override(constraint)
+        .addStatement(
+            "$N.add($T.compare($S, $T.BETWEEN, $L, $L))",
+            selection,
+            Condition.class,
+            field.getColumn(),
+            Operator.class,
+            argument(field, lower),
+            argument(field, upper))
+        .addStatement("return this")
+        .build();
+  }
+
+  private static MethodSpec generateSubqueryConstraint(BoundField field) {
+    MethodSpec constraint = Preconditions.checkNotNull(field.getSubqueryConstraint());
+    ParameterSpec op =
+        CollectionUtils.getUnique(
+            constraint.parameters, p -> p.type.equals(ClassName.get(Operator.class)));
+    ParameterSpec values =
+        CollectionUtils.getUnique(
+            constraint.parameters, p -> p.type.equals(ClassName.get(Subquery.class)));
+    return CodeGen.override(constraint)
+        .addStatement(
+            "$N.add($T.compare($S, $N, $N))",
+            selection,
+            Condition.class,
+            field.getColumn(),
+            op,
+            values)
+        .addStatement("return this")
+        .build();
+  }
+
+  /** Returns the expression converting the given parameter to a selection argument. */
+  private static CodeBlock argument(BoundField field, ParameterSpec value) {
     if (field.getType().equals(TypeName.get(String.class))) {
-      builder.addStatement("$N.add($N)", args, value);
-    } else {
-      Preconditions.checkState(field.getType().isPrimitive());
-      builder.addStatement("$N.add($T.toString($N))", args, field.getType().box(), value);
+      return CodeBlock.of("$N", value);
     }
-    return builder.addStatement("return this").build();
+    Preconditions.checkState(field.getType().isPrimitive());
+    return CodeBlock.of("$T.toString($N)", field.getType().box(), value);
+  }
+
+  private static MethodSpec generateMatch(BoundField field) {
+    MethodSpec match = Preconditions.checkNotNull(field.getMatch());
+    ParameterSpec ftsQuery = match.parameters.get(0);
+    return CodeGen.override(match)
+        .addStatement(
+            "$N.add($T.match($S, $N))", selection, Condition.class, field.getColumn(), ftsQuery)
+        .addStatement("return this")
+        .build();
   }
 
   private static MethodSpec generateIsNull(BoundField field) {
@@ -343,8 +1883,9 @@ public class QueryBuilderImpl {
     MethodSpec.Builder builder =
         CodeGen.override(constraint)
             .addStatement(
-                "$N.append($S).append($N ? \" IS NULL\" : \" IS NOT NULL\")",
-                query,
+                "$N.add($T.isNull($S, $N))",
+                selection,
+                Condition.class,
                 field.getColumn(),
                 value);
     return builder.addStatement("return this").build();
@@ -43,6 +43,9 @@ import tech.darkespresso.hellbinder.compiler.utils.CollectionUtils;
 
 /**
  * Contains the {@link TypeSpec} representing the {@code QueryRoot} interface for the given entity.
+ *
+ * <p>{@code QueryRoot} extends the {@link Executable} interface, so every method that executes a
+ * query is also available before any constraint or sort criterion has been established.
  */
 public class QueryRoot {
   static final ClassName NAME = ClassName.get("", "QueryRoot");
@@ -54,7 +57,10 @@ public class QueryRoot {
   public static TypeSpec generate(@Nonnull TypeName entityType, @Nonnull List<BoundField> fields) {
     entityType = Preconditions.checkNotNull(entityType);
     fields = Preconditions.checkNotNull(fields);
-    TypeSpec.Builder builder = TypeSpec.interfaceBuilder(NAME).addModifiers(Modifier.PUBLIC);
+    TypeSpec.Builder builder =
+        TypeSpec.interfaceBuilder(NAME)
+            .addModifiers(Modifier.PUBLIC)
+            .addSuperinterface(Executable.NAME);
 
     MethodSpec get =
         MethodSpec.methodBuilder("get")
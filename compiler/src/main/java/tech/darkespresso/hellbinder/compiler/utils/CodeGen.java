@@ -62,6 +62,7 @@ public final class CodeGen {
               method.modifiers.stream().filter(m -> m != Modifier.ABSTRACT).collect(toList()))
           .addModifiers(Modifier.STATIC)
           .addParameters(method.parameters)
+          .varargs(method.varargs)
           .addAnnotations(method.annotations)
           .addExceptions(method.exceptions)
           .returns(method.returnType);
@@ -90,6 +91,7 @@ public final class CodeGen {
                   method.modifiers.stream().filter(m -> m != Modifier.ABSTRACT).collect(toList()))
               .addModifiers(Modifier.FINAL)
               .addParameters(method.parameters)
+              .varargs(method.varargs)
               .addAnnotations(method.annotations)
               .addExceptions(method.exceptions)
               .returns(method.returnType);
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package android.content;
+
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.CancellationSignal;
+
+/**
+ * Stands in for the Android class in tests running generated code. Every query ends up in {@link
+ * #query(Uri, String[], String, String[], String, CancellationSignal)}, which tests override.
+ */
+public abstract class ContentResolver {
+  public static final String QUERY_ARG_SQL_SELECTION = "android:query-arg-sql-selection";
+  public static final String QUERY_ARG_SQL_SELECTION_ARGS =
+      "android:query-arg-sql-selection-args";
+  public static final String QUERY_ARG_SQL_GROUP_BY = "android:query-arg-sql-group-by";
+  public static final String QUERY_ARG_LIMIT = "android:query-arg-limit";
+  public static final String EXTRA_TOTAL_COUNT = "android.content.extra.TOTAL_COUNT";
+  public static final String EXTRA_HONORED_ARGS = "android.content.extra.HONORED_ARGS";
+
+  public abstract Cursor query(
+      Uri uri,
+      String[] projection,
+      String selection,
+      String[] selectionArgs,
+      String sortOrder,
+      CancellationSignal cancellationSignal);
+
+  public final Cursor query(
+      Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+    return query(uri, projection, selection, selectionArgs, sortOrder, null);
+  }
+
+  /** Ignores the grouping and the paging, as providers written before API 30 do. */
+  public Cursor query(
+      Uri uri, String[] projection, Bundle queryArgs, CancellationSignal cancellationSignal) {
+    return query(
+        uri,
+        projection,
+        queryArgs.getString(QUERY_ARG_SQL_SELECTION),
+        queryArgs.getStringArray(QUERY_ARG_SQL_SELECTION_ARGS),
+        null,
+        cancellationSignal);
+  }
+
+  public void registerContentObserver(
+      Uri uri, boolean notifyForDescendants, ContentObserver observer) {}
+
+  public void unregisterContentObserver(ContentObserver observer) {}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package android.database;
+
+import android.os.Bundle;
+import java.io.Closeable;
+
+/** Stands in for the Android interface in tests running generated code. */
+public interface Cursor extends Closeable {
+  int FIELD_TYPE_NULL = 0;
+  int FIELD_TYPE_INTEGER = 1;
+  int FIELD_TYPE_FLOAT = 2;
+  int FIELD_TYPE_STRING = 3;
+  int FIELD_TYPE_BLOB = 4;
+
+  int getCount();
+
+  int getPosition();
+
+  boolean moveToFirst();
+
+  boolean moveToNext();
+
+  boolean moveToPosition(int position);
+
+  boolean isAfterLast();
+
+  int getColumnCount();
+
+  int getColumnIndex(String columnName);
+
+  int getType(int columnIndex);
+
+  boolean isNull(int columnIndex);
+
+  short getShort(int columnIndex);
+
+  int getInt(int columnIndex);
+
+  long getLong(int columnIndex);
+
+  float getFloat(int columnIndex);
+
+  double getDouble(int columnIndex);
+
+  String getString(int columnIndex);
+
+  @Override
+  void close();
+
+  boolean isClosed();
+
+  Bundle getExtras();
+
+  void registerContentObserver(ContentObserver observer);
+
+  void unregisterContentObserver(ContentObserver observer);
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package android.database;
+
+import android.os.Bundle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Stands in for the Android class in tests running generated code. */
+public class MatrixCursor implements Cursor {
+  private final String[] columnNames;
+  private final List<Object[]> rows = new ArrayList<>();
+  private int position = -1;
+  private boolean closed;
+  private Bundle extras = new Bundle();
+
+  public MatrixCursor(String[] columnNames) {
+    this.columnNames = columnNames;
+  }
+
+  public void addRow(Object[] columnValues) {
+    if (columnValues.length != columnNames.length) {
+      throw new IllegalArgumentException("columnValues.length != columnNames.length");
+    }
+    rows.add(columnValues);
+  }
+
+  public void setExtras(Bundle extras) {
+    this.extras = extras == null ? new Bundle() : extras;
+  }
+
+  @Override
+  public Bundle getExtras() {
+    return extras;
+  }
+
+  @Override
+  public int getCount() {
+    return rows.size();
+  }
+
+  @Override
+  public int getPosition() {
+    return position;
+  }
+
+  @Override
+  public boolean moveToFirst() {
+    return moveToPosition(0);
+  }
+
+  @Override
+  public boolean moveToNext() {
+    return moveToPosition(position + 1);
+  }
+
+  @Override
+  public boolean moveToPosition(int position) {
+    this.position = Math.max(-1, Math.min(position, rows.size()));
+    return this.position >= 0 && this.position < rows.size();
+  }
+
+  @Override
+  public boolean isAfterLast() {
+    return position >= rows.size();
+  }
+
+  @Override
+  public int getColumnCount() {
+    return columnNames.length;
+  }
+
+  @Override
+  public int getColumnIndex(String columnName) {
+    return Arrays.asList(columnNames).indexOf(columnName);
+  }
+
+  private Object get(int columnIndex) {
+    if (position < 0 || position >= rows.size()) {
+      throw new IllegalStateException("No row at " + position);
+    }
+    return rows.get(position)[columnIndex];
+  }
+
+  @Override
+  public int getType(int columnIndex) {
+    Object value = get(columnIndex);
+    if (value == null) {
+      return FIELD_TYPE_NULL;
+    } else if (value instanceof Float || value instanceof Double) {
+      return FIELD_TYPE_FLOAT;
+    } else if (value instanceof Number) {
+      return FIELD_TYPE_INTEGER;
+    } else if (value instanceof byte[]) {
+      return FIELD_TYPE_BLOB;
+    }
+    return FIELD_TYPE_STRING;
+  }
+
+  @Override
+  public boolean isNull(int columnIndex) {
+    return get(columnIndex) == null;
+  }
+
+  private Number getNumber(int columnIndex) {
+    Object value = get(columnIndex);
+    if (value == null) {
+      return 0;
+    } else if (value instanceof Number) {
+      return (Number) value;
+    }
+    return Double.valueOf(value.toString());
+  }
+
+  @Override
+  public short getShort(int columnIndex) {
+    return getNumber(columnIndex).shortValue();
+  }
+
+  @Override
+  public int getInt(int columnIndex) {
+    return getNumber(columnIndex).intValue();
+  }
+
+  @Override
+  public long getLong(int columnIndex) {
+    return getNumber(columnIndex).longValue();
+  }
+
+  @Override
+  public float getFloat(int columnIndex) {
+    return getNumber(columnIndex).floatValue();
+  }
+
+  @Override
+  public double getDouble(int columnIndex) {
+    return getNumber(columnIndex).doubleValue();
+  }
+
+  @Override
+  public String getString(int columnIndex) {
+    Object value = get(columnIndex);
+    return value == null ? null : value.toString();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+  }
+
+  @Override
+  public boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public void registerContentObserver(ContentObserver observer) {}
+
+  @Override
+  public void unregisterContentObserver(ContentObserver observer) {}
+}
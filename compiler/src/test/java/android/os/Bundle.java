@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package android.os;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Stands in for the Android class in tests running generated code. */
+public final class Bundle {
+  private final Map<String, Object> values = new HashMap<>();
+
+  public boolean containsKey(String key) {
+    return values.containsKey(key);
+  }
+
+  public void putInt(String key, int value) {
+    values.put(key, value);
+  }
+
+  public int getInt(String key) {
+    Object value = values.get(key);
+    return value instanceof Integer ? (Integer) value : 0;
+  }
+
+  public void putString(String key, String value) {
+    values.put(key, value);
+  }
+
+  public void putStringArray(String key, String[] value) {
+    values.put(key, value);
+  }
+
+  public String getString(String key) {
+    return (String) values.get(key);
+  }
+
+  public String[] getStringArray(String key) {
+    return (String[]) values.get(key);
+  }
+}
@@ -53,6 +53,7 @@ import tech.darkespresso.hellbinder.annotations.Column;
 import tech.darkespresso.hellbinder.annotations.Constraint;
 import tech.darkespresso.hellbinder.annotations.Id;
 import tech.darkespresso.hellbinder.annotations.SortCriterion;
+import tech.darkespresso.hellbinder.annotations.Version;
 import tech.darkespresso.hellbinder.compiler.generators.Constraining;
 import tech.darkespresso.hellbinder.compiler.generators.Ordering;
 
@@ -110,6 +111,15 @@ public class BoundFieldTest {
             .build();
     assertEquals(expectedConstraint, boundField.getConstraint());
 
+    MethodSpec expectedRangeConstraint =
+        MethodSpec.methodBuilder("barBetween")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(TypeName.INT, "lower")
+            .addParameter(TypeName.INT, "upper")
+            .returns(Constraining.NAME)
+            .build();
+    assertEquals(expectedRangeConstraint, boundField.getRangeConstraint());
+
     MethodSpec expectedSortBy =
         MethodSpec.methodBuilder("bar")
             .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
@@ -119,6 +129,7 @@ public class BoundFieldTest {
     assertEquals(expectedSortBy, boundField.getSortBy());
 
     assertNull(boundField.getIsNull());
+    assertNull(boundField.getMatch());
   }
 
   @Test
@@ -194,6 +205,24 @@ public class BoundFieldTest {
     assertEquals(expectedIsNull, boundField.getIsNull());
   }
 
+  @Test
+  public void constructor_fullTextConstraint() {
+    Constraint fullTextConstraint = mock(Constraint.class);
+    when(fullTextConstraint.fullText()).thenReturn(true);
+    when(mockVariableElement.getAnnotation(Constraint.class)).thenReturn(fullTextConstraint);
+    BoundField boundField = new BoundField(mockVariableElement);
+    assertTrue(boundField.canBeConstrained());
+    assertFalse(boundField.isNullable());
+
+    MethodSpec expectedMatch =
+        MethodSpec.methodBuilder("barMatches")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(String.class, "query")
+            .returns(Constraining.NAME)
+            .build();
+    assertEquals(expectedMatch, boundField.getMatch());
+  }
+
   @Test
   public void getFieldName() {
     BoundField boundField = new BoundField(mockVariableElement);
@@ -252,6 +281,91 @@ public class BoundFieldTest {
             mockVariableElement);
   }
 
+  @Test
+  public void isValid_fullTextNonStringField() {
+    Constraint fullTextConstraint = mock(Constraint.class);
+    when(fullTextConstraint.fullText()).thenReturn(true);
+    when(mockVariableElement.getAnnotation(Constraint.class)).thenReturn(fullTextConstraint);
+    Messager messager = mock(Messager.class);
+    assertFalse(BoundField.isValid(mockVariableElement, messager));
+    verify(messager)
+        .printMessage(
+            Diagnostic.Kind.ERROR,
+            "Full-text fields annotated with @interface "
+                + "tech.darkespresso.hellbinder.annotations.Constraint must be Strings.",
+            mockVariableElement);
+  }
+
+  @Test
+  public void isValid_appendedNonIntegralId() {
+    PrimitiveType doubleType = mock(PrimitiveType.class);
+    when(doubleType.getKind()).thenReturn(TypeKind.DOUBLE);
+    when(doubleType.accept(any(), any()))
+        .thenAnswer(
+            invocation -> {
+              TypeVisitor<?, ?> typeVisitor = invocation.getArgument(0);
+              return typeVisitor.visitPrimitive(doubleType, invocation.getArgument(1));
+            });
+    when(mockVariableElement.asType()).thenReturn(doubleType);
+    Id appendedId = mock(Id.class);
+    when(appendedId.appendToUri()).thenReturn(true);
+    when(mockVariableElement.getAnnotation(Id.class)).thenReturn(appendedId);
+    Messager messager = mock(Messager.class);
+    assertFalse(BoundField.isValid(mockVariableElement, messager));
+    verify(messager)
+        .printMessage(
+            Diagnostic.Kind.ERROR,
+            "Ids annotated with @interface tech.darkespresso.hellbinder.annotations.Id "
+                + "appended to the URI must be ints or longs.",
+            mockVariableElement);
+  }
+
+  @Test
+  public void isValid_indexedBoolean() {
+    PrimitiveType booleanType = mock(PrimitiveType.class);
+    when(booleanType.getKind()).thenReturn(TypeKind.BOOLEAN);
+    when(booleanType.accept(any(), any()))
+        .thenAnswer(
+            invocation -> {
+              TypeVisitor<?, ?> typeVisitor = invocation.getArgument(0);
+              return typeVisitor.visitPrimitive(booleanType, invocation.getArgument(1));
+            });
+    when(mockVariableElement.asType()).thenReturn(booleanType);
+    Constraint indexedConstraint = mock(Constraint.class);
+    when(indexedConstraint.indexed()).thenReturn(true);
+    when(mockVariableElement.getAnnotation(Constraint.class)).thenReturn(indexedConstraint);
+    Messager messager = mock(Messager.class);
+    assertFalse(BoundField.isValid(mockVariableElement, messager));
+    verify(messager)
+        .printMessage(
+            Diagnostic.Kind.ERROR,
+            "Indexed fields annotated with @interface "
+                + "tech.darkespresso.hellbinder.annotations.Constraint must be Strings or numbers.",
+            mockVariableElement);
+  }
+
+  @Test
+  public void isValid_nonIntegralVersion() {
+    PrimitiveType doubleType = mock(PrimitiveType.class);
+    when(doubleType.getKind()).thenReturn(TypeKind.DOUBLE);
+    when(doubleType.accept(any(), any()))
+        .thenAnswer(
+            invocation -> {
+              TypeVisitor<?, ?> typeVisitor = invocation.getArgument(0);
+              return typeVisitor.visitPrimitive(doubleType, invocation.getArgument(1));
+            });
+    when(mockVariableElement.asType()).thenReturn(doubleType);
+    when(mockVariableElement.getAnnotation(Version.class)).thenReturn(mock(Version.class));
+    Messager messager = mock(Messager.class);
+    assertFalse(BoundField.isValid(mockVariableElement, messager));
+    verify(messager)
+        .printMessage(
+            Diagnostic.Kind.ERROR,
+            "Fields annotated with @interface tech.darkespresso.hellbinder.annotations.Version "
+                + "must be integral.",
+            mockVariableElement);
+  }
+
   @Test
   public void isValid_reportsAllErrors() {
     when(mockVariableElement.getModifiers())
@@ -1,6 +1,7 @@
 package tech.darkespresso.hellbinder.compiler;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -77,6 +78,85 @@ public class EntityTest {
     assertEquals(expectedBind, entity.getBindMethod());
   }
 
+  @Test
+  public void constructor_fingerprint() {
+    String source =
+        "package tech.darkespresso;\n\n"
+            + "import tech.darkespresso.hellbinder.annotations.*;\n"
+            + "@ContentProviderEntity(\"Fooz\")\n"
+            + "class Foo {\n"
+            + "  @Column(\"_bar\") public int bar;\n"
+            + "  @Column(\"_baz\") public String baz;\n"
+            + "  @Fingerprint public long fingerprint;\n"
+            + "}\n";
+
+    Entity entity =
+        TestUtils.fromSource(
+            source,
+            ContentProviderEntity.class,
+            (element, processingEnv) -> {
+              try {
+                return new Entity(
+                    (TypeElement) element, processingEnv.getTypeUtils(), mockMessager);
+              } catch (ProcessingException e) {
+                fail();
+                return null;
+              }
+            });
+
+    assertEquals("fingerprint", entity.getFingerprintField());
+    assertEquals(2, entity.getFields().size());
+    ClassName rowDiff = ClassName.get("tech.darkespresso.hellbinder", "RowDiff");
+    MethodSpec expectedBind =
+        MethodSpec.methodBuilder("bind")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(ClassName.get("tech.darkespresso", "Foo"), "entity")
+            .addParameter(AndroidClasses.CURSOR, "cursor")
+            .addStatement("entity.bar = cursor.getInt(0)")
+            .addStatement("entity.baz = cursor.getString(1)")
+            .addStatement("long fingerprint = $T.SEED", rowDiff)
+            .addStatement("fingerprint = $T.mix(fingerprint, entity.bar)", rowDiff)
+            .addStatement("fingerprint = $T.mix(fingerprint, entity.baz)", rowDiff)
+            .addStatement("entity.fingerprint = fingerprint")
+            .build();
+    assertEquals(expectedBind, entity.getBindMethod());
+  }
+
+  @Test
+  public void constructor_errorIfFingerprintNotLong() {
+    String source =
+        "package tech.darkespresso;\n\n"
+            + "import tech.darkespresso.hellbinder.annotations.*;\n"
+            + "@ContentProviderEntity(\"Fooz\")\n"
+            + "class Foo {\n"
+            + "  @Column(\"_bar\") public int bar;\n"
+            + "  @Fingerprint public int fingerprint;\n"
+            + "}\n";
+
+    Entity entity =
+        TestUtils.fromSource(
+            source,
+            ContentProviderEntity.class,
+            (element, processingEnv) -> {
+              try {
+                return new Entity(
+                    (TypeElement) element, processingEnv.getTypeUtils(), mockMessager);
+              } catch (ProcessingException e) {
+                fail();
+                return null;
+              }
+            });
+    assertNull(entity.getFingerprintField());
+    verify(mockMessager)
+        .printMessage(
+            eq(Kind.ERROR),
+            eq(
+                "Fields annotated with @interface "
+                    + "tech.darkespresso.hellbinder.annotations.Fingerprint must be public, non-final, non-static longs without @interface"
+                    + " tech.darkespresso.hellbinder.annotations.Column."),
+            any());
+  }
+
   @Test
   public void constructor_errorIfMultipleIds() {
     String source =
@@ -29,7 +29,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -37,6 +40,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import java.util.List;
 import javax.annotation.processing.Messager;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.Name;
@@ -249,6 +253,65 @@ public class UriTest {
     }
   }
 
+  @Test
+  public void methodReference() {
+    Messager messager = mock(Messager.class);
+    try {
+      Uri uri = new Uri(ImmutableList.of(mockUriExecutableElement), mockEntity, messager);
+      assertEquals("Foo.uri", uri.getMethodReference());
+    } catch (ProcessingException e) {
+      fail();
+    }
+
+    try {
+      Uri uri = new Uri(ImmutableList.of(mockUriVariableElement), mockEntity, messager);
+      uri.getMethodReference();
+      fail();
+    } catch (ProcessingException e) {
+      fail();
+    } catch (IllegalStateException e) {
+      // expected.
+    }
+  }
+
+  @Test
+  public void cacheSize() {
+    Messager messager = mock(Messager.class);
+    ContentUri annotation = mock(ContentUri.class);
+    when(annotation.cacheSize()).thenReturn(16);
+    when(mockUriExecutableElement.getAnnotation(ContentUri.class)).thenReturn(annotation);
+    List<VariableElement> params = ImmutableList.of(mock(VariableElement.class));
+    when(mockUriExecutableElement.getParameters()).thenAnswer(invocation -> params);
+    try {
+      Uri uri = new Uri(ImmutableList.of(mockUriExecutableElement), mockEntity, messager);
+      assertEquals(16, uri.getCacheSize());
+      uri = new Uri(ImmutableList.of(mockUriVariableElement), mockEntity, messager);
+      assertEquals(0, uri.getCacheSize());
+    } catch (ProcessingException e) {
+      fail();
+    }
+    verify(messager, never())
+        .printMessage(any(Diagnostic.Kind.class), anyString(), any(Element.class));
+  }
+
+  @Test
+  public void constructor_negativeCacheSize() {
+    Messager messager = mock(Messager.class);
+    ContentUri annotation = mock(ContentUri.class);
+    when(annotation.cacheSize()).thenReturn(-1);
+    when(mockUriExecutableElement.getAnnotation(ContentUri.class)).thenReturn(annotation);
+    try {
+      new Uri(ImmutableList.of(mockUriExecutableElement), mockEntity, messager);
+    } catch (ProcessingException e) {
+      fail();
+    }
+    verify(messager)
+        .printMessage(
+            Diagnostic.Kind.ERROR,
+            "The cacheSize of @ContentUri cannot be negative.",
+            mockUriExecutableElement);
+  }
+
   @Test
   public void needsParameters() {
     Messager messager = mock(Messager.class);
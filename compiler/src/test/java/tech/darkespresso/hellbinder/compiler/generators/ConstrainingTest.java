@@ -25,13 +25,11 @@
 
 package tech.darkespresso.hellbinder.compiler.generators;
 
-import static junit.framework.TestCase.fail;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.MethodSpec;
-import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import java.lang.reflect.Constructor;
@@ -64,9 +62,7 @@ public class ConstrainingTest {
 
   @Test
   public void generate_notSortable() {
-    TypeName entityType = ClassName.get("", "Foo");
-
-    TypeSpec actual = Constraining.generate(entityType, false);
+    TypeSpec actual = Constraining.generate(false);
 
     assertEquals(2, actual.methodSpecs.size());
     MethodSpec and =
@@ -84,19 +80,13 @@ public class ConstrainingTest {
     assertTrue(actual.methodSpecs.stream().anyMatch(or::equals));
 
     assertEquals(1, actual.superinterfaces.size());
-    TypeName expectedSuperinterface =
-        ParameterizedTypeName.get(
-            ClassName.get("tech.darkespresso.hellbinder", "QueryExecutor"),
-            ClassName.get("", "Foo"),
-            ClassName.get("android.content", "ContentResolver"));
+    TypeName expectedSuperinterface = ClassName.get("", "Executable");
     assertTrue(actual.superinterfaces.stream().anyMatch(expectedSuperinterface::equals));
   }
 
   @Test
   public void generate_sortable() {
-    TypeName entityType = ClassName.get("", "Foo");
-
-    TypeSpec actual = Constraining.generate(entityType, true);
+    TypeSpec actual = Constraining.generate(true);
 
     assertEquals(3, actual.methodSpecs.size());
 
@@ -122,21 +112,7 @@ public class ConstrainingTest {
     assertTrue(actual.methodSpecs.stream().anyMatch(sortBy::equals));
 
     assertEquals(1, actual.superinterfaces.size());
-    TypeName expectedSuperinterface =
-        ParameterizedTypeName.get(
-            ClassName.get("tech.darkespresso.hellbinder", "QueryExecutor"),
-            ClassName.get("", "Foo"),
-            ClassName.get("android.content", "ContentResolver"));
+    TypeName expectedSuperinterface = ClassName.get("", "Executable");
     assertTrue(actual.superinterfaces.stream().anyMatch(expectedSuperinterface::equals));
   }
-
-  @Test
-  public void generate_nullEntityType() {
-    try {
-      Constraining.generate(null, false);
-      fail();
-    } catch (NullPointerException e) {
-      // expected.
-    }
-  }
 }
@@ -31,10 +31,13 @@ import static org.junit.Assert.fail;
 
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Future;
 import javax.lang.model.element.Modifier;
 import org.junit.Test;
 
@@ -71,10 +74,51 @@ public class EntityListTest {
 
     TypeSpec actual = EntityList.generate(entityType, bind);
 
-    assertEquals(1, actual.fieldSpecs.size());
+    assertEquals(3, actual.fieldSpecs.size());
     assertTrue(actual.fieldSpecs.stream().anyMatch(f -> "mCursor".equals(f.name)));
+    assertTrue(actual.fieldSpecs.stream().anyMatch(f -> "mCancellationSignal".equals(f.name)));
+    assertTrue(actual.fieldSpecs.stream().anyMatch(f -> "mDeadline".equals(f.name)));
 
-    assertEquals(5, actual.methodSpecs.size());
+    assertEquals(8, actual.methodSpecs.size());
+
+    MethodSpec expectedConstructor =
+        MethodSpec.constructorBuilder()
+            .addModifiers(Modifier.PRIVATE)
+            .addParameter(ClassName.get("android.database", "Cursor"), "cursor")
+            .addStatement("this(cursor, null, java.lang.Long.MAX_VALUE)")
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(expectedConstructor::equals));
+
+    MethodSpec expectedThrowIfCanceled =
+        MethodSpec.methodBuilder("throwIfCanceled")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(ClassName.get("android.os", "CancellationSignal"), "cancellationSignal")
+            .addParameter(TypeName.LONG, "deadline")
+            .beginControlFlow(
+                "if (deadline != java.lang.Long.MAX_VALUE"
+                    + " && android.os.SystemClock.uptimeMillis() >= deadline)")
+            .addStatement("cancellationSignal.cancel()")
+            .endControlFlow()
+            .addStatement("cancellationSignal.throwIfCanceled()")
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(expectedThrowIfCanceled::equals));
+
+    MethodSpec expectedCancelAtDeadline =
+        MethodSpec.methodBuilder("cancelAtDeadline")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(ClassName.get("android.os", "CancellationSignal"), "cancellationSignal")
+            .addParameter(TypeName.LONG, "deadline")
+            .returns(
+                ParameterizedTypeName.get(
+                    ClassName.get(Future.class), WildcardTypeName.subtypeOf(Object.class)))
+            .beginControlFlow("if (deadline == java.lang.Long.MAX_VALUE)")
+            .addStatement("return null")
+            .endControlFlow()
+            .addStatement(
+                "return tech.darkespresso.hellbinder.Workers.schedule(cancellationSignal::cancel,"
+                    + " deadline - android.os.SystemClock.uptimeMillis())")
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(expectedCancelAtDeadline::equals));
 
     MethodSpec expectedSize =
         MethodSpec.methodBuilder("size")
@@ -113,6 +157,9 @@ public class EntityListTest {
             .beginControlFlow("if (index < 0 || index >= size())")
             .addStatement("throw new java.lang.IndexOutOfBoundsException()")
             .endControlFlow()
+            .beginControlFlow("if (mCancellationSignal != null)")
+            .addStatement("throwIfCanceled(mCancellationSignal, mDeadline)")
+            .endControlFlow()
             .addStatement("entity = entity == null ? new Foo() : entity")
             .addStatement("mCursor.moveToPosition(index)")
             .addStatement("bind(entity, mCursor)")
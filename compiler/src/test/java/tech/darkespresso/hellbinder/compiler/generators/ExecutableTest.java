@@ -0,0 +1,547 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tech.darkespresso.hellbinder.compiler.generators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import javax.lang.model.element.Modifier;
+import org.junit.Test;
+import tech.darkespresso.hellbinder.compiler.BoundField;
+
+/** Tests for {@link Executable} */
+public class ExecutableTest {
+  private static final ClassName CONTENT_RESOLVER =
+      ClassName.get("android.content", "ContentResolver");
+  private static final ClassName CANCELLATION_SIGNAL =
+      ClassName.get("android.os", "CancellationSignal");
+
+  @Test
+  public void cannotInstantiate() {
+    Constructor[] constructors = Executable.class.getDeclaredConstructors();
+    assertEquals(1, constructors.length);
+    Constructor constructor = constructors[0];
+
+    assertTrue(java.lang.reflect.Modifier.isPrivate(constructor.getModifiers()));
+    assertEquals(0, constructor.getParameterCount());
+
+    try {
+      constructor.setAccessible(true);
+      constructor.newInstance();
+      fail();
+    } catch (IllegalAccessException | InstantiationException e) {
+      fail();
+    } catch (InvocationTargetException e) {
+      // success.
+    }
+  }
+
+  @Test
+  public void generate() {
+    TypeName entityType = ClassName.get("", "Foo");
+
+    TypeSpec actual = Executable.generate(entityType);
+
+    assertEquals(14, actual.methodSpecs.size());
+    TypeName entityList =
+        ParameterizedTypeName.get(
+            ClassName.get("tech.darkespresso.hellbinder", "CloseableList"), entityType);
+
+    MethodSpec get =
+        MethodSpec.methodBuilder("get")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(CANCELLATION_SIGNAL, "cancellationSignal")
+            .returns(entityList)
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(get::equals));
+
+    MethodSpec getWithDeadline =
+        MethodSpec.methodBuilder("get")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(CANCELLATION_SIGNAL, "cancellationSignal")
+            .addParameter(TypeName.LONG, "deadline")
+            .returns(entityList)
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(getWithDeadline::equals));
+
+    MethodSpec count =
+        MethodSpec.methodBuilder("count")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(CANCELLATION_SIGNAL, "cancellationSignal")
+            .returns(TypeName.INT)
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(count::equals));
+
+    MethodSpec countWithDeadline =
+        MethodSpec.methodBuilder("count")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(CANCELLATION_SIGNAL, "cancellationSignal")
+            .addParameter(TypeName.LONG, "deadline")
+            .returns(TypeName.INT)
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(countWithDeadline::equals));
+
+    MethodSpec readAhead =
+        MethodSpec.methodBuilder("readAhead")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(TypeName.INT, "capacity")
+            .returns(
+                ParameterizedTypeName.get(
+                    ClassName.get("tech.darkespresso.hellbinder", "CloseableIterator"),
+                    entityType))
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(readAhead::equals));
+
+    MethodSpec getLazily =
+        MethodSpec.methodBuilder("getLazily")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .returns(entityList)
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(getLazily::equals));
+
+    ClassName countCache = ClassName.get("tech.darkespresso.hellbinder", "CountCache");
+    MethodSpec cachedCount =
+        MethodSpec.methodBuilder("cachedCount")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(countCache, "cache")
+            .returns(TypeName.INT)
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(cachedCount::equals));
+
+    MethodSpec estimateCount =
+        MethodSpec.methodBuilder("estimateCount")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(countCache, "cache")
+            .returns(TypeName.INT)
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(estimateCount::equals));
+
+    MethodSpec countMany =
+        MethodSpec.methodBuilder("countMany")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(ArrayTypeName.of(ClassName.get("", "Executable")), "predicates")
+            .varargs()
+            .returns(ArrayTypeName.of(TypeName.INT))
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(countMany::equals));
+
+    MethodSpec topK =
+        MethodSpec.methodBuilder("topK")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(TypeName.INT, "k")
+            .addParameter(
+                ParameterizedTypeName.get(
+                    ClassName.get(Comparator.class), WildcardTypeName.supertypeOf(entityType)),
+                "comparator")
+            .returns(ParameterizedTypeName.get(ClassName.get(List.class), entityType))
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(topK::equals));
+    assertTrue(actual.methodSpecs.stream().noneMatch(m -> "topKBy".equals(m.name)));
+
+    TypeName snapshotType =
+        ParameterizedTypeName.get(
+            ClassName.get("tech.darkespresso.hellbinder", "Snapshot"), entityType);
+    MethodSpec snapshot =
+        MethodSpec.methodBuilder("snapshot")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .returns(snapshotType)
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(snapshot::equals));
+    MethodSpec filter =
+        MethodSpec.methodBuilder("filter")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(snapshotType, "snapshot")
+            .returns(ParameterizedTypeName.get(ClassName.get(List.class), entityType))
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(filter::equals));
+    ClassName liveQuery = ClassName.get("tech.darkespresso.hellbinder", "LiveQuery");
+    MethodSpec observe =
+        MethodSpec.methodBuilder("observe")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(TypeName.LONG, "windowMillis")
+            .addParameter(
+                ParameterizedTypeName.get(liveQuery.nestedClass("Listener"), entityType),
+                "listener")
+            .returns(ParameterizedTypeName.get(liveQuery, entityType))
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(observe::equals));
+
+    TypeName superInterface =
+        ParameterizedTypeName.get(
+            ClassName.get("tech.darkespresso.hellbinder", "QueryExecutor"),
+            entityType,
+            CONTENT_RESOLVER);
+    assertEquals(1, actual.superinterfaces.size());
+    assertTrue(actual.superinterfaces.stream().anyMatch(superInterface::equals));
+  }
+
+  @Test
+  public void generate_withUriParameters() {
+    TypeName entityType = ClassName.get("", "Foo");
+    TypeName entityList =
+        ParameterizedTypeName.get(
+            ClassName.get("tech.darkespresso.hellbinder", "CloseableList"), entityType);
+
+    TypeSpec actual =
+        Executable.generate(
+            entityType,
+            ImmutableList.of(),
+            ImmutableList.of(ParameterSpec.builder(TypeName.LONG, "bar").build()));
+
+    assertEquals(15, actual.methodSpecs.size());
+    MethodSpec fanOut =
+        MethodSpec.methodBuilder("fanOut")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(ArrayTypeName.of(TypeName.LONG), "bar")
+            .varargs()
+            .returns(entityList)
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(fanOut::equals));
+
+    actual =
+        Executable.generate(
+            entityType,
+            ImmutableList.of(),
+            ImmutableList.of(
+                ParameterSpec.builder(TypeName.LONG, "bar").build(),
+                ParameterSpec.builder(String.class, "baz").build()));
+
+    assertEquals(15, actual.methodSpecs.size());
+    fanOut =
+        MethodSpec.methodBuilder("fanOut")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(ArrayTypeName.of(TypeName.LONG), "bar")
+            .addParameter(ArrayTypeName.of(String.class), "baz")
+            .returns(entityList)
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(fanOut::equals));
+  }
+
+  @Test
+  public void generate_withIntegralId() {
+    TypeName entityType = ClassName.get("", "Foo");
+    BoundField id = mock(BoundField.class);
+    when(id.isId()).thenReturn(true);
+    when(id.getType()).thenReturn(TypeName.LONG);
+
+    TypeSpec actual = Executable.generate(entityType, ImmutableList.of(id), ImmutableList.of());
+
+    // Also includes the aggregate, grouping and plucking functions over integral fields, except
+    // pluckInt, since there is no int field.
+    assertEquals(23, actual.methodSpecs.size());
+    MethodSpec parallelScan =
+        MethodSpec.methodBuilder("parallelScan")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(TypeName.INT, "partitions")
+            .addParameter(
+                ParameterizedTypeName.get(
+                    ClassName.get(Consumer.class), WildcardTypeName.supertypeOf(entityType)),
+                "consumer")
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(parallelScan::equals));
+
+    when(id.getType()).thenReturn(ClassName.get(String.class));
+
+    actual = Executable.generate(entityType, ImmutableList.of(id), ImmutableList.of());
+
+    // Only includes the grouping and plucking functions over string fields.
+    assertEquals(17, actual.methodSpecs.size());
+  }
+
+  @Test
+  public void generate_withVersion() {
+    TypeName entityType = ClassName.get("", "Foo");
+    BoundField id = mock(BoundField.class);
+    when(id.isId()).thenReturn(true);
+    when(id.getType()).thenReturn(TypeName.LONG);
+    BoundField version = mock(BoundField.class);
+    when(version.isVersion()).thenReturn(true);
+    when(version.getType()).thenReturn(TypeName.LONG);
+
+    TypeSpec actual =
+        Executable.generate(entityType, ImmutableList.of(id, version), ImmutableList.of());
+
+    MethodSpec refresh =
+        MethodSpec.methodBuilder("refresh")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(
+                ParameterizedTypeName.get(
+                    ClassName.get("tech.darkespresso.hellbinder", "Snapshot"), entityType),
+                "snapshot")
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(refresh::equals));
+
+    actual = Executable.generate(entityType, ImmutableList.of(version), ImmutableList.of());
+
+    // The rows cannot be merged without an integral id.
+    assertTrue(actual.methodSpecs.stream().noneMatch(m -> "refresh".equals(m.name)));
+  }
+
+  @Test
+  public void generate_withTable() {
+    TypeName entityType = ClassName.get("", "Foo");
+    BoundField id = mock(BoundField.class);
+    when(id.isId()).thenReturn(true);
+    when(id.getType()).thenReturn(TypeName.LONG);
+
+    TypeSpec actual =
+        Executable.generate(entityType, ImmutableList.of(id), ImmutableList.of(), "foos");
+
+    assertEquals(24, actual.methodSpecs.size());
+    MethodSpec selectId =
+        MethodSpec.methodBuilder("selectId")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .returns(ClassName.get("tech.darkespresso.hellbinder", "Subquery"))
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(selectId::equals));
+
+    // Without an integral id there is nothing to select.
+    when(id.getType()).thenReturn(ClassName.get(String.class));
+
+    actual = Executable.generate(entityType, ImmutableList.of(id), ImmutableList.of(), "foos");
+
+    assertTrue(actual.methodSpecs.stream().noneMatch(m -> "selectId".equals(m.name)));
+  }
+
+  @Test
+  public void generate_withNumericFields() {
+    TypeName entityType = ClassName.get("", "Foo");
+    BoundField bar = mock(BoundField.class);
+    when(bar.getType()).thenReturn(TypeName.INT);
+    BoundField baz = mock(BoundField.class);
+    when(baz.getType()).thenReturn(TypeName.FLOAT);
+
+    TypeSpec actual =
+        Executable.generate(entityType, ImmutableList.of(bar, baz), ImmutableList.of());
+
+    assertEquals(27, actual.methodSpecs.size());
+    String[] names = {"sumOf", "minOf", "maxOf", "avgOf"};
+    TypeName[] integralResults = {
+      TypeName.LONG,
+      ClassName.get(OptionalLong.class),
+      ClassName.get(OptionalLong.class),
+      ClassName.get(OptionalDouble.class)
+    };
+    TypeName[] realResults = {
+      TypeName.DOUBLE,
+      ClassName.get(OptionalDouble.class),
+      ClassName.get(OptionalDouble.class),
+      ClassName.get(OptionalDouble.class)
+    };
+    for (int i = 0; i < names.length; ++i) {
+      MethodSpec integral =
+          MethodSpec.methodBuilder(names[i])
+              .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+              .addParameter(CONTENT_RESOLVER, "contentResolver")
+              .addParameter(
+                  ParameterizedTypeName.get(
+                      ClassName.get("tech.darkespresso.hellbinder", "IntegralField"), entityType),
+                  "field")
+              .returns(integralResults[i])
+              .build();
+      assertTrue(actual.methodSpecs.stream().anyMatch(integral::equals));
+
+      MethodSpec real =
+          MethodSpec.methodBuilder(names[i])
+              .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+              .addParameter(CONTENT_RESOLVER, "contentResolver")
+              .addParameter(
+                  ParameterizedTypeName.get(
+                      ClassName.get("tech.darkespresso.hellbinder", "RealField"), entityType),
+                  "field")
+              .returns(realResults[i])
+              .build();
+      assertTrue(actual.methodSpecs.stream().anyMatch(real::equals));
+    }
+  }
+
+  @Test
+  public void generate_withGroupableFields() {
+    TypeName entityType = ClassName.get("", "Foo");
+    BoundField bar = mock(BoundField.class);
+    when(bar.getType()).thenReturn(TypeName.SHORT);
+    BoundField baz = mock(BoundField.class);
+    when(baz.getType()).thenReturn(ClassName.get(String.class));
+    TypeName integralField =
+        ParameterizedTypeName.get(
+            ClassName.get("tech.darkespresso.hellbinder", "IntegralField"), entityType);
+    TypeName stringField =
+        ParameterizedTypeName.get(
+            ClassName.get("tech.darkespresso.hellbinder", "StringField"), entityType);
+
+    TypeSpec actual =
+        Executable.generate(entityType, ImmutableList.of(bar, baz), ImmutableList.of());
+
+    MethodSpec countByIntegral =
+        MethodSpec.methodBuilder("countBy")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(integralField, "field")
+            .returns(ClassName.get("tech.darkespresso.hellbinder", "LongIntMap"))
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(countByIntegral::equals));
+
+    MethodSpec distinctIntegral =
+        MethodSpec.methodBuilder("distinct")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(integralField, "field")
+            .returns(ArrayTypeName.of(TypeName.LONG))
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(distinctIntegral::equals));
+
+    MethodSpec countByString =
+        MethodSpec.methodBuilder("countBy")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(stringField, "field")
+            .returns(ParameterizedTypeName.get(Map.class, String.class, Integer.class))
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(countByString::equals));
+
+    MethodSpec distinctString =
+        MethodSpec.methodBuilder("distinct")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(stringField, "field")
+            .returns(ParameterizedTypeName.get(List.class, String.class))
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(distinctString::equals));
+  }
+
+  @Test
+  public void generate_withPluckableFields() {
+    TypeName entityType = ClassName.get("", "Foo");
+    BoundField bar = mock(BoundField.class);
+    when(bar.getType()).thenReturn(TypeName.INT);
+    BoundField baz = mock(BoundField.class);
+    when(baz.getType()).thenReturn(TypeName.DOUBLE);
+    BoundField qux = mock(BoundField.class);
+    when(qux.getType()).thenReturn(ClassName.get(String.class));
+    String lib = "tech.darkespresso.hellbinder";
+    String[] names = {"pluckInt", "pluckLong", "pluckDouble", "pluckString"};
+    String[] fieldClasses = {"IntField", "IntegralField", "RealField", "StringField"};
+    TypeName[] results = {
+      ClassName.get(lib, "IntList"),
+      ClassName.get(lib, "LongList"),
+      ClassName.get(lib, "DoubleList"),
+      ParameterizedTypeName.get(List.class, String.class)
+    };
+
+    TypeSpec actual =
+        Executable.generate(entityType, ImmutableList.of(bar, baz, qux), ImmutableList.of());
+
+    for (int i = 0; i < names.length; ++i) {
+      MethodSpec pluck =
+          MethodSpec.methodBuilder(names[i])
+              .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+              .addParameter(CONTENT_RESOLVER, "contentResolver")
+              .addParameter(
+                  ParameterizedTypeName.get(ClassName.get(lib, fieldClasses[i]), entityType),
+                  "field")
+              .returns(results[i])
+              .build();
+      assertTrue(actual.methodSpecs.stream().anyMatch(pluck::equals));
+    }
+
+    // Values of long fields would not fit in an IntList.
+    when(bar.getType()).thenReturn(TypeName.LONG);
+
+    actual = Executable.generate(entityType, ImmutableList.of(bar, baz, qux), ImmutableList.of());
+
+    assertTrue(actual.methodSpecs.stream().noneMatch(m -> "pluckInt".equals(m.name)));
+    assertTrue(actual.methodSpecs.stream().anyMatch(m -> "pluckLong".equals(m.name)));
+  }
+
+  @Test
+  public void generate_withSortableFields() {
+    TypeName entityType = ClassName.get("", "Foo");
+    BoundField bar = mock(BoundField.class);
+    when(bar.getType()).thenReturn(TypeName.INT);
+    when(bar.canBeUsedForSorting()).thenReturn(true);
+    String lib = "tech.darkespresso.hellbinder";
+
+    TypeSpec actual = Executable.generate(entityType, ImmutableList.of(bar), ImmutableList.of());
+
+    MethodSpec topKBy =
+        MethodSpec.methodBuilder("topKBy")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(CONTENT_RESOLVER, "contentResolver")
+            .addParameter(
+                ParameterizedTypeName.get(ClassName.get(lib, "Field"), entityType), "field")
+            .addParameter(ClassName.get(lib, "Order"), "order")
+            .addParameter(TypeName.INT, "k")
+            .returns(ParameterizedTypeName.get(ClassName.get(List.class), entityType))
+            .build();
+    assertTrue(actual.methodSpecs.stream().anyMatch(topKBy::equals));
+  }
+
+  @Test
+  public void generate_nullEntityType() {
+    try {
+      Executable.generate(null);
+      fail();
+    } catch (NullPointerException e) {
+      // expected.
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder.compiler.generators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import javax.lang.model.element.Modifier;
+import org.junit.Test;
+import tech.darkespresso.hellbinder.compiler.BoundField;
+
+/** Tests for {@link Fields}. */
+public class FieldsTest {
+  @Test
+  public void cannotInstantiate() {
+    Constructor[] constructors = Fields.class.getDeclaredConstructors();
+    assertEquals(1, constructors.length);
+    Constructor constructor = constructors[0];
+
+    assertTrue(java.lang.reflect.Modifier.isPrivate(constructor.getModifiers()));
+    assertEquals(0, constructor.getParameterCount());
+
+    try {
+      constructor.setAccessible(true);
+      constructor.newInstance();
+      fail();
+    } catch (IllegalAccessException | InstantiationException e) {
+      fail();
+    } catch (InvocationTargetException e) {
+      // success.
+    }
+  }
+
+  @Test
+  public void generate() {
+    // Set up three Fields like:
+    // ...
+    //   @Column("total_amount")
+    //   public long totalAmount;
+    //
+    //   @Column("_foo")
+    //   public String foo;
+    //
+    //   @Column("_bar")
+    //   public double bar;
+    TypeName entityType = ClassName.get("", "Foo");
+    BoundField totalAmount = mock(BoundField.class);
+    when(totalAmount.getFieldName()).thenReturn("totalAmount");
+    when(totalAmount.getColumn()).thenReturn("total_amount");
+    when(totalAmount.getType()).thenReturn(TypeName.LONG);
+    BoundField foo = mock(BoundField.class);
+    when(foo.getFieldName()).thenReturn("foo");
+    when(foo.getColumn()).thenReturn("_foo");
+    when(foo.getType()).thenReturn(ClassName.get(String.class));
+    BoundField bar = mock(BoundField.class);
+    when(bar.getFieldName()).thenReturn("bar");
+    when(bar.getColumn()).thenReturn("_bar");
+    when(bar.getType()).thenReturn(TypeName.DOUBLE);
+
+    TypeSpec actual = Fields.generate(entityType, ImmutableList.of(totalAmount, foo, bar));
+
+    assertEquals(Fields.NAME.simpleName(), actual.name);
+    assertTrue(actual.hasModifier(Modifier.STATIC));
+    assertEquals(1, actual.methodSpecs.size());
+    assertTrue(actual.methodSpecs.get(0).isConstructor());
+    assertTrue(actual.methodSpecs.get(0).hasModifier(Modifier.PRIVATE));
+    assertEquals(
+        ImmutableList.of(
+            constant(entityType, "IntegralField", "TOTAL_AMOUNT", "total_amount"),
+            constant(entityType, "StringField", "FOO", "_foo"),
+            constant(entityType, "RealField", "BAR", "_bar")),
+        actual.fieldSpecs);
+  }
+
+  @Test
+  public void generate_intAndShortFields_areIntFields() {
+    TypeName entityType = ClassName.get("", "Foo");
+    BoundField count = mock(BoundField.class);
+    when(count.getFieldName()).thenReturn("count");
+    when(count.getColumn()).thenReturn("count");
+    when(count.getType()).thenReturn(TypeName.INT);
+    BoundField flags = mock(BoundField.class);
+    when(flags.getFieldName()).thenReturn("flags");
+    when(flags.getColumn()).thenReturn("flags");
+    when(flags.getType()).thenReturn(TypeName.SHORT);
+
+    TypeSpec actual = Fields.generate(entityType, ImmutableList.of(count, flags));
+
+    assertEquals(
+        ImmutableList.of(
+            constant(entityType, "IntField", "COUNT", "count"),
+            constant(entityType, "IntField", "FLAGS", "flags")),
+        actual.fieldSpecs);
+  }
+
+  @Test
+  public void generate_nullEntityType() {
+    try {
+      Fields.generate(null, ImmutableList.of());
+      fail();
+    } catch (NullPointerException e) {
+      // expected.
+    }
+  }
+
+  @Test
+  public void generate_nullFields() {
+    try {
+      Fields.generate(ClassName.get("", "Foo"), null);
+      fail();
+    } catch (NullPointerException e) {
+      // expected.
+    }
+  }
+
+  private static FieldSpec constant(
+      TypeName entityType, String fieldClass, String name, String column) {
+    TypeName type =
+        ParameterizedTypeName.get(
+            ClassName.get("tech.darkespresso.hellbinder", fieldClass), entityType);
+    return FieldSpec.builder(type, name, Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+        .initializer("new $T($S)", type, column)
+        .build();
+  }
+}
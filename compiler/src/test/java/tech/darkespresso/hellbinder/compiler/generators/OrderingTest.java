@@ -31,7 +31,6 @@ import static org.junit.Assert.fail;
 
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.MethodSpec;
-import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import java.lang.reflect.Constructor;
@@ -63,9 +62,7 @@ public class OrderingTest {
 
   @Test
   public void generate() {
-    TypeName entityType = ClassName.get("", "Foo");
-
-    TypeSpec actual = Ordering.generate(entityType);
+    TypeSpec actual = Ordering.generate();
 
     assertEquals(1, actual.methodSpecs.size());
     MethodSpec thenBy =
@@ -75,22 +72,8 @@ public class OrderingTest {
             .build();
     assertTrue(actual.methodSpecs.stream().anyMatch(thenBy::equals));
 
-    TypeName superInterface =
-        ParameterizedTypeName.get(
-            ClassName.get("tech.darkespresso.hellbinder", "QueryExecutor"),
-            ClassName.get("", "Foo"),
-            ClassName.get("android.content", "ContentResolver"));
+    TypeName superInterface = ClassName.get("", "Executable");
     assertEquals(1, actual.superinterfaces.size());
     assertTrue(actual.superinterfaces.stream().anyMatch(superInterface::equals));
   }
-
-  @Test
-  public void generate_nullEntityType() {
-    try {
-      Ordering.generate(null);
-      fail();
-    } catch (NullPointerException e) {
-      // expected.
-    }
-  }
 }
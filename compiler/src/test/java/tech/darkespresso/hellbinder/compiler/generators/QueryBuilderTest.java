@@ -95,6 +95,12 @@ public class QueryBuilderTest {
     TypeSpec expected =
         TypeSpec.interfaceBuilder(QueryBuilder.NAME)
             .addModifiers(Modifier.PUBLIC)
+            .addMethod(
+                MethodSpec.methodBuilder("group")
+                    .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                    .addParameter(Constraining.NAME, "constraints")
+                    .returns(Constraining.NAME)
+                    .build())
             .addMethod(
                 MethodSpec.methodBuilder("bar")
                     .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
@@ -107,6 +113,54 @@ public class QueryBuilderTest {
     assertEquals(expected, actual);
   }
 
+  @Test
+  public void generate_withOverloads() {
+    BoundField bar = mock(BoundField.class);
+    MethodSpec constraint =
+        MethodSpec.methodBuilder("bar")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(ClassName.get("tech.darkespresso.hellbinder", "Operator"), "op")
+            .addParameter(TypeName.LONG, "value")
+            .returns(Constraining.NAME)
+            .build();
+    MethodSpec rangeConstraint =
+        MethodSpec.methodBuilder("barBetween")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(TypeName.LONG, "lower")
+            .addParameter(TypeName.LONG, "upper")
+            .returns(Constraining.NAME)
+            .build();
+    MethodSpec subqueryConstraint =
+        MethodSpec.methodBuilder("bar")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(ClassName.get("tech.darkespresso.hellbinder", "Operator"), "op")
+            .addParameter(ClassName.get("tech.darkespresso.hellbinder", "Subquery"), "values")
+            .returns(Constraining.NAME)
+            .build();
+    when(bar.getConstraint()).thenReturn(constraint);
+    when(bar.getRangeConstraint()).thenReturn(rangeConstraint);
+    when(bar.getSubqueryConstraint()).thenReturn(subqueryConstraint);
+    when(bar.canBeConstrained()).thenReturn(true);
+
+    TypeSpec actual = QueryBuilder.generate(ImmutableList.of(bar));
+
+    TypeSpec expected =
+        TypeSpec.interfaceBuilder(QueryBuilder.NAME)
+            .addModifiers(Modifier.PUBLIC)
+            .addMethod(
+                MethodSpec.methodBuilder("group")
+                    .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                    .addParameter(Constraining.NAME, "constraints")
+                    .returns(Constraining.NAME)
+                    .build())
+            .addMethod(constraint)
+            .addMethod(rangeConstraint)
+            .addMethod(subqueryConstraint)
+            .build();
+
+    assertEquals(expected, actual);
+  }
+
   @Test
   public void generate_nullFields() {
     try {
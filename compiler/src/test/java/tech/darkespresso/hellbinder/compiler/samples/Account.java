@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder.compiler.samples;
+
+import android.net.Uri;
+import tech.darkespresso.hellbinder.annotations.Column;
+import tech.darkespresso.hellbinder.annotations.Constraint;
+import tech.darkespresso.hellbinder.annotations.ContentProviderEntity;
+import tech.darkespresso.hellbinder.annotations.ContentUri;
+import tech.darkespresso.hellbinder.annotations.Fingerprint;
+import tech.darkespresso.hellbinder.annotations.Id;
+import tech.darkespresso.hellbinder.annotations.SortCriterion;
+import tech.darkespresso.hellbinder.annotations.Version;
+
+/** An entity with a fixed URI, from a provider backed by the table {@code accounts}. */
+@ContentProviderEntity(value = "Accounts", table = "accounts")
+public class Account {
+  @ContentUri public static final Uri URI = Uri.parse("content://samples/accounts");
+
+  @Id(appendToUri = true)
+  @Column("_id")
+  public long id;
+
+  @Constraint(indexed = true)
+  @SortCriterion
+  @Column("name")
+  public String name;
+
+  @Constraint
+  @Column("active")
+  public int active;
+
+  @SortCriterion
+  @Column("balance")
+  public double balance;
+
+  @Version
+  @Column("updated")
+  public long updated;
+
+  @Fingerprint public long fingerprint;
+}
@@ -0,0 +1,491 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder.compiler.samples;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.ContentResolver;
+import android.database.MatrixCursor;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.OperationCanceledException;
+import android.os.SystemClock;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import tech.darkespresso.hellbinder.CountCache;
+import tech.darkespresso.hellbinder.IntList;
+import tech.darkespresso.hellbinder.LongIntMap;
+import tech.darkespresso.hellbinder.LongList;
+import tech.darkespresso.hellbinder.LongObjectMap;
+import tech.darkespresso.hellbinder.Operator;
+import tech.darkespresso.hellbinder.Snapshot;
+
+/** Runs the code generated for {@link Account}. */
+public class AccountsTest {
+  private static final String[] COLUMNS = {"_id", "name", "active", "balance", "updated"};
+
+  private static Account account(long id, String name, int active) {
+    Account account = new Account();
+    account.id = id;
+    account.name = name;
+    account.active = active;
+    return account;
+  }
+
+  @Test
+  public void getById_queriesAppendedUri() {
+    FakeContentResolver resolver =
+        new FakeContentResolver(
+            q -> FakeContentResolver.cursor(COLUMNS, new Object[] {5L, "five", 1, 2.5, 3L}));
+
+    Account account = Accounts.getById(resolver, 5);
+
+    assertEquals(5, account.id);
+    assertEquals("five", account.name);
+    assertEquals(2.5, account.balance, 0);
+    assertEquals(1, resolver.queries.size());
+    assertEquals("content://samples/accounts/5", resolver.queries.get(0).uri.toString());
+    assertNull(resolver.queries.get(0).selection);
+  }
+
+  @Test
+  public void getById_noRow_returnsNull() {
+    FakeContentResolver resolver =
+        new FakeContentResolver(q -> FakeContentResolver.cursor(COLUMNS));
+
+    assertNull(Accounts.getById(resolver, 6));
+  }
+
+  /** Answers once the signal of the query is cancelled, as a provider stopping a slow query. */
+  private static MatrixCursor waitForCancellation(FakeContentResolver.Query query) {
+    CountDownLatch canceled = new CountDownLatch(1);
+    query.cancellationSignal.setOnCancelListener(canceled::countDown);
+    try {
+      assertTrue(canceled.await(5, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+    throw new OperationCanceledException();
+  }
+
+  @Test
+  public void count_deadline_cancelsRunningQuery() {
+    FakeContentResolver resolver = new FakeContentResolver(AccountsTest::waitForCancellation);
+    long deadline = SystemClock.uptimeMillis() + 100;
+
+    try {
+      Accounts.where().active(Operator.EQ, 1).count(resolver, null, deadline);
+      fail();
+    } catch (OperationCanceledException expected) {
+    }
+    assertTrue(SystemClock.uptimeMillis() >= deadline);
+    assertTrue(resolver.queries.get(0).cancellationSignal.isCanceled());
+  }
+
+  @Test
+  public void get_deadline_cancelsRunningQuery() {
+    FakeContentResolver resolver = new FakeContentResolver(AccountsTest::waitForCancellation);
+
+    try {
+      Accounts.where()
+          .active(Operator.EQ, 1)
+          .get(resolver, null, SystemClock.uptimeMillis() + 100);
+      fail();
+    } catch (OperationCanceledException expected) {
+    }
+  }
+
+  @Test
+  public void count_deadline_timerStopsWhenQueryReturns() throws InterruptedException {
+    FakeContentResolver resolver =
+        new FakeContentResolver(
+            q -> FakeContentResolver.cursor(new String[] {"count"}, new Object[] {3}));
+
+    assertEquals(
+        3,
+        Accounts.where()
+            .active(Operator.EQ, 1)
+            .count(resolver, null, SystemClock.uptimeMillis() + 50));
+    Thread.sleep(200);
+    assertFalse(resolver.queries.get(0).cancellationSignal.isCanceled());
+  }
+
+  @Test
+  public void count_deadlinePassed_doesNotQuery() {
+    FakeContentResolver resolver =
+        new FakeContentResolver(q -> FakeContentResolver.cursor(new String[] {"count"}));
+
+    try {
+      Accounts.where().active(Operator.EQ, 1).count(resolver, null, SystemClock.uptimeMillis());
+      fail();
+    } catch (OperationCanceledException expected) {
+    }
+    assertTrue(resolver.queries.isEmpty());
+  }
+
+  /** Returns a cursor with one id per row, and the given extras. */
+  private static MatrixCursor ids(Bundle extras, int rows) {
+    MatrixCursor cursor = FakeContentResolver.cursor(new String[] {"_id"});
+    for (int i = 0; i < rows; ++i) {
+      cursor.addRow(new Object[] {(long) i});
+    }
+    cursor.setExtras(extras);
+    return cursor;
+  }
+
+  private static int estimateActive(FakeContentResolver resolver) {
+    return Accounts.where().active(Operator.EQ, 1).estimateCount(resolver, new CountCache());
+  }
+
+  @Test
+  public void estimateCount_pagingProvider_usesTotalCount() {
+    Bundle extras = new Bundle();
+    extras.putInt(ContentResolver.EXTRA_TOTAL_COUNT, 42);
+    extras.putStringArray(
+        ContentResolver.EXTRA_HONORED_ARGS, new String[] {ContentResolver.QUERY_ARG_LIMIT});
+    FakeContentResolver resolver = new FakeContentResolver(q -> ids(extras, 1));
+
+    assertEquals(42, estimateActive(resolver));
+    assertEquals(1, resolver.queries.size());
+    assertEquals("_id", resolver.queries.get(0).projection[0]);
+    assertEquals(1, resolver.queries.get(0).projection.length);
+    assertEquals("active = ?", resolver.queries.get(0).selection);
+  }
+
+  @Test
+  public void estimateCount_providerIgnoringLimit_countsIds() {
+    FakeContentResolver resolver = new FakeContentResolver(q -> ids(null, 3));
+
+    assertEquals(3, estimateActive(resolver));
+    assertEquals(1, resolver.queries.size());
+    assertEquals("_id", resolver.queries.get(0).projection[0]);
+    assertEquals(1, resolver.queries.get(0).projection.length);
+  }
+
+  @Test
+  public void estimateCount_limitHonouredWithoutTotal_countsExactly() {
+    Bundle extras = new Bundle();
+    extras.putStringArray(
+        ContentResolver.EXTRA_HONORED_ARGS, new String[] {ContentResolver.QUERY_ARG_LIMIT});
+    FakeContentResolver resolver =
+        new FakeContentResolver(
+            q ->
+                "_id".equals(q.projection[0])
+                    ? ids(extras, 1)
+                    : FakeContentResolver.cursor(new String[] {"count"}, new Object[] {7}));
+
+    assertEquals(7, estimateActive(resolver));
+    assertEquals(2, resolver.queries.size());
+    assertEquals("count(*)", resolver.queries.get(1).projection[0]);
+  }
+
+  @Test
+  public void estimateCount_beforeApi26_countsIds() {
+    int sdk = Build.VERSION.SDK_INT;
+    Build.VERSION.SDK_INT = 25;
+    try {
+      FakeContentResolver resolver = new FakeContentResolver(q -> ids(null, 4));
+
+      assertEquals(4, estimateActive(resolver));
+      assertEquals("_id", resolver.queries.get(0).projection[0]);
+      assertEquals(1, resolver.queries.get(0).projection.length);
+    } finally {
+      Build.VERSION.SDK_INT = sdk;
+    }
+  }
+
+  @Test
+  public void estimateCount_freshCachedCount_doesNotQuery() {
+    FakeContentResolver resolver =
+        new FakeContentResolver(
+            q -> FakeContentResolver.cursor(new String[] {"count"}, new Object[] {5}));
+    CountCache cache = new CountCache();
+    assertEquals(5, Accounts.where().active(Operator.EQ, 1).cachedCount(resolver, cache));
+
+    assertEquals(5, Accounts.where().active(Operator.EQ, 1).estimateCount(resolver, cache));
+    assertEquals(1, resolver.queries.size());
+  }
+
+  private static final String[] GROUPS = {"active", "count(*)", "count(DISTINCT quote(active))"};
+
+  @Test
+  public void countBy_providerHonouringGrouping_countsGroups() {
+    Bundle extras = new Bundle();
+    extras.putStringArray(
+        ContentResolver.EXTRA_HONORED_ARGS,
+        new String[] {ContentResolver.QUERY_ARG_SQL_GROUP_BY});
+    FakeContentResolver resolver =
+        new FakeContentResolver(
+            q -> {
+              MatrixCursor cursor =
+                  FakeContentResolver.cursor(
+                      GROUPS, new Object[] {0, 2, 1}, new Object[] {1, 3, 1});
+              cursor.setExtras(extras);
+              return cursor;
+            });
+
+    LongIntMap counts = Accounts.countBy(resolver, Accounts.Fields.ACTIVE);
+
+    assertEquals(2, counts.size());
+    assertEquals(2, counts.get(0));
+    assertEquals(3, counts.get(1));
+    assertEquals(1, resolver.queries.size());
+    assertEquals("active", resolver.queries.get(0).groupBy);
+  }
+
+  @Test
+  public void countBy_singleGroup_countsGroup() {
+    FakeContentResolver resolver =
+        new FakeContentResolver(q -> FakeContentResolver.cursor(GROUPS, new Object[] {1, 4, 1}));
+
+    LongIntMap counts = Accounts.countBy(resolver, Accounts.Fields.ACTIVE);
+
+    assertEquals(1, counts.size());
+    assertEquals(4, counts.get(1));
+    assertEquals(1, resolver.queries.size());
+  }
+
+  @Test
+  public void countBy_providerIgnoringGrouping_countsValuesAndStopsGrouping() {
+    FakeContentResolver resolver =
+        new FakeContentResolver(
+            q ->
+                q.groupBy != null
+                    ? FakeContentResolver.cursor(GROUPS, new Object[] {1, 5, 2})
+                    : FakeContentResolver.cursor(
+                        new String[] {"active"},
+                        new Object[] {1},
+                        new Object[] {0},
+                        new Object[] {1},
+                        new Object[] {null}));
+
+    LongIntMap counts = Accounts.countBy(resolver, Accounts.Fields.ACTIVE);
+    assertEquals(2, counts.size());
+    assertEquals(1, counts.get(0));
+    assertEquals(2, counts.get(1));
+    assertEquals(2, resolver.queries.size());
+
+    assertEquals(2, Accounts.countBy(resolver, Accounts.Fields.ACTIVE).get(1));
+    assertEquals(3, resolver.queries.size());
+    assertNull(resolver.queries.get(2).groupBy);
+  }
+
+  @Test
+  public void countBy_beforeApi30_countsValues() {
+    int sdk = Build.VERSION.SDK_INT;
+    Build.VERSION.SDK_INT = Build.VERSION_CODES.R - 1;
+    try {
+      FakeContentResolver resolver =
+          new FakeContentResolver(
+              q -> FakeContentResolver.cursor(new String[] {"active"}, new Object[] {1}));
+
+      assertEquals(1, Accounts.countBy(resolver, Accounts.Fields.ACTIVE).get(1));
+      assertEquals(1, resolver.queries.size());
+      assertNull(resolver.queries.get(0).groupBy);
+    } finally {
+      Build.VERSION.SDK_INT = sdk;
+    }
+  }
+
+  @Test
+  public void toIdMap_keysRowsById() {
+    FakeContentResolver resolver =
+        new FakeContentResolver(
+            q ->
+                FakeContentResolver.cursor(
+                    COLUMNS,
+                    new Object[] {1L << 40, "big", 1, 0.0, 0L},
+                    new Object[] {-3L, "negative", 0, 0.0, 0L}));
+
+    LongObjectMap<Account> accounts = Accounts.where().active(Operator.GE, 0).toIdMap(resolver);
+
+    assertEquals(2, accounts.size());
+    assertEquals("big", accounts.get(1L << 40).name);
+    assertEquals("negative", accounts.get(-3).name);
+    assertNull(accounts.get(0));
+    assertEquals(1L << 40, accounts.keyAt(0));
+    assertEquals("active >= ?", resolver.queries.get(0).selection);
+    assertEquals(Collections.singletonList("0"), resolver.queries.get(0).args);
+  }
+
+  @Test
+  public void between_selectsInclusiveRange() {
+    FakeContentResolver resolver =
+        new FakeContentResolver(
+            q -> FakeContentResolver.cursor(new String[] {"count"}, new Object[] {2}));
+
+    assertEquals(2, Accounts.where().activeBetween(0, 1).count(resolver));
+    assertEquals("active BETWEEN ? AND ?", resolver.queries.get(0).selection);
+    assertEquals(Arrays.asList("0", "1"), resolver.queries.get(0).args);
+  }
+
+  @Test
+  public void pluck_readsIntAndLongColumns() {
+    FakeContentResolver resolver =
+        new FakeContentResolver(
+            q ->
+                FakeContentResolver.cursor(
+                    q.projection,
+                    new Object[] {"active".equals(q.projection[0]) ? 1 : 1L << 40},
+                    new Object[] {null}));
+
+    LongList updated = Accounts.pluckLong(resolver, Accounts.Fields.UPDATED);
+    assertEquals(2, updated.size());
+    assertEquals(1L << 40, updated.get(0));
+    assertEquals(0L, updated.get(1));
+
+    IntList active = Accounts.pluckInt(resolver, Accounts.Fields.ACTIVE);
+    assertEquals(2, active.size());
+    assertEquals(1, active.get(0));
+    assertEquals(0, active.get(1));
+  }
+
+  @Test
+  public void toPredicate_matchesSelection() {
+    Predicate<Account> predicate =
+        Accounts.where()
+            .name(Operator.STARTS_WITH, "ap")
+            .and()
+            .active(Operator.EQ, 1)
+            .or()
+            .name(Operator.EQ_NOCASE, "ZED")
+            .toPredicate();
+
+    assertTrue(predicate.test(account(1, "apple", 1)));
+    assertFalse(predicate.test(account(2, "apple", 0)));
+    assertFalse(predicate.test(account(3, "Apple", 1)));
+    assertTrue(predicate.test(account(4, "zed", 0)));
+    assertFalse(predicate.test(account(5, null, 1)));
+  }
+
+  @Test
+  public void toPredicate_withoutConstraints_acceptsEverything() {
+    Predicate<Account> predicate = Accounts.toPredicate();
+
+    assertTrue(predicate.test(account(1, null, 0)));
+  }
+
+  @Test
+  public void toPredicate_subquery_throws() {
+    try {
+      Accounts.where().id(Operator.IN, Accounts.selectId()).toPredicate();
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+  }
+
+  @Test
+  public void selectId_nestsSelection() {
+    assertEquals(
+        "SELECT _id FROM accounts WHERE (name LIKE ? AND active = ?) [a%, 1]",
+        Accounts.where()
+            .name(Operator.LIKE, "a%")
+            .and()
+            .active(Operator.EQ, 1)
+            .selectId()
+            .toString());
+    assertEquals(Arrays.asList(), Accounts.selectId().getArgs());
+  }
+
+  /**
+   * Answers the queries of {@code refresh} from a table of rows indexed by id, understanding only
+   * the selections it sends for an unconstrained query.
+   */
+  private static FakeContentResolver table(TreeMap<Long, Object[]> rows) {
+    return new FakeContentResolver(
+        q -> {
+          String selection = q.selection == null ? "" : q.selection;
+          boolean changed = selection.matches("updated>=?\\?");
+          boolean inclusive = selection.contains(">=");
+          boolean byId = selection.startsWith("_id IN (");
+          if (!selection.isEmpty() && !changed && !byId) {
+            throw new AssertionError(selection);
+          }
+          List<String> ids = Arrays.asList(selection.replaceAll("[^0-9,]", "").split(","));
+          MatrixCursor cursor = new MatrixCursor(q.projection);
+          for (Object[] row : rows.values()) {
+            long watermark = changed ? Long.parseLong(q.args.get(0)) : 0;
+            if ((changed && (inclusive ? (long) row[4] < watermark : (long) row[4] <= watermark))
+                || (byId && !ids.contains(row[0].toString()))) {
+              continue;
+            }
+            cursor.addRow(q.projection.length == 1 ? new Object[] {row[0]} : row);
+          }
+          return cursor;
+        });
+  }
+
+  private static List<String> names(Snapshot<Account> snapshot) {
+    return snapshot.getEntities().stream().map(a -> a.name).collect(Collectors.toList());
+  }
+
+  @Test
+  public void refresh_rowWrittenAtSameVersion() {
+    TreeMap<Long, Object[]> rows = new TreeMap<>();
+    rows.put(1L, new Object[] {1L, "one", 1, 0.0, 5L});
+    rows.put(2L, new Object[] {2L, "two", 1, 0.0, 4L});
+    FakeContentResolver resolver = table(rows);
+    Snapshot<Account> snapshot = Accounts.snapshot(resolver);
+
+    // Written after the snapshot was taken, in the same tick as the newest row in it.
+    rows.put(2L, new Object[] {2L, "TWO", 1, 0.0, 5L});
+    rows.put(3L, new Object[] {3L, "three", 1, 0.0, 5L});
+    resolver.queries.clear();
+    Accounts.refresh(resolver, snapshot);
+
+    assertEquals(Arrays.asList("one", "TWO", "three"), names(snapshot));
+    assertEquals(Collections.singletonList("5"), resolver.queries.get(0).args);
+    // Row 1 is read again, but not duplicated; no row was missing from both queries.
+    assertEquals(2, resolver.queries.size());
+
+    rows.remove(1L);
+    Accounts.refresh(resolver, snapshot);
+
+    assertEquals(Arrays.asList("TWO", "three"), names(snapshot));
+  }
+
+  @Test
+  public void refresh_emptySnapshot() {
+    TreeMap<Long, Object[]> rows = new TreeMap<>();
+    FakeContentResolver resolver = table(rows);
+    Snapshot<Account> snapshot = Accounts.snapshot(resolver);
+    rows.put(1L, new Object[] {1L, "one", 1, 0.0, Long.MIN_VALUE});
+
+    Accounts.refresh(resolver, snapshot);
+
+    assertEquals(Collections.singletonList("one"), names(snapshot));
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder.compiler.samples;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.CancellationSignal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/** Records the queries it receives, and answers them with a function. */
+class FakeContentResolver extends ContentResolver {
+  static final class Query {
+    final Uri uri;
+    final String[] projection;
+    final String selection;
+    final List<String> args;
+    final String sortOrder;
+    final CancellationSignal cancellationSignal;
+    /** The requested grouping, which answers may or may not honor. */
+    final String groupBy;
+
+    private Query(
+        Uri uri,
+        String[] projection,
+        String selection,
+        String[] args,
+        String sortOrder,
+        CancellationSignal cancellationSignal,
+        String groupBy) {
+      this.uri = uri;
+      this.projection = projection;
+      this.selection = selection;
+      this.args = args == null ? null : Arrays.asList(args);
+      this.sortOrder = sortOrder;
+      this.cancellationSignal = cancellationSignal;
+      this.groupBy = groupBy;
+    }
+  }
+
+  final List<Query> queries = new ArrayList<>();
+  private final Function<Query, Cursor> answer;
+
+  FakeContentResolver(Function<Query, Cursor> answer) {
+    this.answer = answer;
+  }
+
+  @Override
+  public synchronized Cursor query(
+      Uri uri,
+      String[] projection,
+      String selection,
+      String[] selectionArgs,
+      String sortOrder,
+      CancellationSignal cancellationSignal) {
+    return answer(
+        new Query(uri, projection, selection, selectionArgs, sortOrder, cancellationSignal, null));
+  }
+
+  @Override
+  public synchronized Cursor query(
+      Uri uri, String[] projection, Bundle queryArgs, CancellationSignal cancellationSignal) {
+    return answer(
+        new Query(
+            uri,
+            projection,
+            queryArgs.getString(QUERY_ARG_SQL_SELECTION),
+            queryArgs.getStringArray(QUERY_ARG_SQL_SELECTION_ARGS),
+            null,
+            cancellationSignal,
+            queryArgs.getString(QUERY_ARG_SQL_GROUP_BY)));
+  }
+
+  private Cursor answer(Query query) {
+    queries.add(query);
+    return answer.apply(query);
+  }
+
+  /** Returns a cursor with the given columns and rows. */
+  static MatrixCursor cursor(String[] columns, Object[]... rows) {
+    MatrixCursor cursor = new MatrixCursor(columns);
+    for (Object[] row : rows) {
+      cursor.addRow(row);
+    }
+    return cursor;
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder.compiler.samples;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import org.junit.Test;
+import tech.darkespresso.hellbinder.Operator;
+import tech.darkespresso.hellbinder.Subquery;
+
+/** Runs the code generated for {@link Message}. */
+public class MessagesTest {
+  @Test
+  public void subqueryConstraint_sendsSingleSelection() {
+    FakeContentResolver resolver =
+        new FakeContentResolver(
+            q -> FakeContentResolver.cursor(new String[] {"count(*)"}, new Object[] {0}));
+    Subquery activeAccounts = Accounts.where().active(Operator.EQ, 1).selectId();
+
+    Messages.withUriParams(7)
+        .where()
+        .subject(Operator.EQ, "hi")
+        .and()
+        .senderId(Operator.IN, activeAccounts)
+        .count(resolver);
+
+    FakeContentResolver.Query query = resolver.queries.get(0);
+    assertEquals("content://samples/accounts/7/messages", query.uri.toString());
+    assertEquals(
+        "subject = ? AND sender_id IN (SELECT _id FROM accounts WHERE (active = ?))",
+        query.selection);
+    assertEquals(Arrays.asList("hi", "1"), query.args);
+  }
+}
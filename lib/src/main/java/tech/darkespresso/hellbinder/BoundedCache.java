@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache holding at most a fixed number of entries, evicting the least recently used one when
+ * full. This is used by generated code to remember the URIs built from parameters that do not fit
+ * in a {@link LongCache}; keys made of several parameters are compared as lists.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public final class BoundedCache<K, V> {
+  private final Map<K, V> mEntries;
+
+  /** @param capacity the maximum number of entries. */
+  public BoundedCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    mEntries = new Entries<>(capacity);
+  }
+
+  /** A map in access order, which drops its eldest entry when it grows beyond its capacity. */
+  private static final class Entries<K, V> extends LinkedHashMap<K, V> {
+    private static final long serialVersionUID = 1L;
+
+    private final int mCapacity;
+
+    Entries(int capacity) {
+      super(16, 0.75f, true);
+      mCapacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+      return size() > mCapacity;
+    }
+  }
+
+  /** Returns the value stored for the given key, or {@code null} if it is not cached. */
+  public synchronized V get(K key) {
+    return mEntries.get(key);
+  }
+
+  /** Stores a value for the given key, evicting the least recently used entry if full. */
+  public synchronized void put(K key, V value) {
+    mEntries.put(key, value);
+  }
+
+  /** Removes all the entries. */
+  public synchronized void clear() {
+    mEntries.clear();
+  }
+}
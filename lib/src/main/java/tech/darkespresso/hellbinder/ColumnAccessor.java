@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the value of a column from an entity, so that a {@link Condition} can be evaluated in
+ * memory (see {@link Condition#compile(Function)}). Instances are created by generated code.
+ *
+ * <p>Values are compared the way SQLite compares them: integer and real columns convert numeric
+ * arguments to numbers, and consider any other argument greater than every number; text columns
+ * compare code points, as the {@code BINARY} collation does; {@code LIKE} and {@code EQ_NOCASE}
+ * ignore the case of ASCII letters only; and no comparison is satisfied by a {@code NULL} string.
+ *
+ * @param <E> the type of the entities.
+ */
+public abstract class ColumnAccessor<E> {
+  ColumnAccessor() {}
+
+  /** Returns an accessor for an integral column. */
+  public static <E> ColumnAccessor<E> ofLong(final ToLongFunction<E> getter) {
+    return new ColumnAccessor<E>() {
+      @Override
+      Predicate<E> compare(Operator op, List<String> values) {
+        if (op == Operator.LIKE) {
+          Pattern pattern = like(values.get(0));
+          return e -> pattern.matcher(Long.toString(getter.applyAsLong(e))).matches();
+        }
+        Number[] numbers = toNumbers(values);
+        return new Comparison<E>(op, numbers.length) {
+          @Override
+          int compareWith(E entity, int i) {
+            return compareLong(getter.applyAsLong(entity), numbers[i]);
+          }
+        };
+      }
+
+      @Override
+      SnapshotIndex index(List<E> entities) {
+        long[] values = new long[entities.size()];
+        for (int i = 0; i < values.length; ++i) {
+          values[i] = getter.applyAsLong(entities.get(i));
+        }
+        return SnapshotIndex.ofLongs(values);
+      }
+    };
+  }
+
+  /** Returns an accessor for a real column. */
+  public static <E> ColumnAccessor<E> ofDouble(final ToDoubleFunction<E> getter) {
+    return new ColumnAccessor<E>() {
+      @Override
+      Predicate<E> compare(Operator op, List<String> values) {
+        if (op == Operator.LIKE) {
+          Pattern pattern = like(values.get(0));
+          return e -> pattern.matcher(Double.toString(getter.applyAsDouble(e))).matches();
+        }
+        Number[] numbers = toNumbers(values);
+        return new Comparison<E>(op, numbers.length) {
+          @Override
+          int compareWith(E entity, int i) {
+            return compareDouble(getter.applyAsDouble(entity), numbers[i]);
+          }
+        };
+      }
+
+      @Override
+      SnapshotIndex index(List<E> entities) {
+        double[] values = new double[entities.size()];
+        for (int i = 0; i < values.length; ++i) {
+          values[i] = getter.applyAsDouble(entities.get(i));
+        }
+        return SnapshotIndex.ofDoubles(values);
+      }
+    };
+  }
+
+  /** Returns an accessor for a text column. */
+  public static <E> ColumnAccessor<E> ofString(final Function<E, String> getter) {
+    return new ColumnAccessor<E>() {
+      @Override
+      Predicate<E> compare(Operator op, List<String> values) {
+        if (op == Operator.LIKE) {
+          Pattern pattern = like(values.get(0));
+          return e -> {
+            String value = getter.apply(e);
+            return value != null && pattern.matcher(value).matches();
+          };
+        }
+        String[] strings = values.toArray(new String[values.size()]);
+        boolean noCase = op == Operator.EQ_NOCASE;
+        return new Comparison<E>(op, strings.length) {
+          @Override
+          boolean isNull(E entity) {
+            return getter.apply(entity) == null;
+          }
+
+          @Override
+          int compareWith(E entity, int i) {
+            return compareStrings(getter.apply(entity), strings[i], noCase);
+          }
+        };
+      }
+
+      @Override
+      SnapshotIndex index(List<E> entities) {
+        String[] values = new String[entities.size()];
+        for (int i = 0; i < values.length; ++i) {
+          values[i] = getter.apply(entities.get(i));
+        }
+        return SnapshotIndex.ofStrings(values);
+      }
+
+      @Override
+      Predicate<E> isNull(boolean isNull) {
+        return e -> (getter.apply(e) == null) == isNull;
+      }
+    };
+  }
+
+  /**
+   * Returns the predicate satisfied by the entities whose column compares with the given values as
+   * required by {@code op}. {@link Operator#BETWEEN} takes the lower and upper bounds, {@link
+   * Operator#IN} and {@link Operator#NOT_IN} any number of values, and the others a single value.
+   */
+  abstract Predicate<E> compare(Operator op, List<String> values);
+
+  /** Returns an index of the column over the given entities, for {@link Snapshot}. */
+  abstract SnapshotIndex index(List<E> entities);
+
+  /**
+   * Returns the predicate satisfied by the entities whose column is (or is not) {@code NULL}.
+   *
+   * @throws UnsupportedOperationException if the column is bound to a primitive field, in which
+   *     case {@code NULL} values have been read as 0.
+   */
+  Predicate<E> isNull(boolean isNull) {
+    throw new UnsupportedOperationException(
+        "Primitive fields cannot tell NULL apart from 0 in memory");
+  }
+
+  /** Compares the column of an entity with the values of a term, as required by an operator. */
+  private abstract static class Comparison<E> implements Predicate<E> {
+    private final Operator mOperator;
+    private final int mCount;
+
+    Comparison(Operator operator, int count) {
+      mOperator = operator;
+      mCount = count;
+    }
+
+    /** Whether the column of the entity is {@code NULL}, which satisfies no comparison. */
+    boolean isNull(E entity) {
+      return false;
+    }
+
+    /** Compares the column of the entity with the i-th value. */
+    abstract int compareWith(E entity, int i);
+
+    @Override
+    public final boolean test(E entity) {
+      if (isNull(entity)) {
+        return false;
+      }
+      switch (mOperator) {
+        case EQ:
+        case EQ_NOCASE:
+          return compareWith(entity, 0) == 0;
+        case NE:
+          return compareWith(entity, 0) != 0;
+        case LT:
+          return compareWith(entity, 0) < 0;
+        case LE:
+          return compareWith(entity, 0) <= 0;
+        case GT:
+          return compareWith(entity, 0) > 0;
+        case GE:
+          return compareWith(entity, 0) >= 0;
+        case BETWEEN:
+          return compareWith(entity, 0) >= 0 && compareWith(entity, 1) <= 0;
+        case STARTS_WITH:
+          // The same range the provider is given, whose upper bound may be absent.
+          return compareWith(entity, 0) >= 0 && (mCount == 1 || compareWith(entity, 1) < 0);
+        case IN:
+        case NOT_IN:
+          boolean found = false;
+          for (int i = 0; i < mCount && !found; ++i) {
+            found = compareWith(entity, i) == 0;
+          }
+          return found == (mOperator == Operator.IN);
+        default:
+          throw new IllegalArgumentException(mOperator.name());
+      }
+    }
+  }
+
+  /** Parses the values the way SQLite applies numeric affinity; null stands for text. */
+  private static Number[] toNumbers(List<String> values) {
+    Number[] numbers = new Number[values.size()];
+    for (int i = 0; i < numbers.length; ++i) {
+      String value = values.get(i).trim();
+      try {
+        numbers[i] = Long.parseLong(value);
+      } catch (NumberFormatException e) {
+        try {
+          numbers[i] = Double.parseDouble(value);
+        } catch (NumberFormatException notNumeric) {
+          numbers[i] = null;
+        }
+      }
+    }
+    return numbers;
+  }
+
+  private static int compareLong(long value, Number number) {
+    if (number == null) {
+      return -1;
+    }
+    if (number instanceof Long) {
+      return Long.compare(value, number.longValue());
+    }
+    return compareReals(value, number.doubleValue());
+  }
+
+  private static int compareDouble(double value, Number number) {
+    return number == null ? -1 : compareReals(value, number.doubleValue());
+  }
+
+  /** Compares reals as SQLite does, where {@code 0.0} and {@code -0.0} are equal. */
+  private static int compareReals(double a, double b) {
+    return a == b ? 0 : Double.compare(a, b);
+  }
+
+  /** Compares code points, folding ASCII letters to lower case if {@code noCase} is set. */
+  static int compareStrings(String a, String b, boolean noCase) {
+    int i = 0;
+    int j = 0;
+    while (i < a.length() && j < b.length()) {
+      int x = a.codePointAt(i);
+      int y = b.codePointAt(j);
+      if (noCase) {
+        x = x >= 'A' && x <= 'Z' ? x + ('a' - 'A') : x;
+        y = y >= 'A' && y <= 'Z' ? y + ('a' - 'A') : y;
+      }
+      if (x != y) {
+        return x < y ? -1 : 1;
+      }
+      i += Character.charCount(x);
+      j += Character.charCount(y);
+    }
+    return Integer.compare(a.length() - i, b.length() - j);
+  }
+
+  /** Compiles a {@code LIKE} pattern, in which {@code %} and {@code _} are the only wildcards. */
+  private static Pattern like(String pattern) {
+    StringBuilder regex = new StringBuilder();
+    StringBuilder literal = new StringBuilder();
+    for (int i = 0; i < pattern.length(); ) {
+      int c = pattern.codePointAt(i);
+      i += Character.charCount(c);
+      if (c == '%' || c == '_') {
+        if (literal.length() > 0) {
+          regex.append(Pattern.quote(literal.toString()));
+          literal.setLength(0);
+        }
+        regex.append(c == '%' ? ".*" : ".");
+      } else {
+        literal.appendCodePoint(c);
+      }
+    }
+    if (literal.length() > 0) {
+      regex.append(Pattern.quote(literal.toString()));
+    }
+    // Without UNICODE_CASE, only ASCII letters are matched regardless of their case, as in SQLite.
+    return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+  }
+}
@@ -0,0 +1,509 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * An immutable tree of constraints on the columns of a query, which renders as the selection and
+ * the selection arguments of the query. Instances are created by generated code.
+ *
+ * <p>{@link #normalize()} rewrites the tree into an equivalent, usually shorter one, before it is
+ * sent to the content provider: identical terms are only kept once, {@code x = a OR x = b} is
+ * folded into {@code x IN (a, b)}, and conjunctions that can never be satisfied (such as {@code x
+ * IS NULL AND x = a}) or disjunctions that are always satisfied (such as {@code x IS NULL OR x IS
+ * NOT NULL}) are replaced by a constant.
+ *
+ * <p>{@link #compile(Function)} turns the tree into a {@link Predicate} on
+ * entities, so that entities which have already been loaded can be filtered without querying the
+ * provider again; {@link Snapshot#filter(Condition)} also looks the terms up in the indexes of
+ * the snapshot, so that only some of its entities are checked.
+ */
+public abstract class Condition {
+  /** The condition satisfied by every row. */
+  public static final Condition TRUE = new Constant(true);
+  /** The condition satisfied by no row. */
+  public static final Condition FALSE = new Constant(false);
+
+  Condition() {}
+
+  /** Returns a condition comparing the given column with a value. */
+  public static Condition compare(String column, Operator op, String value) {
+    StringBuilder sql = new StringBuilder();
+    List<String> args = new ArrayList<>(2);
+    op.apply(sql, args, column, value);
+    return new Term(column, op, Collections.singletonList(value), null, sql.toString(), args);
+  }
+
+  /** Returns a condition checking that the given column lies between two values. */
+  public static Condition compare(String column, Operator op, String lower, String upper) {
+    StringBuilder sql = new StringBuilder();
+    List<String> args = new ArrayList<>(2);
+    op.apply(sql, args, column, lower, upper);
+    return new Term(column, op, Arrays.asList(lower, upper), null, sql.toString(), args);
+  }
+
+  /** Returns a condition comparing the given column with the result of a subquery. */
+  public static Condition compare(String column, Operator op, Subquery subquery) {
+    StringBuilder sql = new StringBuilder();
+    List<String> args = new ArrayList<>(subquery.getArgs().size());
+    op.apply(sql, args, column, subquery);
+    return new Term(column, op, null, null, sql.toString(), args);
+  }
+
+  /** Returns a condition checking whether the given column is {@code NULL}. */
+  public static Condition isNull(String column, boolean isNull) {
+    return new Term(
+        column,
+        null,
+        null,
+        isNull,
+        column + (isNull ? " IS NULL" : " IS NOT NULL"),
+        Collections.emptyList());
+  }
+
+  /** Returns a condition matching the given column against a full-text query. */
+  public static Condition match(String column, String query) {
+    return new Term(
+        column, null, null, null, column + " MATCH ?", Collections.singletonList(query));
+  }
+
+  /** Returns the conjunction of the given conditions. */
+  public static Condition and(Condition... conditions) {
+    return new Junction(true, Arrays.asList(conditions));
+  }
+
+  /** Returns the disjunction of the given conditions. */
+  public static Condition or(Condition... conditions) {
+    return new Junction(false, Arrays.asList(conditions));
+  }
+
+  /** Returns an equivalent condition, with redundant terms and branches removed. */
+  public abstract Condition normalize();
+
+  /** Appends the selection to {@code sql}, and its arguments to {@code args}. */
+  public abstract void render(StringBuilder sql, List<String> args);
+
+  /**
+   * Returns a predicate satisfied by the entities whose columns satisfy this tree, comparing
+   * values as SQLite does (see {@link ColumnAccessor}). The operands are parsed, and {@code LIKE}
+   * patterns compiled, once and for all.
+   *
+   * @param columns returns the accessor of each column.
+   * @throws UnsupportedOperationException if the tree compares a column with a subquery or a
+   *     full-text query, or checks whether a column bound to a primitive field is {@code NULL}.
+   */
+  public abstract <E> Predicate<E> compile(
+      Function<String, ColumnAccessor<E>> columns);
+
+  /**
+   * Returns the positions of the entities of the snapshot which may satisfy this tree, in ascending
+   * order, or null if every entity may. The positions are found in the indexes of the snapshot, and
+   * the entities must still be checked with {@link #compile(Function)}.
+   */
+  abstract int[] candidates(Snapshot<?> snapshot);
+
+  @Override
+  public String toString() {
+    StringBuilder sql = new StringBuilder();
+    List<String> args = new ArrayList<>();
+    render(sql, args);
+    return sql.append(' ').append(args).toString();
+  }
+
+  private static final class Constant extends Condition {
+    private final boolean mValue;
+
+    Constant(boolean value) {
+      mValue = value;
+    }
+
+    @Override
+    public Condition normalize() {
+      return this;
+    }
+
+    @Override
+    public void render(StringBuilder sql, List<String> args) {
+      sql.append(mValue ? '1' : '0');
+    }
+
+    @Override
+    public <E> Predicate<E> compile(
+        Function<String, ColumnAccessor<E>> columns) {
+      return mValue ? entity -> true : entity -> false;
+    }
+
+    @Override
+    int[] candidates(Snapshot<?> snapshot) {
+      return mValue ? null : new int[0];
+    }
+  }
+
+  /** A single constraint on a column. */
+  private static final class Term extends Condition {
+    private final String mColumn;
+    /** The operator, or null for {@code IS NULL} and {@code MATCH}. */
+    private final Operator mOperator;
+    /** The values compared with the column (both bounds for ranges), or null for subqueries. */
+    private final List<String> mValues;
+    /** Whether the term is {@code IS NULL} or {@code IS NOT NULL}, or null for other terms. */
+    private final Boolean mIsNull;
+
+    private final String mSql;
+    private final List<String> mArgs;
+
+    Term(
+        String column,
+        Operator operator,
+        List<String> values,
+        Boolean isNull,
+        String sql,
+        List<String> args) {
+      mColumn = column;
+      mOperator = operator;
+      mValues = values;
+      mIsNull = isNull;
+      mSql = sql;
+      mArgs = args;
+    }
+
+    /** Whether the term compares the column with values, and is never satisfied by {@code NULL}. */
+    boolean isComparison() {
+      return mOperator != null && mOperator != Operator.NOT_IN && mValues != null;
+    }
+
+    /** Whether the term is satisfied when the column equals one of {@link #mValues}. */
+    boolean isFoldable() {
+      return (mOperator == Operator.EQ || mOperator == Operator.IN) && mValues != null;
+    }
+
+    @Override
+    public Condition normalize() {
+      return this;
+    }
+
+    @Override
+    public void render(StringBuilder sql, List<String> args) {
+      sql.append(mSql);
+      args.addAll(mArgs);
+    }
+
+    @Override
+    public <E> Predicate<E> compile(
+        Function<String, ColumnAccessor<E>> columns) {
+      if (mIsNull != null) {
+        return columns.apply(mColumn).isNull(mIsNull);
+      }
+      if (mOperator == null) {
+        throw new UnsupportedOperationException(
+            "Full-text queries cannot be evaluated in memory: " + mSql);
+      }
+      if (mValues == null) {
+        throw new UnsupportedOperationException(
+            "Subqueries cannot be evaluated in memory: " + mSql);
+      }
+      List<String> values = mValues;
+      if (mOperator == Operator.STARTS_WITH) {
+        String upperBound = Operator.upperBound(mValues.get(0));
+        if (upperBound != null) {
+          values = Arrays.asList(mValues.get(0), upperBound);
+        }
+      }
+      return columns.apply(mColumn).compare(mOperator, values);
+    }
+
+    @Override
+    int[] candidates(Snapshot<?> snapshot) {
+      SnapshotIndex index = mOperator == null ? null : snapshot.index(mColumn);
+      if (index == null || mValues == null) {
+        return null;
+      }
+      switch (mOperator) {
+        case EQ:
+          return index.equalTo(mValues.get(0));
+        case IN:
+          int[] rows = new int[0];
+          for (String value : mValues) {
+            int[] equal = index.equalTo(value);
+            if (equal == null) {
+              return null;
+            }
+            rows = SnapshotIndex.union(rows, equal);
+          }
+          return rows;
+        case LT:
+          return index.range(null, false, mValues.get(0), false);
+        case LE:
+          return index.range(null, false, mValues.get(0), true);
+        case GT:
+          return index.range(mValues.get(0), false, null, false);
+        case GE:
+          return index.range(mValues.get(0), true, null, false);
+        case BETWEEN:
+          return index.range(mValues.get(0), true, mValues.get(1), true);
+        case STARTS_WITH:
+          return index.range(mValues.get(0), true, Operator.upperBound(mValues.get(0)), false);
+        default:
+          return null;
+      }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Term)) {
+        return false;
+      }
+      Term other = (Term) o;
+      return mSql.equals(other.mSql) && mArgs.equals(other.mArgs);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(mSql, mArgs);
+    }
+  }
+
+  private static final class Junction extends Condition {
+    /** Whether this is a conjunction, rather than a disjunction. */
+    private final boolean mAnd;
+
+    private final List<Condition> mChildren;
+
+    Junction(boolean and, List<Condition> children) {
+      mAnd = and;
+      mChildren = children;
+    }
+
+    @Override
+    public Condition normalize() {
+      Condition absorbing = mAnd ? FALSE : TRUE;
+      Condition neutral = mAnd ? TRUE : FALSE;
+      // Identical terms are only kept once.
+      Set<Condition> children = new LinkedHashSet<>();
+      for (Condition child : mChildren) {
+        child = child.normalize();
+        if (child == absorbing) {
+          return absorbing;
+        }
+        if (child instanceof Junction && ((Junction) child).mAnd == mAnd) {
+          children.addAll(((Junction) child).mChildren);
+        } else if (child != neutral) {
+          children.add(child);
+        }
+      }
+      List<Condition> terms = new ArrayList<>(children);
+      if (mAnd ? isContradiction(terms) : isTautology(terms)) {
+        return absorbing;
+      }
+      if (!mAnd) {
+        terms = foldIntoIn(terms);
+      }
+      if (terms.isEmpty()) {
+        return neutral;
+      }
+      return terms.size() == 1 ? terms.get(0) : new Junction(mAnd, terms);
+    }
+
+    /**
+     * Whether the conjunction of the given terms is never satisfied: no comparison is true when a
+     * column is {@code NULL}, and a column cannot be both equal and different to a value.
+     * {@code NOT IN} and subqueries are left out, as {@code NULL NOT IN} an empty set is true.
+     */
+    private static boolean isContradiction(List<Condition> terms) {
+      Set<String> isNull = new HashSet<>();
+      Set<String> compared = new HashSet<>();
+      Set<List<String>> equal = new HashSet<>();
+      Set<List<String>> different = new HashSet<>();
+      for (Condition condition : terms) {
+        if (!(condition instanceof Term)) {
+          continue;
+        }
+        Term term = (Term) condition;
+        if (Boolean.TRUE.equals(term.mIsNull)) {
+          isNull.add(term.mColumn);
+        } else if (term.mIsNull != null || term.isComparison()) {
+          compared.add(term.mColumn);
+        }
+        if (term.mValues == null) {
+          continue;
+        }
+        if (term.mOperator == Operator.EQ) {
+          equal.add(Arrays.asList(term.mColumn, term.mValues.get(0)));
+        } else if (term.mOperator == Operator.NE) {
+          different.add(Arrays.asList(term.mColumn, term.mValues.get(0)));
+        }
+      }
+      return !Collections.disjoint(isNull, compared) || !Collections.disjoint(equal, different);
+    }
+
+    /** Whether the disjunction of the given terms is always satisfied. */
+    private static boolean isTautology(List<Condition> terms) {
+      Set<String> isNull = new HashSet<>();
+      Set<String> isNotNull = new HashSet<>();
+      for (Condition condition : terms) {
+        if (condition instanceof Term && ((Term) condition).mIsNull != null) {
+          Term term = (Term) condition;
+          (term.mIsNull ? isNull : isNotNull).add(term.mColumn);
+        }
+      }
+      return !Collections.disjoint(isNull, isNotNull);
+    }
+
+    /** Replaces the equalities on the same column with a single {@code IN}. */
+    private static List<Condition> foldIntoIn(List<Condition> terms) {
+      Map<String, Set<String>> valuesByColumn = new LinkedHashMap<>();
+      Map<String, Integer> countByColumn = new LinkedHashMap<>();
+      for (Condition condition : terms) {
+        if (condition instanceof Term && ((Term) condition).isFoldable()) {
+          Term term = (Term) condition;
+          Set<String> values = valuesByColumn.get(term.mColumn);
+          if (values == null) {
+            values = new LinkedHashSet<>();
+            valuesByColumn.put(term.mColumn, values);
+            countByColumn.put(term.mColumn, 0);
+          }
+          values.addAll(term.mValues);
+          countByColumn.put(term.mColumn, countByColumn.get(term.mColumn) + 1);
+        }
+      }
+      if (countByColumn.values().stream().noneMatch(count -> count > 1)) {
+        return terms;
+      }
+      List<Condition> folded = new ArrayList<>(terms.size());
+      for (Condition condition : terms) {
+        if (!(condition instanceof Term) || !((Term) condition).isFoldable()) {
+          folded.add(condition);
+          continue;
+        }
+        String column = ((Term) condition).mColumn;
+        if (countByColumn.get(column) == 1) {
+          folded.add(condition);
+        } else if (valuesByColumn.containsKey(column)) {
+          // The folded term takes the place of the first equality on the column.
+          List<String> values = new ArrayList<>(valuesByColumn.remove(column));
+          StringBuilder sql = new StringBuilder(column).append(" IN (");
+          for (int i = 0; i < values.size(); ++i) {
+            sql.append(i == 0 ? "?" : ", ?");
+          }
+          sql.append(')');
+          folded.add(new Term(column, Operator.IN, values, null, sql.toString(), values));
+        }
+      }
+      return folded;
+    }
+
+    @Override
+    public void render(StringBuilder sql, List<String> args) {
+      for (int i = 0; i < mChildren.size(); ++i) {
+        if (i > 0) {
+          sql.append(mAnd ? " AND " : " OR ");
+        }
+        Condition child = mChildren.get(i);
+        boolean parenthesize = mAnd && child instanceof Junction;
+        if (parenthesize) {
+          sql.append('(');
+        }
+        child.render(sql, args);
+        if (parenthesize) {
+          sql.append(')');
+        }
+      }
+    }
+
+    @Override
+    public <E> Predicate<E> compile(
+        Function<String, ColumnAccessor<E>> columns) {
+      List<Predicate<E>> children = new ArrayList<>(mChildren.size());
+      for (Condition child : mChildren) {
+        children.add(child.compile(columns));
+      }
+      if (mAnd) {
+        return entity -> {
+          for (int i = 0; i < children.size(); ++i) {
+            if (!children.get(i).test(entity)) {
+              return false;
+            }
+          }
+          return true;
+        };
+      }
+      return entity -> {
+        for (int i = 0; i < children.size(); ++i) {
+          if (children.get(i).test(entity)) {
+            return true;
+          }
+        }
+        return false;
+      };
+    }
+
+    @Override
+    int[] candidates(Snapshot<?> snapshot) {
+      int[] rows = null;
+      for (Condition child : mChildren) {
+        int[] childRows = child.candidates(snapshot);
+        if (childRows == null) {
+          if (!mAnd) {
+            return null;
+          }
+        } else if (rows == null) {
+          rows = childRows;
+        } else {
+          rows =
+              mAnd
+                  ? SnapshotIndex.intersect(rows, childRows)
+                  : SnapshotIndex.union(rows, childRows);
+        }
+      }
+      return rows;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Junction)) {
+        return false;
+      }
+      Junction other = (Junction) o;
+      return mAnd == other.mAnd && mChildren.equals(other.mChildren);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(mAnd, mChildren);
+    }
+  }
+}
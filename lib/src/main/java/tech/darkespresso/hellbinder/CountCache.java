@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the number of rows matched by queries, until the content they were computed from
+ * changes. This is used by generated code.
+ *
+ * <p>Counts are grouped by the URI they were queried from. The first time a URI is counted, the
+ * generated code registers a content observer on it (and its descendants), which calls {@link
+ * #invalidate(Object)} when the provider notifies a change. A count that was being computed when
+ * its URI was invalidated, or before its observer was registered, is not stored.
+ *
+ * <p>This class is thread-safe. The observers stay registered until {@link #clear()} is called.
+ */
+public final class CountCache {
+  private final Map<Object, Counts> mCounts = new HashMap<>();
+
+  /** Unregisters the observer of a URI. */
+  public interface Registration {
+    void unregister();
+  }
+
+  private static final class Counts {
+    final Map<String, Integer> mFresh = new HashMap<>();
+    Registration mRegistration;
+    int mGeneration;
+  }
+
+  /**
+   * Returns a key identifying a selection and its arguments.
+   *
+   * @param selection the selection, or {@code null}.
+   * @param args the selection arguments, or {@code null}.
+   */
+  public static String key(String selection, String[] args) {
+    StringBuilder key = new StringBuilder();
+    append(key, selection);
+    if (args != null) {
+      for (String arg : args) {
+        append(key, arg);
+      }
+    }
+    return key.toString();
+  }
+
+  private static void append(StringBuilder key, String value) {
+    // Length-prefixed, so that different arguments can never produce the same key.
+    if (value == null) {
+      key.append("-1:");
+    } else {
+      key.append(value.length()).append(':').append(value);
+    }
+  }
+
+  /**
+   * Returns true if nobody is observing the given URI yet, in which case the caller must register
+   * an observer, and then pass the means to unregister it to {@link #setObserver}. Counts of that
+   * URI are not stored until then.
+   */
+  public synchronized boolean startObserving(Object uri) {
+    if (mCounts.containsKey(uri)) {
+      return false;
+    }
+    mCounts.put(uri, new Counts());
+    return true;
+  }
+
+  /**
+   * Records that an observer has been registered on the given URI, so that {@link #clear()} can
+   * unregister it. Counts computed before this call are outdated, since a change could have been
+   * missed while nobody was observing. If the cache has been cleared since {@link #startObserving},
+   * the observer is unregistered immediately.
+   */
+  public void setObserver(Object uri, Registration registration) {
+    synchronized (this) {
+      Counts counts = mCounts.get(uri);
+      if (counts != null && counts.mRegistration == null) {
+        counts.mRegistration = registration;
+        ++counts.mGeneration;
+        counts.mFresh.clear();
+        return;
+      }
+    }
+    registration.unregister();
+  }
+
+  /**
+   * Returns the current generation of the given URI, which must be passed to {@link #put} once the
+   * count has been computed.
+   */
+  public synchronized int generation(Object uri) {
+    Counts counts = mCounts.get(uri);
+    return counts == null ? 0 : counts.mGeneration;
+  }
+
+  /** Returns the count for the given key, or {@code null} if it is unknown or outdated. */
+  public synchronized Integer get(Object uri, String key) {
+    Counts counts = mCounts.get(uri);
+    return counts == null ? null : counts.mFresh.get(key);
+  }
+
+  /**
+   * Stores a count, unless the URI has been invalidated since {@code generation} was obtained from
+   * {@link #generation(Object)}, or is not observed yet.
+   */
+  public synchronized void put(Object uri, String key, int count, int generation) {
+    Counts counts = mCounts.get(uri);
+    if (counts == null) {
+      return;
+    }
+    if (counts.mRegistration != null && counts.mGeneration == generation) {
+      counts.mFresh.put(key, count);
+    }
+  }
+
+  /** Marks all the counts of the given URI as outdated. */
+  public synchronized void invalidate(Object uri) {
+    Counts counts = mCounts.get(uri);
+    if (counts != null) {
+      ++counts.mGeneration;
+      counts.mFresh.clear();
+    }
+  }
+
+  /** Forgets all counts, and unregisters the observers registered for this cache. */
+  public void clear() {
+    List<Registration> registrations = new ArrayList<>();
+    synchronized (this) {
+      for (Counts counts : mCounts.values()) {
+        if (counts.mRegistration != null) {
+          registrations.add(counts.mRegistration);
+        }
+      }
+      mCounts.clear();
+    }
+    // Outside the lock: unregistering may call into another process.
+    for (Registration registration : registrations) {
+      registration.unregister();
+    }
+  }
+}
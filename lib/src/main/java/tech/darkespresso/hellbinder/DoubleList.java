@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code double} values, which does not box them.
+ *
+ * <p>This class is not thread-safe.
+ */
+public final class DoubleList {
+  private double[] mValues;
+  private int mSize;
+
+  public DoubleList() {
+    this(8);
+  }
+
+  /** @param expectedSize the number of values that can be added before growing. */
+  public DoubleList(int expectedSize) {
+    mValues = new double[Math.max(expectedSize, 4)];
+  }
+
+  /** Returns the number of values. */
+  public int size() {
+    return mSize;
+  }
+
+  public boolean isEmpty() {
+    return mSize == 0;
+  }
+
+  public double get(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException();
+    }
+    return mValues[index];
+  }
+
+  /** Appends the given value. */
+  public void add(double value) {
+    if (mSize == mValues.length) {
+      mValues = Arrays.copyOf(mValues, mSize * 2);
+    }
+    mValues[mSize++] = value;
+  }
+
+  /** Returns a new array containing all values, in the order in which they were added. */
+  public double[] toArray() {
+    return Arrays.copyOf(mValues, mSize);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("[");
+    for (int i = 0; i < mSize; ++i) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(mValues[i]);
+    }
+    return builder.append(']').toString();
+  }
+}
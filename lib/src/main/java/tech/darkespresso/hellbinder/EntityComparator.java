@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Locale;
+import java.util.function.Function;
+import tech.darkespresso.hellbinder.annotations.SortCriterion;
+
+/**
+ * Compares entities the same way a content provider sorts rows for a chain of fields annotated
+ * with {@link SortCriterion}, so that lists which have already been loaded can be sorted again
+ * without querying the provider. Instances are obtained from the {@code comparator} method of
+ * generated classes, and extended with {@link #thenBy(Field, Order)}. Generated code also uses
+ * them to merge results coming from several URIs.
+ *
+ * <p>Numeric fields are compared without boxing. As in SQLite, {@code null} strings are smaller
+ * than any other string, and other strings are compared by code point. Strings sorted by {@link
+ * Order#ASCENDING_NOCASE} or {@link Order#DESCENDING_NOCASE} are compared with a {@link Collator}
+ * for the default locale at the time the comparator was created, which is slow; {@link
+ * #sort(List)} computes the {@link CollationKey} of each of them once instead, and should be
+ * preferred to {@code list.sort(comparator)}.
+ *
+ * <p>Instances are immutable and can be used by several threads at the same time: since a {@link
+ * Collator} cannot, each thread compares localized strings with its own copy.
+ *
+ * @param <E> the type of the entities.
+ */
+public final class EntityComparator<E> implements Comparator<E> {
+  /** Returns the criterion sorting by a field in a given order. Implemented by generated code. */
+  public interface Criteria<E> {
+    /**
+     * @throws IllegalArgumentException if the field is not annotated with {@link SortCriterion}.
+     */
+    Criterion<E> get(Field<E> field, Order order);
+  }
+
+  /** A single sort criterion, created by generated code. */
+  public static final class Criterion<E> {
+    /** Compares fields that are not strings in ascending order, or null for strings. */
+    private final Comparator<E> mComparator;
+    /** Reads the string, or null. */
+    private final Function<E, String> mString;
+    private final boolean mLocalized;
+    private final boolean mDescending;
+
+    private Criterion(
+        Comparator<E> comparator,
+        Function<E, String> string,
+        boolean localized,
+        boolean descending) {
+      mComparator = comparator;
+      mString = string;
+      mLocalized = localized;
+      mDescending = descending;
+    }
+
+    private int compare(E a, E b, Collator collator) {
+      int result;
+      if (mComparator != null) {
+        result = mComparator.compare(a, b);
+      } else {
+        String first = mString.apply(a);
+        String second = mString.apply(b);
+        if (first == null || second == null) {
+          result = first == null ? (second == null ? 0 : -1) : 1;
+        } else {
+          result =
+              mLocalized
+                  ? collator.compare(first, second)
+                  : ColumnAccessor.compareStrings(first, second, false);
+        }
+      }
+      return mDescending ? -result : result;
+    }
+  }
+
+  /**
+   * Returns a criterion sorting by a field that is not a string.
+   *
+   * @param ascending a comparator that sorts in ascending order.
+   */
+  public static <E> Criterion<E> by(Comparator<E> ascending, Order order) {
+    return new Criterion<>(ascending, null, false, isDescending(order));
+  }
+
+  /** Returns a criterion sorting by a string field. */
+  public static <E> Criterion<E> byString(Function<E, String> getter, Order order) {
+    boolean localized = order == Order.ASCENDING_NOCASE || order == Order.DESCENDING_NOCASE;
+    return new Criterion<>(null, getter, localized, isDescending(order));
+  }
+
+  /**
+   * Returns a comparator that compares with {@code previous} first and, in case of a tie, with
+   * the given criterion. Unlike the ones returned by the {@code comparator} method of generated
+   * classes, comparators created this way cannot be extended with {@link #thenBy(Field, Order)}.
+   *
+   * @param previous the comparator for the sort criteria established so far, or {@code null}.
+   */
+  public static <E> EntityComparator<E> thenBy(EntityComparator<E> previous, Criterion<E> next) {
+    if (previous == null) {
+      return new EntityComparator<>(null, Collections.singletonList(next));
+    }
+    return previous.thenBy(next);
+  }
+
+  private static boolean isDescending(Order order) {
+    return order == Order.DESCENDING || order == Order.DESCENDING_NOCASE;
+  }
+
+  private final Criteria<E> mCriteria;
+  private final List<Criterion<E>> mCriterionList;
+  /** The locale of localized strings; null if there are none. */
+  private final Locale mLocale;
+  /** The collator used by each thread for localized strings; null if there are none. */
+  private final ThreadLocal<Collator> mCollator;
+
+  /** Creates a comparator sorting by the given field. */
+  public EntityComparator(Criteria<E> criteria, Field<E> field, Order order) {
+    this(criteria, Collections.singletonList(criteria.get(field, order)));
+  }
+
+  private EntityComparator(Criteria<E> criteria, List<Criterion<E>> criterionList) {
+    mCriteria = criteria;
+    mCriterionList = criterionList;
+    boolean localized = false;
+    for (Criterion<E> criterion : criterionList) {
+      localized |= criterion.mLocalized;
+    }
+    if (localized) {
+      final Locale locale = Locale.getDefault();
+      mLocale = locale;
+      mCollator = ThreadLocal.withInitial(() -> Collator.getInstance(locale));
+    } else {
+      mLocale = null;
+      mCollator = null;
+    }
+  }
+
+  /**
+   * Returns a comparator that compares with this one first and, in case of a tie, by the given
+   * field.
+   *
+   * @throws IllegalStateException if this comparator was created by {@link
+   *     #thenBy(EntityComparator, Criterion)}.
+   */
+  public EntityComparator<E> thenBy(Field<E> field, Order order) {
+    if (mCriteria == null) {
+      throw new IllegalStateException("This comparator cannot be extended by field.");
+    }
+    return thenBy(mCriteria.get(field, order));
+  }
+
+  private EntityComparator<E> thenBy(Criterion<E> next) {
+    List<Criterion<E>> criterionList = new ArrayList<>(mCriterionList.size() + 1);
+    criterionList.addAll(mCriterionList);
+    criterionList.add(next);
+    return new EntityComparator<>(mCriteria, Collections.unmodifiableList(criterionList));
+  }
+
+  @Override
+  public int compare(E a, E b) {
+    Collator collator = mCollator != null ? mCollator.get() : null;
+    for (int i = 0; i < mCriterionList.size(); ++i) {
+      int result = mCriterionList.get(i).compare(a, b, collator);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Sorts the given list with this comparator. The sort is stable.
+   *
+   * <p>Unlike {@code entities.sort(this)}, the localized strings of each entity are only processed
+   * by the {@link Collator} once.
+   */
+  public void sort(List<E> entities) {
+    if (mCollator == null || entities.size() < 2) {
+      entities.sort(this);
+      return;
+    }
+    Collator collator = Collator.getInstance(mLocale);
+    List<Row<E>> rows = new ArrayList<>(entities.size());
+    for (E entity : entities) {
+      CollationKey[] keys = new CollationKey[mCriterionList.size()];
+      for (int j = 0; j < keys.length; ++j) {
+        Criterion<E> criterion = mCriterionList.get(j);
+        if (criterion.mLocalized) {
+          String value = criterion.mString.apply(entity);
+          keys[j] = value == null ? null : collator.getCollationKey(value);
+        }
+      }
+      rows.add(new Row<>(entity, keys));
+    }
+    rows.sort(this::compareRows);
+    ListIterator<E> iterator = entities.listIterator();
+    for (Row<E> row : rows) {
+      iterator.next();
+      iterator.set(row.mEntity);
+    }
+  }
+
+  private int compareRows(Row<E> a, Row<E> b) {
+    for (int i = 0; i < mCriterionList.size(); ++i) {
+      Criterion<E> criterion = mCriterionList.get(i);
+      int result;
+      if (!criterion.mLocalized) {
+        result = criterion.compare(a.mEntity, b.mEntity, null);
+      } else {
+        CollationKey first = a.mKeys[i];
+        CollationKey second = b.mKeys[i];
+        if (first == null || second == null) {
+          result = first == null ? (second == null ? 0 : -1) : 1;
+        } else {
+          result = first.compareTo(second);
+        }
+        if (criterion.mDescending) {
+          result = -result;
+        }
+      }
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  private static final class Row<E> {
+    final E mEntity;
+    final CollationKey[] mKeys;
+
+    Row(E entity, CollationKey[] keys) {
+      mEntity = entity;
+      mKeys = keys;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Remembers the content providers which ignore an optional query argument, so that generated code
+ * stops requesting it from them instead of running a query whose results would be thrown away.
+ * This is used by generated code.
+ *
+ * <p>Providers are identified by the content resolver they are queried through (which is only
+ * weakly referenced) and the authority of their URIs.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class IgnoredArguments {
+  private static final Map<Object, Set<List<String>>> IGNORED = new WeakHashMap<>();
+
+  private IgnoredArguments() {
+    throw new UnsupportedOperationException();
+  }
+
+  /** Whether the provider has been found to ignore the given argument. */
+  public static synchronized boolean isIgnored(
+      Object contentResolver, String authority, String argument) {
+    Set<List<String>> ignored = IGNORED.get(contentResolver);
+    return ignored != null && ignored.contains(Arrays.asList(authority, argument));
+  }
+
+  /** Remembers that the provider ignores the given argument. */
+  public static synchronized void setIgnored(
+      Object contentResolver, String authority, String argument) {
+    Set<List<String>> ignored = IGNORED.get(contentResolver);
+    if (ignored == null) {
+      ignored = new HashSet<>();
+      IGNORED.put(contentResolver, ignored);
+    }
+    ignored.add(Arrays.asList(authority, argument));
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.AbstractList;
+import java.util.function.Supplier;
+
+/**
+ * A {@link CloseableList} that runs its query the first time it is accessed. This is used by
+ * generated code.
+ *
+ * <p>The query is run by the first call to {@link #size()}, {@link #get(int)}, {@link #get(int,
+ * Object)} or any method relying on them, such as {@link #iterator()}. A list that is closed (or
+ * dropped) before that never reaches the content provider.
+ *
+ * <p>Like the lists it wraps, this class is not thread-safe.
+ *
+ * @param <E> the type of the entities.
+ */
+public final class LazyList<E> extends AbstractList<E> implements CloseableList<E> {
+  private Supplier<? extends CloseableList<E>> mQuery;
+  private CloseableList<E> mList;
+  private boolean mClosed;
+
+  /** @param query runs the query, and returns its result. */
+  public LazyList(Supplier<? extends CloseableList<E>> query) {
+    mQuery = query;
+  }
+
+  /** Returns true if the query has already been run. */
+  public boolean isExecuted() {
+    return mList != null;
+  }
+
+  private CloseableList<E> list() {
+    if (mClosed) {
+      throw new IllegalStateException("The list has been closed.");
+    }
+    if (mList == null) {
+      mList = mQuery.get();
+      mQuery = null;
+    }
+    return mList;
+  }
+
+  @Override
+  public int size() {
+    return list().size();
+  }
+
+  @Override
+  public E get(int index) {
+    return list().get(index);
+  }
+
+  @Override
+  public E get(int index, E e) {
+    return list().get(index, e);
+  }
+
+  @Override
+  public void close() {
+    mClosed = true;
+    mQuery = null;
+    if (mList != null) {
+      mList.close();
+    }
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Re-runs a query whenever the content provider notifies a change, and hands the results to a
+ * listener. Instances are created by the {@code observe()} method of generated queries, which
+ * registers a {@code ContentObserver} calling {@link #onChange()}.
+ *
+ * <p>Notifications are coalesced: the first one schedules the query to run once the window has
+ * elapsed, and the ones received until it runs are absorbed by that run. Notifications received
+ * while the query is running schedule a single new run, one window later. A storm of
+ * notifications therefore runs the query at most once per window, and the last notification is
+ * always followed by a run.
+ *
+ * <p>The query runs on a background thread, on which the listener is called too. The listener is
+ * called with the first results, and then only when the results have changed, which is checked by
+ * comparing the fingerprints of the entities (see {@link
+ * tech.darkespresso.hellbinder.annotations.Fingerprint}); without fingerprints, it is called after
+ * every run.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @param <E> the type of the entities.
+ */
+public final class LiveQuery<E> implements Closeable {
+  private static final ScheduledThreadPoolExecutor SCHEDULER;
+
+  static {
+    AtomicInteger count = new AtomicInteger();
+    SCHEDULER =
+        new ScheduledThreadPoolExecutor(
+            Workers.parallelism(),
+            r -> {
+              Thread thread = new Thread(r, "hellbinder-live-" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    SCHEDULER.setKeepAliveTime(30, TimeUnit.SECONDS);
+    SCHEDULER.allowCoreThreadTimeOut(true);
+    SCHEDULER.setRemoveOnCancelPolicy(true);
+  }
+
+  /** Receives the results of a {@link LiveQuery}. */
+  public interface Listener<E> {
+    /** Called with the entities satisfying the query, on a background thread. */
+    void onChanged(List<E> entities);
+
+    /**
+     * Called if the query fails, on a background thread. The live query keeps observing changes.
+     * By default, the exception is logged; listeners wishing to fail loudly instead may override
+     * this to call {@link #rethrow(RuntimeException)}.
+     */
+    default void onError(RuntimeException e) {
+      Logger.getLogger(LiveQuery.class.getName()).log(Level.WARNING, "Live query failed", e);
+    }
+
+    /**
+     * Hands the exception to the uncaught exception handler of the current thread, which on
+     * Android kills the process. Throwing from {@link #onError(RuntimeException)} would not do
+     * this, as the exception would be swallowed by the executor running the query.
+     */
+    static void rethrow(RuntimeException e) {
+      Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+  }
+
+  private final Supplier<List<E>> mQuery;
+  private final ToLongFunction<? super E> mFingerprint;
+  private final long mWindowMillis;
+  private final Listener<E> mListener;
+
+  private Runnable mUnregister;
+  private ScheduledFuture<?> mScheduled;
+  private boolean mRunning;
+  /** Whether a change was notified while the query was running. */
+  private boolean mDirty;
+  private boolean mClosed;
+  private boolean mDelivered;
+  private long mLastFingerprint;
+
+  /**
+   * @param query runs the query, and returns all of its results.
+   * @param fingerprint returns the fingerprint of an entity, or null if entities have none.
+   * @param windowMillis the time during which notifications are coalesced.
+   * @param listener receives the results.
+   */
+  public LiveQuery(
+      Supplier<List<E>> query,
+      ToLongFunction<? super E> fingerprint,
+      long windowMillis,
+      Listener<E> listener) {
+    if (windowMillis < 0) {
+      throw new IllegalArgumentException("The window cannot be negative: " + windowMillis);
+    }
+    mQuery = query;
+    mFingerprint = fingerprint;
+    mWindowMillis = windowMillis;
+    mListener = listener;
+  }
+
+  /**
+   * Runs the query for the first time. This must be called once the observer is registered, so
+   * that no change can be missed.
+   *
+   * @param unregister unregisters the observer, when this live query is closed.
+   */
+  public synchronized void start(Runnable unregister) {
+    mUnregister = unregister;
+    mScheduled = SCHEDULER.schedule(this::run, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /** Notifies a change of the content observed by the query. */
+  public synchronized void onChange() {
+    if (mClosed) {
+      return;
+    }
+    if (mRunning) {
+      mDirty = true;
+    } else if (mScheduled == null) {
+      mScheduled = SCHEDULER.schedule(this::run, mWindowMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** Stops observing changes. The listener is not called anymore, unless it is being called. */
+  @Override
+  public void close() {
+    Runnable unregister;
+    synchronized (this) {
+      if (mClosed) {
+        return;
+      }
+      mClosed = true;
+      if (mScheduled != null) {
+        mScheduled.cancel(false);
+        mScheduled = null;
+      }
+      unregister = mUnregister;
+    }
+    if (unregister != null) {
+      unregister.run();
+    }
+  }
+
+  private void run() {
+    synchronized (this) {
+      if (mClosed) {
+        return;
+      }
+      mScheduled = null;
+      mRunning = true;
+      mDirty = false;
+    }
+    try {
+      List<E> entities = mQuery.get();
+      if (hasChanged(entities) && !isClosed()) {
+        mListener.onChanged(entities);
+      }
+    } catch (RuntimeException e) {
+      mListener.onError(e);
+    } finally {
+      synchronized (this) {
+        mRunning = false;
+        if (mDirty && !mClosed) {
+          mDirty = false;
+          mScheduled = SCHEDULER.schedule(this::run, mWindowMillis, TimeUnit.MILLISECONDS);
+        }
+      }
+    }
+  }
+
+  private synchronized boolean isClosed() {
+    return mClosed;
+  }
+
+  /** Whether the results must be delivered. Only called by the thread running the query. */
+  private boolean hasChanged(List<E> entities) {
+    if (mFingerprint == null) {
+      return true;
+    }
+    long fingerprint = RowDiff.mix(RowDiff.SEED, entities.size());
+    for (E entity : entities) {
+      fingerprint = RowDiff.mix(fingerprint, mFingerprint.applyAsLong(entity));
+    }
+    boolean changed = !mDelivered || fingerprint != mLastFingerprint;
+    mDelivered = true;
+    mLastFingerprint = fingerprint;
+    return changed;
+  }
+}
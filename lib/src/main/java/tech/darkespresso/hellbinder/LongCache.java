@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size cache from {@code long} keys to objects, which does not box the keys. This is used
+ * by generated code to remember the URIs built from a single {@code long} or {@code int}
+ * parameter.
+ *
+ * <p>Each key can only be stored in one slot, so a key evicts whichever entry previously hashed to
+ * the same slot. Lookups and insertions are constant-time and never allocate.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @param <V> the type of the values.
+ */
+public final class LongCache<V> {
+  private final long[] mKeys;
+  private final Object[] mValues;
+  private final int mMask;
+
+  /** @param capacity the maximum number of entries, rounded up to a power of two. */
+  public LongCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    int size = Integer.highestOneBit(capacity * 2 - 1);
+    mKeys = new long[size];
+    mValues = new Object[size];
+    mMask = size - 1;
+  }
+
+  /** Returns the value stored for the given key, or {@code null} if it is not cached. */
+  @SuppressWarnings("unchecked")
+  public synchronized V get(long key) {
+    int slot = LongIntMap.hash(key) & mMask;
+    return mKeys[slot] == key ? (V) mValues[slot] : null;
+  }
+
+  /** Stores a value for the given key, evicting the entry that occupied its slot, if any. */
+  public synchronized void put(long key, V value) {
+    int slot = LongIntMap.hash(key) & mMask;
+    mKeys[slot] = key;
+    mValues[slot] = value;
+  }
+
+  /** Removes all the entries. */
+  public synchronized void clear() {
+    Arrays.fill(mValues, null);
+  }
+}
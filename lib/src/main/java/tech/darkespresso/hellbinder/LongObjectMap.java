@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.Arrays;
+
+/**
+ * A map from {@code long} keys to objects, which does not box the keys.
+ *
+ * <p>Entries are kept in insertion order, and can be iterated with {@link #keyAt(int)} and {@link
+ * #valueAt(int)} for indices from 0 to {@link #size()} - 1. Entries cannot be removed.
+ *
+ * <p>This class is not thread-safe.
+ *
+ * @param <E> the type of the values.
+ */
+public final class LongObjectMap<E> {
+  private long[] mKeys;
+  private Object[] mValues;
+  private int mSize;
+  /** Open-addressing hash table of indices into mKeys, plus one: 0 marks an empty slot. */
+  private int[] mTable;
+
+  public LongObjectMap() {
+    this(8);
+  }
+
+  /** @param expectedSize the number of entries that can be added before growing. */
+  public LongObjectMap(int expectedSize) {
+    int capacity = Math.max(expectedSize, 4);
+    mKeys = new long[capacity];
+    mValues = new Object[capacity];
+    mTable = new int[tableSizeFor(capacity)];
+  }
+
+  private static int tableSizeFor(int capacity) {
+    // Keeps the load factor at most 1/2.
+    return Integer.highestOneBit(capacity * 2 - 1) * 2;
+  }
+
+  /** Returns the number of entries. */
+  public int size() {
+    return mSize;
+  }
+
+  /** Returns the insertion index of the given key, or -1 if it is not in the map. */
+  public int indexOfKey(long key) {
+    int mask = mTable.length - 1;
+    for (int slot = LongIntMap.hash(key) & mask; mTable[slot] != 0; slot = (slot + 1) & mask) {
+      int index = mTable[slot] - 1;
+      if (mKeys[index] == key) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  public boolean containsKey(long key) {
+    return indexOfKey(key) >= 0;
+  }
+
+  /** Returns the value associated with the given key, or null if there is none. */
+  public E get(long key) {
+    int index = indexOfKey(key);
+    return index < 0 ? null : valueAt(index);
+  }
+
+  /** Associates the given value with the given key, and returns the previous value, if any. */
+  public E put(long key, E value) {
+    // The index must be computed first, as inserting may replace mValues.
+    int index = indexForInsertion(key);
+    E previous = valueAt(index);
+    mValues[index] = value;
+    return previous;
+  }
+
+  public long keyAt(int index) {
+    checkIndex(index);
+    return mKeys[index];
+  }
+
+  @SuppressWarnings("unchecked")
+  public E valueAt(int index) {
+    checkIndex(index);
+    return (E) mValues[index];
+  }
+
+  /** Returns a new array containing all keys, in insertion order. */
+  public long[] keys() {
+    return Arrays.copyOf(mKeys, mSize);
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException();
+    }
+  }
+
+  private int indexForInsertion(long key) {
+    int mask = mTable.length - 1;
+    int slot = LongIntMap.hash(key) & mask;
+    for (; mTable[slot] != 0; slot = (slot + 1) & mask) {
+      int index = mTable[slot] - 1;
+      if (mKeys[index] == key) {
+        return index;
+      }
+    }
+    if (mSize == mKeys.length) {
+      grow();
+      return indexForInsertion(key);
+    }
+    mKeys[mSize] = key;
+    mValues[mSize] = null;
+    mTable[slot] = ++mSize;
+    return mSize - 1;
+  }
+
+  private void grow() {
+    int capacity = mKeys.length * 2;
+    mKeys = Arrays.copyOf(mKeys, capacity);
+    mValues = Arrays.copyOf(mValues, capacity);
+    mTable = new int[tableSizeFor(capacity)];
+    int mask = mTable.length - 1;
+    for (int index = 0; index < mSize; ++index) {
+      int slot = LongIntMap.hash(mKeys[index]) & mask;
+      while (mTable[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      mTable[slot] = index + 1;
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("{");
+    for (int i = 0; i < mSize; ++i) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(mKeys[i]).append('=').append(mValues[i]);
+    }
+    return builder.append('}').toString();
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tech.darkespresso.hellbinder;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A {@link CloseableList} that merges several lists, each of which is already sorted according to
+ * the same comparator, into a single sorted list.
+ *
+ * <p>The merge is performed lazily, as the elements are requested, by keeping the head of every
+ * list in a heap. Only the position of each merged element is stored: elements are bound again by
+ * the underlying lists when they are retrieved. If no comparator is given, the lists are simply
+ * concatenated.
+ *
+ * @param <E> Any class annotated with {@link
+ *     tech.darkespresso.hellbinder.annotations.ContentProviderEntity ContentProviderEntity}
+ */
+public final class MergedList<E> extends AbstractList<E> implements CloseableList<E> {
+  private final List<CloseableList<E>> mParts;
+  private final Comparator<? super E> mComparator;
+  private final int[] mOffsets;
+  private final int mSize;
+
+  // Only used when merging.
+  private int[] mPart;
+  private int[] mPosition;
+  private int mMerged;
+  private int[] mNext;
+  private E[] mHeads;
+  private int[] mHeap;
+  private int mHeapSize;
+
+  private MergedList(List<? extends CloseableList<E>> parts, Comparator<? super E> comparator) {
+    mParts = new ArrayList<>(parts);
+    mComparator = comparator;
+    mOffsets = new int[mParts.size() + 1];
+    for (int i = 0; i < mParts.size(); ++i) {
+      mOffsets[i + 1] = mOffsets[i] + mParts.get(i).size();
+    }
+    mSize = mOffsets[mParts.size()];
+  }
+
+  /**
+   * Runs the given queries concurrently and merges their results.
+   *
+   * <p>If any of the queries fails, the lists that were already obtained are closed.
+   *
+   * @param shards the queries to run, one per shard.
+   * @param comparator the comparator according to which every shard's results are sorted, or
+   *     {@code null} if they are not sorted.
+   * @return a list containing the results of every shard, sorted according to {@code comparator}
+   *     or, if there is no comparator, in the order of the shards.
+   */
+  public static <E> MergedList<E> fanOut(
+      List<? extends Callable<? extends CloseableList<E>>> shards,
+      Comparator<? super E> comparator) {
+    List<CloseableList<E>> parts = Workers.invokeAll(shards);
+    try {
+      return new MergedList<>(parts, comparator);
+    } catch (RuntimeException | Error e) {
+      for (CloseableList<E> part : parts) {
+        Workers.closeQuietly(part);
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public int size() {
+    return mSize;
+  }
+
+  @Override
+  public E get(int index) {
+    return get(index, null);
+  }
+
+  @Override
+  public E get(int index, E e) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (mComparator == null) {
+      int part = Arrays.binarySearch(mOffsets, index);
+      // Skip empty parts: the element lives in the last part starting at this offset.
+      if (part >= 0) {
+        while (mOffsets[part + 1] == index) {
+          ++part;
+        }
+      } else {
+        part = -part - 2;
+      }
+      return mParts.get(part).get(index - mOffsets[part], e);
+    }
+    mergeUpTo(index);
+    return mParts.get(mPart[index]).get(mPosition[index], e);
+  }
+
+  @Override
+  public void close() {
+    for (CloseableList<E> part : mParts) {
+      part.close();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void mergeUpTo(int index) {
+    if (mPart == null) {
+      mPart = new int[mSize];
+      mPosition = new int[mSize];
+      mNext = new int[mParts.size()];
+      mHeads = (E[]) new Object[mParts.size()];
+      mHeap = new int[mParts.size()];
+      for (int part = 0; part < mParts.size(); ++part) {
+        if (mParts.get(part).size() > 0) {
+          mHeads[part] = mParts.get(part).get(0, null);
+          mHeap[mHeapSize++] = part;
+          siftUp(mHeapSize - 1);
+        }
+      }
+    }
+    while (mMerged <= index) {
+      int part = mHeap[0];
+      mPart[mMerged] = part;
+      mPosition[mMerged] = mNext[part]++;
+      ++mMerged;
+      if (mNext[part] < mParts.get(part).size()) {
+        // Reuse the instance holding the previous head.
+        mHeads[part] = mParts.get(part).get(mNext[part], mHeads[part]);
+      } else {
+        mHeads[part] = null;
+        mHeap[0] = mHeap[--mHeapSize];
+      }
+      siftDown(0);
+    }
+  }
+
+  private boolean less(int a, int b) {
+    int result = mComparator.compare(mHeads[a], mHeads[b]);
+    // Ties are broken by the order of the shards, which keeps the merge stable.
+    return result < 0 || (result == 0 && a < b);
+  }
+
+  private void siftUp(int i) {
+    while (i > 0) {
+      int parent = (i - 1) / 2;
+      if (!less(mHeap[i], mHeap[parent])) {
+        break;
+      }
+      swap(i, parent);
+      i = parent;
+    }
+  }
+
+  private void siftDown(int i) {
+    while (true) {
+      int smallest = i;
+      int left = 2 * i + 1;
+      int right = left + 1;
+      if (left < mHeapSize && less(mHeap[left], mHeap[smallest])) {
+        smallest = left;
+      }
+      if (right < mHeapSize && less(mHeap[right], mHeap[smallest])) {
+        smallest = right;
+      }
+      if (smallest == i) {
+        return;
+      }
+      swap(i, smallest);
+      i = smallest;
+    }
+  }
+
+  private void swap(int i, int j) {
+    int tmp = mHeap[i];
+    mHeap[i] = mHeap[j];
+    mHeap[j] = tmp;
+  }
+}
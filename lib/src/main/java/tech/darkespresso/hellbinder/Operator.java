@@ -25,7 +25,25 @@
 
 package tech.darkespresso.hellbinder;
 
-/** An enum with the possible operators for the constraints. */
+import java.util.List;
+
+/**
+ * An enum with the possible operators for the constraints.
+ *
+ * <p>{@link #IN} and {@link #NOT_IN} are meant to be used with a {@link Subquery}; given a single
+ * value, they behave like {@link #EQ} and {@link #NE}.
+ *
+ * <p>{@link #BETWEEN} takes two values, the bounds of an inclusive range, and no other operator
+ * does.
+ *
+ * <p>{@link #STARTS_WITH} and {@link #EQ_NOCASE} are meant for text columns, and are rendered so
+ * that the provider can still use an index on the column: {@code STARTS_WITH} becomes the range
+ * {@code col >= ? AND col < ?}, whose upper bound is the prefix with its last character
+ * incremented, rather than {@code col LIKE 'prefix%'}; {@code EQ_NOCASE} becomes {@code col = ?
+ * COLLATE NOCASE}, rather than {@code lower(col) = ?}. The range follows the collation of the
+ * column, so it is case sensitive unless the column is declared with {@code COLLATE NOCASE}.
+ * Constraints on numeric fields reject them.
+ */
 public enum Operator {
   EQ("="),
   NE("<>"),
@@ -33,7 +51,12 @@ public enum Operator {
   LE("<="),
   GT(">"),
   GE(">="),
-  LIKE("LIKE");
+  LIKE("LIKE"),
+  IN("IN"),
+  NOT_IN("NOT IN"),
+  BETWEEN("BETWEEN"),
+  STARTS_WITH("STARTS WITH"),
+  EQ_NOCASE("= COLLATE NOCASE");
 
   private final String representation;
 
@@ -41,6 +64,105 @@ public enum Operator {
     this.representation = representation;
   }
 
+  /** Returns true if this operator only applies to text columns. */
+  public boolean isTextual() {
+    return this == STARTS_WITH || this == EQ_NOCASE;
+  }
+
+  /**
+   * Appends to {@code query} the SQL expression comparing the given column with a value, and
+   * appends to {@code args} the arguments for its placeholders.
+   *
+   * @throws IllegalArgumentException if this is {@link #BETWEEN}.
+   */
+  public void apply(StringBuilder query, List<String> args, String column, String value) {
+    switch (this) {
+      case BETWEEN:
+        throw new IllegalArgumentException(name() + " takes two values");
+      case IN:
+      case NOT_IN:
+        query.append(column).append(' ').append(representation).append(" (?)");
+        args.add(value);
+        break;
+      case STARTS_WITH:
+        String upperBound = upperBound(value);
+        if (upperBound == null) {
+          query.append(column).append(" >= ?");
+          args.add(value);
+        } else {
+          query.append('(').append(column).append(" >= ? AND ").append(column).append(" < ?)");
+          args.add(value);
+          args.add(upperBound);
+        }
+        break;
+      case EQ_NOCASE:
+        query.append(column).append(" = ? COLLATE NOCASE");
+        args.add(value);
+        break;
+      default:
+        query.append(column).append(' ').append(representation).append(" ?");
+        args.add(value);
+    }
+  }
+
+  /**
+   * Appends to {@code query} the SQL expression checking that the given column lies between two
+   * values, both included, and appends to {@code args} the arguments for its placeholders.
+   *
+   * @throws IllegalArgumentException if this is not {@link #BETWEEN}.
+   */
+  public void apply(
+      StringBuilder query, List<String> args, String column, String lower, String upper) {
+    if (this != BETWEEN) {
+      throw new IllegalArgumentException(name() + " takes a single value");
+    }
+    query.append(column).append(" BETWEEN ? AND ?");
+    args.add(lower);
+    args.add(upper);
+  }
+
+  /**
+   * Appends to {@code query} the SQL expression comparing the given column with the result of a
+   * subquery, and appends to {@code args} the arguments of the subquery.
+   *
+   * @throws IllegalArgumentException if this is {@link #BETWEEN}, {@link #STARTS_WITH} or {@link
+   *     #EQ_NOCASE}.
+   */
+  public void apply(StringBuilder query, List<String> args, String column, Subquery subquery) {
+    if (this == BETWEEN || isTextual()) {
+      throw new IllegalArgumentException(name() + " cannot take a subquery");
+    }
+    query
+        .append(column)
+        .append(' ')
+        .append(representation)
+        .append(" (")
+        .append(subquery.getSql())
+        .append(')');
+    args.addAll(subquery.getArgs());
+  }
+
+  /**
+   * Returns the smallest string greater than all strings starting with {@code prefix}, or null if
+   * there is none. Code points are compared, as SQLite compares UTF-8 strings byte by byte.
+   */
+  static String upperBound(String prefix) {
+    int end = prefix.length();
+    while (end > 0) {
+      int last = prefix.codePointBefore(end);
+      int start = end - Character.charCount(last);
+      if (last != Character.MAX_CODE_POINT) {
+        int next = last + 1;
+        if (next >= Character.MIN_SURROGATE && next <= Character.MAX_SURROGATE) {
+          next = Character.MAX_SURROGATE + 1;
+        }
+        return new StringBuilder(prefix.substring(0, start)).appendCodePoint(next).toString();
+      }
+      end = start;
+    }
+    return null;
+  }
+
   @Override
   public String toString() {
     return representation;
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+/** Runs several independent queries at the same time. */
+public final class Queries {
+  private Queries() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Runs all of the queries concurrently, and returns once all of them have completed.
+   *
+   * <p>The queries run on a small shared pool of threads, so the time taken is roughly that of the
+   * slowest query rather than the sum of all of them. If any query fails, or the calling thread is
+   * interrupted while waiting, all the lists that were already obtained are closed before
+   * returning.
+   *
+   * <pre>{@code
+   * try (Queries.Results results = Queries.all(contentResolver, accounts, messages)) {
+   *   CloseableList<Account> a = results.get(accounts);
+   *   CloseableList<Message> m = results.get(messages);
+   *   ...
+   * }
+   * }</pre>
+   *
+   * @param contentResolver the content resolver passed to each {@link QueryExecutor#get
+   *     QueryExecutor.get()}.
+   * @param queries the queries to run.
+   * @return the results of the queries, in the same order. Closing it closes all of them.
+   * @throws CancellationException if the calling thread was interrupted. Its interrupt flag is
+   *     set again before throwing.
+   * @throws RuntimeException the exception thrown by the first query that failed.
+   */
+  @SafeVarargs
+  public static <R> Results all(R contentResolver, QueryExecutor<?, ? super R>... queries) {
+    // @SafeVarargs only holds because the array itself never escapes: the queries are copied.
+    List<QueryExecutor<?, ?>> executors = new ArrayList<>(queries.length);
+    List<Callable<CloseableList<?>>> tasks = new ArrayList<>(queries.length);
+    for (QueryExecutor<?, ? super R> query : queries) {
+      executors.add(query);
+      tasks.add(() -> query.get(contentResolver));
+    }
+    return new Results(executors, Workers.invokeAll(tasks));
+  }
+
+  /** The lists returned by a group of queries run with {@link #all}. */
+  public static final class Results implements AutoCloseable {
+    private final List<QueryExecutor<?, ?>> mQueries;
+    private final List<CloseableList<?>> mLists;
+
+    private Results(List<QueryExecutor<?, ?>> queries, List<CloseableList<?>> lists) {
+      mQueries = queries;
+      mLists = lists;
+    }
+
+    /** Returns the number of queries. */
+    public int size() {
+      return mLists.size();
+    }
+
+    /** Returns the list obtained by the index-th query passed to {@link #all}. */
+    public CloseableList<?> get(int index) {
+      return mLists.get(index);
+    }
+
+    /**
+     * Returns the list obtained by the given query.
+     *
+     * @throws IllegalArgumentException if the query was not passed to {@link #all}.
+     */
+    public <E> CloseableList<E> get(QueryExecutor<E, ?> query) {
+      for (int i = 0; i < mQueries.size(); ++i) {
+        if (mQueries.get(i) == query) {
+          @SuppressWarnings("unchecked")
+          CloseableList<E> list = (CloseableList<E>) mLists.get(i);
+          return list;
+        }
+      }
+      throw new IllegalArgumentException("Unknown query.");
+    }
+
+    /** Closes all of the lists. */
+    @Override
+    public void close() {
+      for (CloseableList<?> list : mLists) {
+        Workers.closeQuietly(list);
+      }
+    }
+  }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.lang.ref.WeakReference;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An iterator over a {@link CloseableList} whose elements are read by a background thread ahead of
+ * the consumer. This is used by generated code.
+ *
+ * <p>The producer thread binds rows into a fixed ring of entities, so that moving the cursor and
+ * reading its columns overlaps with whatever the consumer does with the previous rows. Entities are
+ * recycled: the object returned by {@link #next()} is only valid until the following call to
+ * {@link #next()} or {@link #close()}. The list is closed by the producer as soon as the last row
+ * has been read, and in any case before {@link #close()} returns.
+ *
+ * <p>{@link #close()} must be called if the iteration stops early: until then, the producer waits
+ * for the consumer with the list open. As a safety net, a producer whose iterator has been garbage
+ * collected closes the list and stops, but that may happen much later, or never.
+ *
+ * @param <E> the type of the entities.
+ */
+public final class ReadAheadIterator<E> implements CloseableIterator<E> {
+  /** How long a waiting producer sleeps before checking whether its iterator is still in use. */
+  private static final long ABANDONED_CHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  /**
+   * The state shared by the producer and the consumer. The producer only holds a weak reference to
+   * the iterator, so that an abandoned iterator can be collected.
+   */
+  private final Ring<E> mRing;
+
+  /**
+   * @param list the list to read. It will be closed by this iterator.
+   * @param capacity the maximum number of rows read ahead of the consumer.
+   * @throws IllegalArgumentException if {@code capacity} is less than 1.
+   */
+  public ReadAheadIterator(CloseableList<E> list, int capacity) {
+    if (capacity < 1) {
+      list.close();
+      throw new IllegalArgumentException("The capacity must be positive.");
+    }
+    mRing = new Ring<>(list, capacity, new WeakReference<>(this));
+  }
+
+  @Override
+  public boolean hasNext() {
+    return mRing.hasNext();
+  }
+
+  @Override
+  public E next() {
+    return mRing.next();
+  }
+
+  /** Stops the producer, and waits until the list has been closed. */
+  @Override
+  public void close() {
+    mRing.close();
+  }
+
+  private static final class Ring<E> {
+    private final CloseableList<E> mList;
+    private final int mSize;
+    private final Object[] mSlots;
+    private final WeakReference<?> mOwner;
+    private final Thread mProducer;
+    private volatile Thread mConsumer;
+
+    /** The number of rows bound by the producer. */
+    private volatile int mProduced;
+    /** The number of rows the consumer is done with, whose slots can be reused. */
+    private volatile int mReleased;
+
+    private volatile boolean mProducerWaiting;
+    private volatile boolean mConsumerWaiting;
+    private volatile boolean mClosed;
+    private volatile Throwable mFailure;
+
+    /** The index of the next row returned by {@link #next()}. Only accessed by the consumer. */
+    private int mNext;
+
+    Ring(CloseableList<E> list, int capacity, WeakReference<?> owner) {
+      mList = list;
+      mSize = list.size();
+      // One more slot for the entity the consumer is holding.
+      mSlots = new Object[capacity + 1];
+      mOwner = owner;
+      mProducer = new Thread(this::produce, "hellbinder-read-ahead");
+      mProducer.setDaemon(true);
+      mProducer.start();
+    }
+
+    private void produce() {
+      try {
+        for (int i = 0; i < mSize; ++i) {
+          if (i - mReleased >= mSlots.length) {
+            mProducerWaiting = true;
+            while (!mClosed && i - mReleased >= mSlots.length) {
+              LockSupport.parkNanos(this, ABANDONED_CHECK_NANOS);
+              if (mOwner.get() == null) {
+                // Nobody can call next() or close() anymore.
+                mClosed = true;
+              }
+            }
+            mProducerWaiting = false;
+          }
+          if (mClosed) {
+            return;
+          }
+          int slot = i % mSlots.length;
+          @SuppressWarnings("unchecked")
+          E entity = (E) mSlots[slot];
+          mSlots[slot] = mList.get(i, entity);
+          mProduced = i + 1;
+          if (mConsumerWaiting) {
+            LockSupport.unpark(mConsumer);
+          }
+        }
+      } catch (Throwable t) {
+        mFailure = t;
+        LockSupport.unpark(mConsumer);
+      } finally {
+        mList.close();
+      }
+    }
+
+    boolean hasNext() {
+      return !mClosed && mNext < mSize;
+    }
+
+    E next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      mReleased = mNext;
+      if (mProducerWaiting) {
+        LockSupport.unpark(mProducer);
+      }
+      if (mProduced <= mNext) {
+        mConsumer = Thread.currentThread();
+        mConsumerWaiting = true;
+        while (mProduced <= mNext && mFailure == null) {
+          LockSupport.park(this);
+        }
+        mConsumerWaiting = false;
+      }
+      if (mProduced <= mNext) {
+        // The rows read before the failure have all been returned.
+        Throwable failure = mFailure;
+        close();
+        if (failure instanceof Error) {
+          throw (Error) failure;
+        }
+        throw failure instanceof RuntimeException
+            ? (RuntimeException) failure
+            : new RuntimeException(failure);
+      }
+      @SuppressWarnings("unchecked")
+      E entity = (E) mSlots[mNext % mSlots.length];
+      ++mNext;
+      return entity;
+    }
+
+    void close() {
+      mClosed = true;
+      LockSupport.unpark(mProducer);
+      boolean interrupted = false;
+      while (mProducer.isAlive()) {
+        try {
+          mProducer.join();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Computes the differences between two lists of entities sorted by id, using the fingerprints that
+ * generated code stores in fields annotated with {@link
+ * tech.darkespresso.hellbinder.annotations.Fingerprint} rather than comparing every field.
+ *
+ * <p>{@link #diff} walks both lists once, side by side, and reports the rows that were inserted,
+ * removed or changed as ranges of positions. The positions take the previous operations into
+ * account, so that applying the operations in order to the old list yields the new one, as
+ * expected by {@code RecyclerView.Adapter.notifyItemRange...()}. As both lists are sorted by id,
+ * the rows that are in both lists are in the same order, and none of them ever moves.
+ */
+public final class RowDiff {
+  /** The fingerprint of a row without any column, which generated code then {@link #mix}es. */
+  public static final long SEED = 0x84222325cbf29ce4L;
+
+  private static final long NULL_STRING = 0x6a09e667f3bcc908L;
+
+  /** Receives the operations turning the old list into the new one. */
+  public interface Callback {
+    void onInserted(int position, int count);
+
+    void onRemoved(int position, int count);
+
+    void onChanged(int position, int count);
+  }
+
+  private static final int NONE = 0;
+  private static final int INSERTED = 1;
+  private static final int REMOVED = 2;
+  private static final int CHANGED = 3;
+
+  private RowDiff() {
+    throw new UnsupportedOperationException();
+  }
+
+  /** Returns the fingerprint of a row whose next column holds {@code value}. */
+  public static long mix(long fingerprint, long value) {
+    value *= 0x9e3779b97f4a7c15L;
+    value ^= value >>> 29;
+    return (fingerprint ^ value) * 0xbf58476d1ce4e5b9L + 0x94d049bb133111ebL;
+  }
+
+  /** Returns the fingerprint of a row whose next column holds {@code value}. */
+  public static long mix(long fingerprint, double value) {
+    return mix(fingerprint, Double.doubleToLongBits(value));
+  }
+
+  /** Returns the fingerprint of a row whose next column holds {@code value}, which may be null. */
+  public static long mix(long fingerprint, String value) {
+    if (value == null) {
+      return mix(fingerprint, NULL_STRING);
+    }
+    long hash = value.length();
+    for (int i = 0; i < value.length(); ++i) {
+      hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+    }
+    return mix(fingerprint, hash);
+  }
+
+  /**
+   * Reports to the callback the operations turning {@code oldList} into {@code newList}. Rows with
+   * the same id and different fingerprints are reported as changed.
+   *
+   * @throws IllegalArgumentException if a list is not sorted by strictly increasing ids.
+   */
+  public static <E> void diff(
+      List<E> oldList,
+      List<E> newList,
+      ToLongFunction<? super E> id,
+      ToLongFunction<? super E> fingerprint,
+      Callback callback) {
+    Batch batch = new Batch(callback);
+    int i = 0;
+    int j = 0;
+    long oldId = oldList.isEmpty() ? 0 : id.applyAsLong(oldList.get(0));
+    long newId = newList.isEmpty() ? 0 : id.applyAsLong(newList.get(0));
+    while (i < oldList.size() || j < newList.size()) {
+      int order;
+      if (i == oldList.size()) {
+        order = 1;
+      } else if (j == newList.size()) {
+        order = -1;
+      } else {
+        order = Long.compare(oldId, newId);
+      }
+      // j is the position of the current row in the list being turned into newList.
+      if (order < 0) {
+        batch.add(REMOVED, j);
+        oldId = nextId(oldList, ++i, id, oldId);
+      } else if (order > 0) {
+        batch.add(INSERTED, j);
+        newId = nextId(newList, ++j, id, newId);
+      } else {
+        if (fingerprint.applyAsLong(oldList.get(i)) != fingerprint.applyAsLong(newList.get(j))) {
+          batch.add(CHANGED, j);
+        }
+        oldId = nextId(oldList, ++i, id, oldId);
+        newId = nextId(newList, ++j, id, newId);
+      }
+    }
+    batch.flush();
+  }
+
+  /** Returns the id at the given index, checking that it follows the previous one. */
+  private static <E> long nextId(
+      List<E> list, int index, ToLongFunction<? super E> id, long previous) {
+    if (index == list.size()) {
+      return previous;
+    }
+    long next = id.applyAsLong(list.get(index));
+    if (next <= previous) {
+      throw new IllegalArgumentException("Lists must be sorted by increasing ids: " + next);
+    }
+    return next;
+  }
+
+  /** Merges consecutive operations of the same kind into ranges. */
+  private static final class Batch {
+    private final Callback mCallback;
+    private int mKind = NONE;
+    private int mPosition;
+    private int mCount;
+
+    Batch(Callback callback) {
+      mCallback = callback;
+    }
+
+    void add(int kind, int position) {
+      // Removed rows all leave the same position, inserted and changed rows follow each other.
+      int next = kind == REMOVED ? mPosition : mPosition + mCount;
+      if (kind != mKind || position != next) {
+        flush();
+        mKind = kind;
+        mPosition = position;
+      }
+      ++mCount;
+    }
+
+    void flush() {
+      switch (mKind) {
+        case INSERTED:
+          mCallback.onInserted(mPosition, mCount);
+          break;
+        case REMOVED:
+          mCallback.onRemoved(mPosition, mCount);
+          break;
+        case CHANGED:
+          mCallback.onChanged(mPosition, mCount);
+          break;
+        default:
+          break;
+      }
+      mKind = NONE;
+      mCount = 0;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the constraints of a query, in the order in which they are established, and renders
+ * them as a selection. Constraints separated by {@link #or()} are joined by {@code OR}, the others
+ * by {@code AND}, which binds tighter; explicit grouping is obtained by adding a {@link Condition}
+ * built separately.
+ *
+ * <p>The constraints are {@linkplain Condition#normalize() normalized} before being rendered.
+ *
+ * <p>This class is not thread-safe.
+ */
+public final class Selection {
+  /** The disjunction of conjunctions established so far. */
+  private final List<List<Condition>> mConjunctions = new ArrayList<>();
+
+  private boolean mStartConjunction = true;
+  private Condition mNormalized;
+  private String mSql;
+  private List<String> mArgs;
+
+  /** Adds a constraint, joined by {@code AND} to the previous one unless {@link #or()} was called. */
+  public void add(Condition condition) {
+    if (mStartConjunction) {
+      mConjunctions.add(new ArrayList<>());
+      mStartConjunction = false;
+    }
+    mConjunctions.get(mConjunctions.size() - 1).add(condition);
+    mNormalized = null;
+  }
+
+  /** Joins the next constraint to the previous ones by {@code OR}. */
+  public void or() {
+    mStartConjunction = true;
+  }
+
+  /** Returns the normalized constraints, or {@link Condition#TRUE} if there are none. */
+  public Condition toCondition() {
+    if (mNormalized == null) {
+      Condition[] disjuncts = new Condition[mConjunctions.size()];
+      for (int i = 0; i < disjuncts.length; ++i) {
+        List<Condition> conjunction = mConjunctions.get(i);
+        disjuncts[i] = Condition.and(conjunction.toArray(new Condition[conjunction.size()]));
+      }
+      mNormalized = disjuncts.length == 0 ? Condition.TRUE : Condition.or(disjuncts).normalize();
+      List<String> args = new ArrayList<>();
+      if (mNormalized == Condition.TRUE) {
+        mSql = null;
+      } else {
+        StringBuilder sql = new StringBuilder();
+        mNormalized.render(sql, args);
+        mSql = sql.toString();
+      }
+      mArgs = Collections.unmodifiableList(args);
+    }
+    return mNormalized;
+  }
+
+  /** Returns the selection, or null if every row satisfies it. */
+  public String getSql() {
+    toCondition();
+    return mSql;
+  }
+
+  /** Returns the arguments of the selection, or null if there are none. */
+  public String[] getArgs() {
+    toCondition();
+    return mArgs.isEmpty() ? null : mArgs.toArray(new String[mArgs.size()]);
+  }
+
+  /** Returns the arguments of the selection, possibly none. */
+  public List<String> getArgList() {
+    toCondition();
+    return mArgs;
+  }
+}
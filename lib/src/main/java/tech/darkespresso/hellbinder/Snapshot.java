@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * The entities returned by a query, held in memory so that they can be filtered without querying
+ * the provider again. Instances are created by the {@code snapshot()} method of generated queries.
+ *
+ * <p>The columns of fields annotated with {@code @Constraint(indexed = true)} are indexed: the
+ * first time a filter compares one of them with a value, the snapshot builds an index of the column
+ * (a hash table and a sorted array for strings, a sorted array for numbers), which then returns the
+ * entities whose column is equal to the value, lies in a range or starts with a prefix without
+ * checking every entity. The indexes are dropped when the entities are {@link #update updated} or
+ * {@link #merge merged} with the rows that changed since the snapshot was taken.
+ *
+ * <p>This class is thread-safe.
+ *
+ * @param <E> the type of the entities.
+ */
+public final class Snapshot<E> {
+  private final Function<String, ColumnAccessor<E>> mColumns;
+  private final Set<String> mIndexedColumns;
+  private final Map<String, SnapshotIndex> mIndexes = new HashMap<>();
+  private List<E> mEntities;
+
+  /**
+   * @param entities the entities, which are not copied.
+   * @param columns returns the accessor of each column.
+   * @param indexedColumns the columns to index.
+   */
+  public Snapshot(
+      List<E> entities,
+      Function<String, ColumnAccessor<E>> columns,
+      Collection<String> indexedColumns) {
+    mEntities = entities;
+    mColumns = columns;
+    mIndexedColumns = new HashSet<>(indexedColumns);
+  }
+
+  /** Returns the entities, which must not be modified. */
+  public synchronized List<E> getEntities() {
+    return Collections.unmodifiableList(mEntities);
+  }
+
+  /** Replaces the entities, and drops the indexes built so far. */
+  public synchronized void update(List<E> entities) {
+    mEntities = entities;
+    mIndexes.clear();
+  }
+
+  /**
+   * Replaces the entities by those with the given ids, in the same order, and drops the indexes
+   * built so far. Each entity is taken from {@code changed} if it is there, and from the snapshot
+   * otherwise; ids found in neither are left out.
+   *
+   * @param ids the ids of the new entities.
+   * @param changed the entities that were modified or inserted since the snapshot was taken.
+   * @param id returns the id of an entity.
+   * @return the ids that were left out.
+   */
+  public synchronized long[] merge(long[] ids, List<E> changed, ToLongFunction<? super E> id) {
+    LongObjectMap<E> entities = new LongObjectMap<>(mEntities.size() + changed.size());
+    for (E entity : mEntities) {
+      entities.put(id.applyAsLong(entity), entity);
+    }
+    for (E entity : changed) {
+      entities.put(id.applyAsLong(entity), entity);
+    }
+    List<E> merged = new ArrayList<>(ids.length);
+    LongList missing = new LongList();
+    for (long i : ids) {
+      E entity = entities.get(i);
+      if (entity == null) {
+        missing.add(i);
+      } else {
+        merged.add(entity);
+      }
+    }
+    update(merged);
+    return missing.toArray();
+  }
+
+  /**
+   * Returns the entities satisfying the condition, in the order of the snapshot.
+   *
+   * @throws UnsupportedOperationException if the condition cannot be evaluated in memory (see
+   *     {@link Condition#compile(Function)}).
+   */
+  public synchronized List<E> filter(Condition condition) {
+    Predicate<E> test = condition.compile(mColumns);
+    int[] rows = condition.candidates(this);
+    List<E> result = new ArrayList<>(rows == null ? mEntities.size() : rows.length);
+    if (rows == null) {
+      for (E entity : mEntities) {
+        if (test.test(entity)) {
+          result.add(entity);
+        }
+      }
+    } else {
+      for (int row : rows) {
+        E entity = mEntities.get(row);
+        if (test.test(entity)) {
+          result.add(entity);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the index of a column, building it if needed, or null if it is not indexed. This is
+   * only called while filtering, with the lock held.
+   */
+  SnapshotIndex index(String column) {
+    if (!mIndexedColumns.contains(column)) {
+      return null;
+    }
+    SnapshotIndex index = mIndexes.get(column);
+    if (index == null) {
+      index = mColumns.apply(column).index(mEntities);
+      mIndexes.put(column, index);
+    }
+    return index;
+  }
+}
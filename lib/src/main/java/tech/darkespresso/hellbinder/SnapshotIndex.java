@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index over one column of the entities of a {@link Snapshot}, which returns the positions of
+ * the rows satisfying a comparison, in ascending order. Integral and real columns are kept in
+ * sorted arrays, and strings in a hash table for equalities plus a sorted array for ranges. {@code
+ * NULL} strings are left out, as they satisfy no comparison.
+ *
+ * <p>The methods return null when the index cannot answer, e.g. when comparing an integral column
+ * with a value that is not an integer, in which case every row must be checked.
+ */
+abstract class SnapshotIndex {
+  SnapshotIndex() {}
+
+  /** Returns the rows whose column equals {@code value}, or null. */
+  abstract int[] equalTo(String value);
+
+  /**
+   * Returns the rows whose column lies between the given bounds, or null.
+   *
+   * @param lower the lower bound, or null if there is none.
+   * @param upper the upper bound, or null if there is none.
+   */
+  abstract int[] range(String lower, boolean lowerInclusive, String upper, boolean upperInclusive);
+
+  static SnapshotIndex ofLongs(long[] values) {
+    return new LongIndex(values, false);
+  }
+
+  static SnapshotIndex ofDoubles(double[] values) {
+    long[] keys = new long[values.length];
+    for (int i = 0; i < values.length; ++i) {
+      keys[i] = sortableBits(values[i]);
+    }
+    return new LongIndex(keys, true);
+  }
+
+  static SnapshotIndex ofStrings(String[] values) {
+    return new StringIndex(values);
+  }
+
+  /** Maps doubles to longs with the same order, so that they can be indexed as longs. */
+  private static long sortableBits(double value) {
+    // 0.0 and -0.0 are equal in SQLite.
+    long bits = Double.doubleToLongBits(value == 0 ? 0.0 : value);
+    return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+  }
+
+  /** Returns the rows in both sorted arrays. */
+  static int[] intersect(int[] a, int[] b) {
+    int[] result = new int[Math.min(a.length, b.length)];
+    int size = 0;
+    for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+      if (a[i] < b[j]) {
+        ++i;
+      } else if (a[i] > b[j]) {
+        ++j;
+      } else {
+        result[size++] = a[i];
+        ++i;
+        ++j;
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  /** Returns the rows in either sorted array. */
+  static int[] union(int[] a, int[] b) {
+    int[] result = new int[a.length + b.length];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < a.length || j < b.length) {
+      if (j == b.length || (i < a.length && a[i] < b[j])) {
+        result[size++] = a[i++];
+      } else if (i == a.length || b[j] < a[i]) {
+        result[size++] = b[j++];
+      } else {
+        result[size++] = a[i++];
+        ++j;
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  /** Returns the rows between two positions of a sorted array, in ascending order. */
+  private static int[] sortedRows(int[] rows, int from, int to) {
+    int[] result = Arrays.copyOfRange(rows, from, Math.max(from, to));
+    Arrays.sort(result);
+    return result;
+  }
+
+  private static final class LongIndex extends SnapshotIndex {
+    /** Whether the keys are the {@link #sortableBits} of doubles. */
+    private final boolean mReal;
+    /** The keys of the rows, in ascending order. */
+    private final long[] mKeys;
+    /** The rows, in the order of their keys; rows with the same key are in ascending order. */
+    private final int[] mRows;
+    /** Maps each key to its first position in {@link #mKeys}. */
+    private final LongIntMap mStarts;
+
+    LongIndex(long[] values, boolean real) {
+      mReal = real;
+      mKeys = values.clone();
+      Arrays.sort(mKeys);
+      mStarts = new LongIntMap();
+      for (int i = mKeys.length - 1; i >= 0; --i) {
+        mStarts.put(mKeys[i], i);
+      }
+      // Places each row after the previous rows with the same key.
+      LongIntMap next = new LongIntMap(mStarts.size());
+      for (int i = 0; i < mStarts.size(); ++i) {
+        next.put(mStarts.keyAt(i), mStarts.valueAt(i));
+      }
+      mRows = new int[values.length];
+      for (int row = 0; row < values.length; ++row) {
+        int position = next.get(values[row]);
+        mRows[position] = row;
+        next.put(values[row], position + 1);
+      }
+    }
+
+    /** Parses a value as a key, or returns null if it is not one. */
+    private Long parse(String value) {
+      try {
+        return mReal
+            ? sortableBits(Double.parseDouble(value.trim()))
+            : Long.parseLong(value.trim());
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    @Override
+    int[] equalTo(String value) {
+      Long key = parse(value);
+      if (key == null) {
+        return null;
+      }
+      int index = mStarts.indexOfKey(key);
+      if (index < 0) {
+        return new int[0];
+      }
+      int start = mStarts.valueAt(index);
+      int end = start;
+      while (end < mKeys.length && mKeys[end] == key) {
+        ++end;
+      }
+      return sortedRows(mRows, start, end);
+    }
+
+    @Override
+    int[] range(String lower, boolean lowerInclusive, String upper, boolean upperInclusive) {
+      int from = 0;
+      int to = mKeys.length;
+      if (lower != null) {
+        Long key = parse(lower);
+        if (key == null) {
+          return null;
+        }
+        from = lowerInclusive ? firstNotBelow(key) : firstAbove(key);
+      }
+      if (upper != null) {
+        Long key = parse(upper);
+        if (key == null) {
+          return null;
+        }
+        to = upperInclusive ? firstAbove(key) : firstNotBelow(key);
+      }
+      return sortedRows(mRows, from, to);
+    }
+
+    /** Returns the first position whose key is at least {@code key}. */
+    private int firstNotBelow(long key) {
+      int low = 0;
+      int high = mKeys.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (mKeys[middle] < key) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    /** Returns the first position whose key is greater than {@code key}. */
+    private int firstAbove(long key) {
+      return key == Long.MAX_VALUE ? mKeys.length : firstNotBelow(key + 1);
+    }
+  }
+
+  private static final class StringIndex extends SnapshotIndex {
+    private final Map<String, int[]> mRowsByValue = new HashMap<>();
+    /** The non-null values, in ascending order of code points. */
+    private final String[] mSorted;
+    /** The rows, in the order of their values. */
+    private final int[] mRows;
+
+    StringIndex(String[] values) {
+      Map<String, IntList> rowsByValue = new HashMap<>();
+      int count = 0;
+      for (int row = 0; row < values.length; ++row) {
+        if (values[row] == null) {
+          continue;
+        }
+        IntList rows = rowsByValue.get(values[row]);
+        if (rows == null) {
+          rows = new IntList();
+          rowsByValue.put(values[row], rows);
+        }
+        rows.add(row);
+        ++count;
+      }
+      String[] distinct = rowsByValue.keySet().toArray(new String[rowsByValue.size()]);
+      Arrays.sort(distinct, (a, b) -> ColumnAccessor.compareStrings(a, b, false));
+      mSorted = new String[count];
+      mRows = new int[count];
+      int position = 0;
+      for (String value : distinct) {
+        int[] rows = rowsByValue.get(value).toArray();
+        mRowsByValue.put(value, rows);
+        for (int row : rows) {
+          mSorted[position] = value;
+          mRows[position++] = row;
+        }
+      }
+    }
+
+    @Override
+    int[] equalTo(String value) {
+      int[] rows = mRowsByValue.get(value);
+      return rows == null ? new int[0] : rows.clone();
+    }
+
+    @Override
+    int[] range(String lower, boolean lowerInclusive, String upper, boolean upperInclusive) {
+      int from = lower == null ? 0 : search(lower, !lowerInclusive);
+      int to = upper == null ? mSorted.length : search(upper, upperInclusive);
+      return sortedRows(mRows, from, to);
+    }
+
+    /** Returns the first position whose value is at least (or above) {@code value}. */
+    private int search(String value, boolean above) {
+      int low = 0;
+      int high = mSorted.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        int comparison = ColumnAccessor.compareStrings(mSorted[middle], value, false);
+        if (comparison < 0 || (above && comparison == 0)) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+}
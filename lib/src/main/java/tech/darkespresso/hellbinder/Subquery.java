@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@code SELECT} statement, together with the arguments for its placeholders, that can be used
+ * as the right-hand side of a constraint on another entity. Instances are created by the {@code
+ * selectId()} method of the generated queries.
+ *
+ * <p>The statement is embedded in the selection of the outer query, so the content provider
+ * resolves both with a single query. This only works if the provider passes the selection to
+ * SQLite unchanged, and if both tables live in the same database.
+ */
+public final class Subquery {
+  private final String mSql;
+  private final List<String> mArgs;
+
+  public Subquery(String sql, String... args) {
+    mSql = sql;
+    mArgs = Collections.unmodifiableList(Arrays.asList(args.clone()));
+  }
+
+  /** Returns the {@code SELECT} statement, with a {@code ?} for each argument. */
+  public String getSql() {
+    return mSql;
+  }
+
+  /** Returns the arguments, in the order in which their placeholders appear in the statement. */
+  public List<String> getArgs() {
+    return mArgs;
+  }
+
+  @Override
+  public String toString() {
+    return mSql + ' ' + mArgs;
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tech.darkespresso.hellbinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of daemon threads used to run queries concurrently, with one thread per available
+ * processor (and at least two). This is used by generated code.
+ *
+ * <p>Tasks submitted from one of the pool's own threads are run on the calling thread, so that
+ * nested concurrent queries cannot exhaust the pool and deadlock.
+ *
+ * <p>A separate daemon thread runs the short tasks {@link #schedule scheduled} after a delay, such
+ * as cancelling a query whose deadline has passed.
+ */
+public final class Workers {
+  private static final int MAX_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+  private static final ThreadPoolExecutor EXECUTOR;
+  private static final ScheduledThreadPoolExecutor TIMER;
+
+  static {
+    AtomicInteger count = new AtomicInteger();
+    EXECUTOR =
+        new ThreadPoolExecutor(
+            MAX_THREADS,
+            MAX_THREADS,
+            30,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> new Worker(r, "hellbinder-worker-" + count.incrementAndGet()));
+    EXECUTOR.allowCoreThreadTimeOut(true);
+    TIMER =
+        new ScheduledThreadPoolExecutor(
+            1,
+            r -> {
+              Thread thread = new Thread(r, "hellbinder-timer");
+              thread.setDaemon(true);
+              return thread;
+            });
+    TIMER.setKeepAliveTime(30, TimeUnit.SECONDS);
+    TIMER.allowCoreThreadTimeOut(true);
+    TIMER.setRemoveOnCancelPolicy(true);
+  }
+
+  private Workers() {
+    throw new UnsupportedOperationException();
+  }
+
+  /** Returns the maximum number of tasks that can run at the same time. */
+  public static int parallelism() {
+    return MAX_THREADS;
+  }
+
+  /**
+   * Runs the task once the delay has elapsed, unless the returned future is cancelled first. The
+   * task must be short, as all scheduled tasks share a single thread.
+   *
+   * @param delayMillis the delay, which is ignored if it is not positive.
+   */
+  public static Future<?> schedule(Runnable task, long delayMillis) {
+    return TIMER.schedule(task, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Runs all of the given tasks concurrently, and returns their results in the same order.
+   *
+   * <p>If any task fails, or the calling thread is interrupted while waiting, the tasks that have
+   * not started yet are skipped, the ones that are running are waited for, and every result that
+   * is {@link AutoCloseable} is closed before this method throws.
+   *
+   * @throws CancellationException if the calling thread is interrupted while waiting.
+   * @throws RuntimeException the exception thrown by the first failing task (checked exceptions
+   *     are wrapped in a {@link RuntimeException}).
+   */
+  public static <T> List<T> invokeAll(List<? extends Callable<? extends T>> tasks) {
+    final int size = tasks.size();
+    final Object[] results = new Object[size];
+    final AtomicBoolean abandoned = new AtomicBoolean();
+    List<FutureTask<Void>> futures = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) {
+      final int index = i;
+      final Callable<? extends T> task = tasks.get(i);
+      futures.add(
+          new FutureTask<>(
+              () -> {
+                if (abandoned.get()) {
+                  return null;
+                }
+                try {
+                  results[index] = task.call();
+                } catch (Exception | Error e) {
+                  // Skip the tasks that have not started yet, without waiting for the caller to
+                  // notice the failure.
+                  abandoned.set(true);
+                  throw e;
+                }
+                return null;
+              }));
+    }
+
+    boolean inline = size == 1 || Thread.currentThread() instanceof Worker;
+    for (int i = 0; i < size; ++i) {
+      // The last task is always run by the calling thread, which would otherwise be idle.
+      if (inline || i == size - 1) {
+        futures.get(i).run();
+      } else {
+        EXECUTOR.execute(futures.get(i));
+      }
+    }
+
+    Throwable failure = null;
+    boolean interrupted = false;
+    for (Future<Void> future : futures) {
+      try {
+        if (interrupted || failure != null) {
+          awaitUninterruptibly(future);
+        } else {
+          future.get();
+        }
+      } catch (InterruptedException e) {
+        interrupted = true;
+        abandoned.set(true);
+        awaitUninterruptibly(future);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+          abandoned.set(true);
+        }
+      }
+    }
+    if (failure == null && !interrupted) {
+      @SuppressWarnings("unchecked")
+      List<T> list = (List<T>) Arrays.asList(results);
+      return list;
+    }
+
+    for (Object result : results) {
+      closeQuietly(result);
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException();
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else {
+      throw new RuntimeException(failure);
+    }
+  }
+
+  static void closeQuietly(Object resource) {
+    if (resource instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) resource).close();
+      } catch (Exception e) {
+        // Nothing else can be done.
+      }
+    }
+  }
+
+  private static void awaitUninterruptibly(Future<?> future) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          future.get();
+          return;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          return;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static final class Worker extends Thread {
+    Worker(Runnable runnable, String name) {
+      super(runnable, name);
+      setDaemon(true);
+    }
+  }
+}
@@ -47,9 +47,27 @@ import java.lang.annotation.Target;
  *     ...
  *     ContactsCollection.where().name(Operator.LIKE, "Foo").get();
  * }</pre>
+ *
+ * <p>If {@link #nullable()} is true, a method checking whether the column is {@code NULL} is also
+ * generated, e.g. {@code nameIsNull(boolean)}.
+ *
+ * <p>If {@link #fullText()} is true, the field must be a {@link String} bound to a column of a
+ * full-text search table, and a method is also generated which matches the column against a
+ * full-text query through the index of the table, e.g. {@code nameMatches("foo*")}, which renders
+ * as {@code name MATCH ?}. It should be used instead of {@code LIKE '%foo%'}, which scans the
+ * table.
+ *
+ * <p>If {@link #indexed()} is true, the snapshots of the query results index the column the first
+ * time they are filtered on it, so that {@code where().name(Operator.EQ, "Foo").filter(snapshot)}
+ * looks the matching entities up instead of checking them all. The field must be a {@link String}
+ * or an {@code int}, {@code long}, {@code short}, {@code float} or {@code double}.
  */
 @Retention(RetentionPolicy.SOURCE)
 @Target(ElementType.FIELD)
 public @interface Constraint {
   boolean nullable() default false;
+
+  boolean fullText() default false;
+
+  boolean indexed() default false;
 }
@@ -110,10 +110,28 @@ import java.lang.annotation.Target;
  * parameters. In that case, the generated class will only contain a method called {@code
  * withUriParams(...)}, which takes the same parameters as the annotated method, and returns an
  * interface that expose the same methods that would otherwise be static.
+ *
+ * <p>If {@link #table()} is set and the class has an {@code int}, {@code long} or {@code short}
+ * field annotated with {@link tech.darkespresso.hellbinder.annotations.Id Id}, the queries will
+ * also have a {@code selectId()} method, which returns the ids satisfying the query as a
+ * {@link tech.darkespresso.hellbinder.Subquery Subquery}. Integral constraints of other entities
+ * accept it as their right-hand side, for example:
+ *
+ * <pre>{@code
+ *   Messages.where()
+ *       .accountId(Operator.IN, Accounts.where().active(Operator.EQ, 1).selectId())
+ *       .get(contentResolver);
+ * }</pre>
  */
 @Retention(RetentionPolicy.SOURCE)
 @Target(ElementType.TYPE)
 public @interface ContentProviderEntity {
   /** The name of the generated class. */
   String value();
+
+  /**
+   * The name of the table backing the content provider, used to select the ids of this entity
+   * inside the queries of other entities. Empty if unknown.
+   */
+  String table() default "";
 }
@@ -40,7 +40,18 @@ import java.lang.annotation.Target;
  *        @literal @ContentUri public static final Uri uri = Contacts.CONTENT_URI;
  *     }
  * }
+ *
+ * <p>When a method taking parameters is annotated, the generated code remembers the URIs it
+ * returned for up to {@link #cacheSize()} distinct sets of arguments, so that repeated queries do
+ * not build the same URI again. Such methods must therefore always return the same URI for the
+ * same arguments.
  */
 @Retention(RetentionPolicy.SOURCE)
 @Target({ElementType.FIELD, ElementType.METHOD})
-public @interface ContentUri {}
+public @interface ContentUri {
+  /**
+   * The number of URIs built by the annotated method that are remembered, or 0 to call the method
+   * for every query. This is ignored for fields and methods without parameters.
+   */
+  int cacheSize() default 64;
+}
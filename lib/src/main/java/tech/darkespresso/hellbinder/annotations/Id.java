@@ -40,7 +40,14 @@ import java.lang.annotation.Target;
  *         ...
  *     }
  * }
+ *
+ * <p>If the content provider serves single rows at URIs of the form {@code content://.../<id>},
+ * {@link #appendToUri()} makes {@code getById()} query that URI, and bind the first row it
+ * returns, instead of selecting the id from the whole collection.
  */
 @Retention(RetentionPolicy.SOURCE)
 @Target(ElementType.FIELD)
-public @interface Id {}
+public @interface Id {
+  /** Whether rows are looked up by appending the id to the content URI. The id must be integral. */
+  boolean appendToUri() default false;
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+/**
+ * Annotates an integral field, also annotated with {@link Column}, whose column increases every
+ * time a row is inserted or modified, such as a modification timestamp or a version number drawn
+ * from a sequence shared by the whole table.
+ * <p>For example:
+ * <pre>{@code
+ *    @literal @ContentProviderEntity("ContactsCollection")
+ *     public class Contact {
+ *        @literal @Id @Column(Contacts._ID) public long id;
+ *        @literal @Version @Column(Contacts.CONTACT_LAST_UPDATED_TIMESTAMP) public long updatedAt;
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * will make it possible, if the id is also integral, to bring a snapshot of the results of a query
+ * up to date as follows:
+ * <pre>{@code
+ *     Snapshot<Contact> contacts = ContactsCollection.snapshot(contentResolver);
+ *     ...
+ *     ContactsCollection.refresh(contentResolver, contacts);
+ * }</pre>
+ * which only reads the rows whose column is greater than the greatest value in the snapshot, and
+ * the ids of the other rows, to find out which rows were deleted.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Version {}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/** Tests for {@link BoundedCache}. */
+public class BoundedCacheTest {
+  @Test
+  public void put_evictsEldestWhenFull() {
+    BoundedCache<String, Integer> cache = new BoundedCache<>(2);
+    cache.put("a", 1);
+    cache.put("b", 2);
+    cache.put("c", 3);
+    assertNull(cache.get("a"));
+    assertEquals(Integer.valueOf(2), cache.get("b"));
+    assertEquals(Integer.valueOf(3), cache.get("c"));
+  }
+
+  @Test
+  public void get_makesEntryMostRecentlyUsed() {
+    BoundedCache<String, Integer> cache = new BoundedCache<>(2);
+    cache.put("a", 1);
+    cache.put("b", 2);
+    cache.get("a");
+    cache.put("c", 3);
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals(Integer.valueOf(3), cache.get("c"));
+  }
+
+  @Test
+  public void put_existingKey_replacesWithoutEviction() {
+    BoundedCache<String, Integer> cache = new BoundedCache<>(2);
+    cache.put("a", 1);
+    cache.put("b", 2);
+    cache.put("a", 3);
+    assertEquals(Integer.valueOf(3), cache.get("a"));
+    assertEquals(Integer.valueOf(2), cache.get("b"));
+    // "b" is now the least recently used.
+    cache.put("a", 4);
+    cache.put("c", 5);
+    assertNull(cache.get("b"));
+    assertEquals(Integer.valueOf(4), cache.get("a"));
+  }
+
+  @Test
+  public void get_listKeys_comparedByValue() {
+    BoundedCache<List<Object>, String> cache = new BoundedCache<>(1);
+    cache.put(Arrays.asList(1L, "x"), "uri");
+    assertEquals("uri", cache.get(Arrays.<Object>asList(1L, "x")));
+    assertNull(cache.get(Arrays.<Object>asList(1L, "y")));
+  }
+
+  @Test
+  public void clear() {
+    BoundedCache<String, Integer> cache = new BoundedCache<>(2);
+    cache.put("a", 1);
+    cache.clear();
+    assertNull(cache.get("a"));
+  }
+
+  @Test
+  public void constructor_nonPositiveCapacity_throws() {
+    try {
+      new BoundedCache<String, Integer>(0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      assertEquals("capacity must be positive: 0", expected.getMessage());
+    }
+  }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import org.junit.Test;
+
+/** Tests for {@link Condition}. */
+public class ConditionTest {
+  private static final ColumnAccessor<Row> ID = ColumnAccessor.ofLong(row -> row.id);
+  private static final ColumnAccessor<Row> NAME = ColumnAccessor.ofString(row -> row.name);
+
+  private static final class Row {
+    final long id;
+    final String name;
+
+    Row(long id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return id + ":" + name;
+    }
+  }
+
+  private static ColumnAccessor<Row> column(String column) {
+    switch (column) {
+      case "id":
+        return ID;
+      case "name":
+        return NAME;
+      default:
+        throw new IllegalArgumentException(column);
+    }
+  }
+
+  private static Condition eq(String column, String value) {
+    return Condition.compare(column, Operator.EQ, value);
+  }
+
+  private static void assertSelection(String sql, List<String> args, Condition condition) {
+    StringBuilder actualSql = new StringBuilder();
+    List<String> actualArgs = new ArrayList<>();
+    condition.render(actualSql, actualArgs);
+    assertEquals(sql, actualSql.toString());
+    assertEquals(args, actualArgs);
+  }
+
+  @Test
+  public void normalize_flattensNestedJunctions() {
+    Condition condition =
+        Condition.and(
+            eq("name", "a"), Condition.and(eq("id", "1"), Condition.and(eq("id", "2"))));
+    assertSelection(
+        "name = ? AND id = ? AND id = ?", Arrays.asList("a", "1", "2"), condition.normalize());
+  }
+
+  @Test
+  public void normalize_keepsNestedJunctionsOfTheOtherKind() {
+    Condition condition =
+        Condition.and(eq("name", "a"), Condition.or(eq("id", "1"), eq("name", "b")));
+    assertSelection(
+        "name = ? AND (id = ? OR name = ?)", Arrays.asList("a", "1", "b"), condition.normalize());
+  }
+
+  @Test
+  public void normalize_dropsDuplicateTerms() {
+    Condition condition =
+        Condition.and(eq("name", "a"), eq("id", "1"), Condition.and(eq("name", "a")));
+    assertSelection("name = ? AND id = ?", Arrays.asList("a", "1"), condition.normalize());
+  }
+
+  @Test
+  public void normalize_singleTerm_isUnwrapped() {
+    Condition condition = Condition.and(eq("name", "a"), eq("name", "a"));
+    assertSelection("name = ?", Collections.singletonList("a"), condition.normalize());
+  }
+
+  @Test
+  public void normalize_emptyJunction_isNeutral() {
+    assertSame(Condition.TRUE, Condition.and().normalize());
+    assertSame(Condition.FALSE, Condition.or().normalize());
+    assertSame(Condition.TRUE, Condition.and(Condition.TRUE, Condition.and()).normalize());
+  }
+
+  @Test
+  public void normalize_foldsEqualitiesIntoIn() {
+    Condition condition =
+        Condition.or(
+            eq("name", "a"),
+            eq("id", "1"),
+            Condition.compare("name", Operator.IN, "b"),
+            eq("name", "a"),
+            eq("name", "c"));
+    assertSelection(
+        "name IN (?, ?, ?) OR id = ?", Arrays.asList("a", "b", "c", "1"), condition.normalize());
+  }
+
+  @Test
+  public void normalize_foldsDuplicateValuesOnce() {
+    Condition condition =
+        Condition.or(eq("name", "a"), Condition.compare("name", Operator.IN, "a"));
+    assertSelection("name IN (?)", Collections.singletonList("a"), condition.normalize());
+  }
+
+  @Test
+  public void normalize_doesNotFoldConjunctions() {
+    Condition condition = Condition.and(eq("name", "a"), eq("name", "b"));
+    assertSelection("name = ? AND name = ?", Arrays.asList("a", "b"), condition.normalize());
+  }
+
+  @Test
+  public void normalize_doesNotFoldSubqueries() {
+    Subquery subquery = new Subquery("SELECT name FROM t WHERE x = ?", "x");
+    Condition condition =
+        Condition.or(eq("name", "a"), Condition.compare("name", Operator.IN, subquery));
+    assertSelection(
+        "name = ? OR name IN (SELECT name FROM t WHERE x = ?)",
+        Arrays.asList("a", "x"),
+        condition.normalize());
+  }
+
+  @Test
+  public void normalize_isNullAndComparison_isContradiction() {
+    for (Operator op : Arrays.asList(Operator.EQ, Operator.NE, Operator.LT, Operator.LIKE)) {
+      Condition condition =
+          Condition.and(Condition.isNull("name", true), Condition.compare("name", op, "a"));
+      assertSame(op.toString(), Condition.FALSE, condition.normalize());
+    }
+    Condition between =
+        Condition.and(
+            Condition.compare("id", Operator.BETWEEN, "1", "2"), Condition.isNull("id", true));
+    assertSame(Condition.FALSE, between.normalize());
+  }
+
+  @Test
+  public void normalize_isNullAndIsNotNull_isContradiction() {
+    Condition condition =
+        Condition.and(Condition.isNull("name", true), Condition.isNull("name", false));
+    assertSame(Condition.FALSE, condition.normalize());
+    assertSelection("0", Collections.emptyList(), condition.normalize());
+  }
+
+  @Test
+  public void normalize_equalAndDifferent_isContradiction() {
+    Condition condition =
+        Condition.and(
+            eq("name", "a"), eq("id", "1"), Condition.compare("name", Operator.NE, "a"));
+    assertSame(Condition.FALSE, condition.normalize());
+  }
+
+  @Test
+  public void normalize_contradictionInsideDisjunction_isDropped() {
+    Condition condition =
+        Condition.or(
+            eq("id", "1"),
+            Condition.and(Condition.isNull("name", true), eq("name", "a")));
+    assertSelection("id = ?", Collections.singletonList("1"), condition.normalize());
+  }
+
+  @Test
+  public void normalize_isNullAndNotIn_isKept() {
+    Subquery subquery = new Subquery("SELECT name FROM t");
+    Condition condition =
+        Condition.and(
+            Condition.isNull("name", true),
+            Condition.compare("name", Operator.NOT_IN, subquery),
+            Condition.compare("name", Operator.NOT_IN, "a"));
+    assertSelection(
+        "name IS NULL AND name NOT IN (SELECT name FROM t) AND name NOT IN (?)",
+        Collections.singletonList("a"),
+        condition.normalize());
+  }
+
+  @Test
+  public void normalize_isNullAndSubquery_isKept() {
+    Subquery subquery = new Subquery("SELECT name FROM t");
+    Condition condition =
+        Condition.and(
+            Condition.isNull("name", true), Condition.compare("name", Operator.IN, subquery));
+    assertSelection(
+        "name IS NULL AND name IN (SELECT name FROM t)",
+        Collections.emptyList(),
+        condition.normalize());
+  }
+
+  @Test
+  public void normalize_differentColumns_isNotContradiction() {
+    Condition condition =
+        Condition.and(
+            Condition.isNull("name", true),
+            eq("id", "1"),
+            Condition.compare("id", Operator.NE, "2"));
+    assertSelection(
+        "name IS NULL AND id = ? AND id <> ?", Arrays.asList("1", "2"), condition.normalize());
+  }
+
+  @Test
+  public void normalize_isNullOrIsNotNull_isTautology() {
+    Condition condition =
+        Condition.and(
+            eq("id", "1"),
+            Condition.or(
+                Condition.isNull("name", true), eq("id", "2"), Condition.isNull("name", false)));
+    assertSelection("id = ?", Collections.singletonList("1"), condition.normalize());
+    assertSame(
+        Condition.TRUE,
+        Condition.or(Condition.isNull("name", false), Condition.isNull("name", true)).normalize());
+  }
+
+  @Test
+  public void normalize_isNullOrNotIn_isNotTautology() {
+    Subquery subquery = new Subquery("SELECT name FROM t");
+    Condition condition =
+        Condition.or(
+            Condition.isNull("name", true), Condition.compare("name", Operator.NOT_IN, subquery));
+    assertSelection(
+        "name IS NULL OR name NOT IN (SELECT name FROM t)",
+        Collections.emptyList(),
+        condition.normalize());
+  }
+
+  @Test
+  public void compile_matchesSqliteSemantics() {
+    Predicate<Row> predicate =
+        Condition.or(
+                Condition.and(
+                    Condition.compare("name", Operator.STARTS_WITH, "ap"),
+                    Condition.compare("id", Operator.GT, "1")),
+                Condition.isNull("name", true))
+            .compile(ConditionTest::column);
+    assertTrue(predicate.test(new Row(2, "apple")));
+    assertFalse(predicate.test(new Row(1, "apple")));
+    assertFalse(predicate.test(new Row(2, "Apple")));
+    assertFalse(predicate.test(new Row(2, "banana")));
+    assertTrue(predicate.test(new Row(0, null)));
+  }
+
+  @Test
+  public void compile_comparesNumbersAsNumbers() {
+    Predicate<Row> predicate =
+        Condition.compare("id", Operator.IN, "10").compile(ConditionTest::column);
+    assertTrue(predicate.test(new Row(10, null)));
+    assertFalse(predicate.test(new Row(1, null)));
+  }
+
+  @Test
+  public void compile_constants() {
+    assertTrue(Condition.TRUE.compile(ConditionTest::column).test(new Row(1, null)));
+    assertFalse(Condition.FALSE.compile(ConditionTest::column).test(new Row(1, null)));
+  }
+
+  @Test
+  public void compile_subquery_throws() {
+    try {
+      Condition.compare("name", Operator.IN, new Subquery("SELECT name FROM t"))
+          .compile(ConditionTest::column);
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+  }
+
+  @Test
+  public void compile_match_throws() {
+    try {
+      Condition.match("name", "apple").compile(ConditionTest::column);
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+  }
+
+  @Test
+  public void candidates_usesIndexedColumns() {
+    Snapshot<Row> snapshot =
+        new Snapshot<>(
+            Arrays.asList(
+                new Row(1, "b"), new Row(2, "a"), new Row(3, null), new Row(4, "a")),
+            ConditionTest::column,
+            Arrays.asList("id", "name"));
+    assertArrayEquals(new int[] {1, 3}, eq("name", "a").candidates(snapshot));
+    assertArrayEquals(
+        new int[] {1}, Condition.and(eq("name", "a"), eq("id", "2")).candidates(snapshot));
+    assertArrayEquals(
+        new int[] {0, 1, 3}, Condition.or(eq("name", "a"), eq("id", "1")).candidates(snapshot));
+    assertArrayEquals(
+        new int[] {2, 3}, Condition.compare("id", Operator.GE, "3").candidates(snapshot));
+    assertArrayEquals(new int[0], Condition.FALSE.candidates(snapshot));
+  }
+
+  @Test
+  public void candidates_withoutIndex_isEveryRow() {
+    Snapshot<Row> snapshot =
+        new Snapshot<>(
+            Arrays.asList(new Row(1, "a"), new Row(2, "b")),
+            ConditionTest::column,
+            Collections.singletonList("id"));
+    assertNull(eq("name", "a").candidates(snapshot));
+    assertNull(Condition.or(eq("name", "a"), eq("id", "1")).candidates(snapshot));
+    assertNull(Condition.isNull("name", true).candidates(snapshot));
+    assertNull(Condition.TRUE.candidates(snapshot));
+    // A conjunction only needs one of its terms to be indexed.
+    assertArrayEquals(
+        new int[] {0}, Condition.and(eq("name", "a"), eq("id", "1")).candidates(snapshot));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/** Tests for {@link CountCache}. */
+public class CountCacheTest {
+  private static final Object URI = "content://authority/items";
+  private static final String KEY = CountCache.key("a = ?", new String[] {"1"});
+
+  private final List<String> mUnregistered = new ArrayList<>();
+
+  private CountCache.Registration registration(String name) {
+    return () -> mUnregistered.add(name);
+  }
+
+  private CountCache observed() {
+    CountCache cache = new CountCache();
+    assertTrue(cache.startObserving(URI));
+    cache.setObserver(URI, registration("items"));
+    return cache;
+  }
+
+  @Test
+  public void key_distinguishesArguments() {
+    assertNotEquals(
+        CountCache.key("a", new String[] {"b:c"}), CountCache.key("a", new String[] {"b", "c"}));
+    assertNotEquals(CountCache.key(null, null), CountCache.key("", null));
+    assertNotEquals(
+        CountCache.key("a", new String[] {null}), CountCache.key("a", new String[] {"-1:"}));
+  }
+
+  @Test
+  public void startObserving_onlyOncePerUri() {
+    CountCache cache = new CountCache();
+    assertTrue(cache.startObserving(URI));
+    assertFalse(cache.startObserving(URI));
+    assertTrue(cache.startObserving("content://authority/other"));
+  }
+
+  @Test
+  public void put_storesCount() {
+    CountCache cache = observed();
+    cache.put(URI, KEY, 3, cache.generation(URI));
+    assertEquals(Integer.valueOf(3), cache.get(URI, KEY));
+    assertNull(cache.get(URI, CountCache.key(null, null)));
+  }
+
+  @Test
+  public void invalidate_dropsCounts() {
+    CountCache cache = observed();
+    cache.put(URI, KEY, 3, cache.generation(URI));
+    cache.invalidate(URI);
+    assertNull(cache.get(URI, KEY));
+  }
+
+  @Test
+  public void put_afterInvalidation_notStored() {
+    CountCache cache = observed();
+    int generation = cache.generation(URI);
+    cache.invalidate(URI);
+    cache.put(URI, KEY, 3, generation);
+    assertNull(cache.get(URI, KEY));
+  }
+
+  @Test
+  public void put_beforeObserverIsSet_notStored() {
+    CountCache cache = new CountCache();
+    assertTrue(cache.startObserving(URI));
+    cache.put(URI, KEY, 3, cache.generation(URI));
+    assertNull(cache.get(URI, KEY));
+  }
+
+  @Test
+  public void put_countedWhileObserverWasRegistered_notStored() {
+    CountCache cache = new CountCache();
+    assertTrue(cache.startObserving(URI));
+    // Another caller starts counting while the first is still registering its observer.
+    assertFalse(cache.startObserving(URI));
+    int generation = cache.generation(URI);
+    cache.setObserver(URI, registration("items"));
+    cache.put(URI, KEY, 3, generation);
+    assertNull(cache.get(URI, KEY));
+
+    cache.put(URI, KEY, 4, cache.generation(URI));
+    assertEquals(Integer.valueOf(4), cache.get(URI, KEY));
+  }
+
+  @Test
+  public void clear_unregistersObservers() {
+    CountCache cache = observed();
+    assertTrue(cache.startObserving("content://authority/other"));
+    cache.setObserver("content://authority/other", registration("other"));
+    cache.put(URI, KEY, 3, cache.generation(URI));
+
+    cache.clear();
+    assertEquals(2, mUnregistered.size());
+    assertTrue(mUnregistered.contains("items"));
+    assertTrue(mUnregistered.contains("other"));
+    assertNull(cache.get(URI, KEY));
+    assertTrue(cache.startObserving(URI));
+
+    cache.clear();
+    assertEquals(2, mUnregistered.size());
+  }
+
+  @Test
+  public void setObserver_afterClear_unregistersImmediately() {
+    CountCache cache = new CountCache();
+    assertTrue(cache.startObserving(URI));
+    cache.clear();
+    cache.setObserver(URI, registration("items"));
+    assertEquals(1, mUnregistered.size());
+    cache.clear();
+    assertEquals(1, mUnregistered.size());
+  }
+}
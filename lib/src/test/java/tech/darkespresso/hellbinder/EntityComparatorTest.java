@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tech.darkespresso.hellbinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link EntityComparator}. */
+public class EntityComparatorTest {
+  private static final StringField<Row> NAME = new StringField<>("name");
+  private static final IntegralField<Row> RANK = new IntegralField<>("rank");
+  private static final StringField<Row> UNSORTED = new StringField<>("unsorted");
+
+  private static class Row {
+    final String name;
+    final long rank;
+
+    Row(String name, long rank) {
+      this.name = name;
+      this.rank = rank;
+    }
+
+    @Override
+    public String toString() {
+      return name + "/" + rank;
+    }
+  }
+
+  private static EntityComparator.Criterion<Row> criterionFor(Field<Row> field, Order order) {
+    if (field == NAME) {
+      return EntityComparator.byString(row -> row.name, order);
+    }
+    if (field == RANK) {
+      return EntityComparator.by((a, b) -> Long.compare(a.rank, b.rank), order);
+    }
+    throw new IllegalArgumentException(field + " is not annotated with @SortCriterion");
+  }
+
+  private static EntityComparator<Row> comparator(Field<Row> field, Order order) {
+    return new EntityComparator<>(EntityComparatorTest::criterionFor, field, order);
+  }
+
+  private Locale mDefaultLocale;
+
+  @Before
+  public void setUp() {
+    mDefaultLocale = Locale.getDefault();
+    Locale.setDefault(Locale.US);
+  }
+
+  @After
+  public void tearDown() {
+    Locale.setDefault(mDefaultLocale);
+  }
+
+  /** Sorts with both {@link EntityComparator#sort} and {@link List#sort}, and returns the names. */
+  private static List<String> sortedNames(EntityComparator<Row> comparator, Row... rows) {
+    List<Row> sorted = new ArrayList<>(Arrays.asList(rows));
+    comparator.sort(sorted);
+    List<Row> expected = new ArrayList<>(Arrays.asList(rows));
+    expected.sort(comparator);
+    assertEquals(expected, sorted);
+    return sorted.stream().map(row -> row.name).collect(Collectors.toList());
+  }
+
+  private static Row[] rows(String... names) {
+    Row[] rows = new Row[names.length];
+    for (int i = 0; i < names.length; ++i) {
+      rows[i] = new Row(names[i], i);
+    }
+    return rows;
+  }
+
+  @Test
+  public void strings_nullFirstWhenAscending() {
+    assertEquals(
+        Arrays.asList(null, "A", "B", "a"),
+        sortedNames(comparator(NAME, Order.ASCENDING), rows("a", null, "B", "A")));
+  }
+
+  @Test
+  public void strings_comparedByCodePoint() {
+    // U+1F600 is encoded as a surrogate pair, whose first unit is smaller than U+E000.
+    assertEquals(
+        Arrays.asList("\uE000", "\uD83D\uDE00"),
+        sortedNames(comparator(NAME, Order.ASCENDING), rows("\uD83D\uDE00", "\uE000")));
+  }
+
+  @Test
+  public void strings_nullLastWhenDescending() {
+    assertEquals(
+        Arrays.asList("a", "B", "A", null),
+        sortedNames(comparator(NAME, Order.DESCENDING), rows("A", null, "a", "B")));
+  }
+
+  @Test
+  public void strings_nocaseIgnoresCase() {
+    assertEquals(
+        Arrays.asList(null, "a", "B", "c"),
+        sortedNames(comparator(NAME, Order.ASCENDING_NOCASE), rows("c", "B", null, "a")));
+    assertEquals(
+        Arrays.asList("c", "B", "a", null),
+        sortedNames(comparator(NAME, Order.DESCENDING_NOCASE), rows("a", "c", null, "B")));
+  }
+
+  @Test
+  public void strings_nocaseIsLocalized() {
+    assertEquals(
+        Arrays.asList("cote", "cot\u00e9", "c\u00f4te", "d"),
+        sortedNames(
+            comparator(NAME, Order.ASCENDING_NOCASE),
+            rows("d", "cot\u00e9", "c\u00f4te", "cote")));
+  }
+
+  @Test
+  public void strings_localeIsTheOneAtCreation() {
+    Locale.setDefault(new Locale("sv", "SE"));
+    EntityComparator<Row> swedish = comparator(NAME, Order.ASCENDING_NOCASE);
+    Locale.setDefault(Locale.US);
+    EntityComparator<Row> english = comparator(NAME, Order.ASCENDING_NOCASE);
+
+    // Swedish sorts a with a diaeresis after z, unlike English.
+    assertEquals(Arrays.asList("z", "\u00e4"), sortedNames(swedish, rows("\u00e4", "z")));
+    assertEquals(Arrays.asList("\u00e4", "z"), sortedNames(english, rows("z", "\u00e4")));
+  }
+
+  @Test
+  public void numbers_descending() {
+    Row first = new Row("first", 3);
+    Row second = new Row("second", -1);
+    Row third = new Row("third", Long.MIN_VALUE);
+    assertEquals(
+        Arrays.asList("first", "second", "third"),
+        sortedNames(comparator(RANK, Order.DESCENDING), third, first, second));
+  }
+
+  @Test
+  public void thenBy_breaksTies() {
+    EntityComparator<Row> comparator =
+        comparator(NAME, Order.ASCENDING_NOCASE).thenBy(RANK, Order.DESCENDING);
+    Row a1 = new Row("a", 1);
+    Row a2 = new Row("A", 2);
+    Row b1 = new Row("b", 1);
+    List<Row> sorted = new ArrayList<>(Arrays.asList(b1, a1, a2));
+    comparator.sort(sorted);
+    // "a" and "A" only differ by case, which the collator still distinguishes.
+    assertEquals(Arrays.asList(a1, a2, b1), sorted);
+
+    comparator = comparator(RANK, Order.ASCENDING).thenBy(NAME, Order.DESCENDING);
+    sorted = new ArrayList<>(Arrays.asList(a1, b1, a2));
+    comparator.sort(sorted);
+    assertEquals(Arrays.asList(b1, a1, a2), sorted);
+  }
+
+  @Test
+  public void sort_isStable() {
+    Row[] rows = new Row[100];
+    for (int i = 0; i < rows.length; ++i) {
+      rows[i] = new Row(i % 2 == 0 ? "x" : "X", i);
+    }
+    List<Row> sorted = new ArrayList<>(Arrays.asList(rows));
+    comparator(NAME, Order.ASCENDING_NOCASE).sort(sorted);
+    for (int i = 1; i < sorted.size(); ++i) {
+      Row previous = sorted.get(i - 1);
+      Row current = sorted.get(i);
+      assertTrue(!previous.name.equals(current.name) || previous.rank < current.rank);
+    }
+  }
+
+  @Test
+  public void thenBy_unknownField() {
+    try {
+      comparator(UNSORTED, Order.ASCENDING);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected.
+    }
+  }
+
+  @Test
+  public void staticThenBy_chainsCriteria() {
+    EntityComparator<Row> comparator =
+        EntityComparator.thenBy(null, criterionFor(NAME, Order.DESCENDING));
+    comparator = EntityComparator.thenBy(comparator, criterionFor(RANK, Order.ASCENDING));
+    Row b = new Row("b", 0);
+    Row a2 = new Row("a", 2);
+    Row a1 = new Row("a", 1);
+    List<Row> sorted = new ArrayList<>(Arrays.asList(a2, b, a1));
+    comparator.sort(sorted);
+    assertEquals(Arrays.asList(b, a1, a2), sorted);
+
+    try {
+      comparator.thenBy(NAME, Order.ASCENDING);
+      fail();
+    } catch (IllegalStateException e) {
+      // expected.
+    }
+  }
+
+  @Test
+  public void compare_concurrently() {
+    EntityComparator<Row> comparator = comparator(NAME, Order.ASCENDING_NOCASE);
+    Row[] rows =
+        IntStream.range(0, 20000)
+            .mapToObj(i -> new Row((i % 3 == 0 ? "\u00e9" : "e") + Integer.toString(i, 36), i))
+            .toArray(Row[]::new);
+    Row[] expected = rows.clone();
+    Arrays.sort(expected, comparator);
+
+    Arrays.parallelSort(rows, comparator);
+    assertEquals(Arrays.asList(expected), Arrays.asList(rows));
+  }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.junit.Test;
+
+/** Tests for {@link LiveQuery}. */
+public class LiveQueryTest {
+  private static final long WINDOW_MILLIS = 200;
+  /** How long to wait for a run that must not happen. */
+  private static final long QUIET_MILLIS = 3 * WINDOW_MILLIS;
+
+  /** Stands for the content observer that generated code registers. */
+  private static final class FakeObserver {
+    private LiveQuery<?> mLiveQuery;
+    private boolean mRegistered;
+    private int mUnregistrations;
+
+    void register(LiveQuery<?> liveQuery) {
+      synchronized (this) {
+        mLiveQuery = liveQuery;
+        mRegistered = true;
+      }
+      liveQuery.start(this::unregister);
+    }
+
+    synchronized void unregister() {
+      mRegistered = false;
+      ++mUnregistrations;
+    }
+
+    synchronized boolean isRegistered() {
+      return mRegistered;
+    }
+
+    synchronized int getUnregistrations() {
+      return mUnregistrations;
+    }
+
+    /** Delivers a change notification, as the content resolver does, if registered. */
+    void dispatchChange() {
+      LiveQuery<?> liveQuery;
+      synchronized (this) {
+        if (!mRegistered) {
+          return;
+        }
+        liveQuery = mLiveQuery;
+      }
+      liveQuery.onChange();
+    }
+  }
+
+  private static final class FakeQuery implements Supplier<List<Long>> {
+    final Semaphore started = new Semaphore(0);
+    final AtomicInteger runs = new AtomicInteger();
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    /** When set, runs wait for it to open before returning. */
+    volatile CountDownLatch gate;
+
+    volatile List<Long> results = Arrays.asList(1L, 2L);
+    volatile RuntimeException failure;
+
+    @Override
+    public List<Long> get() {
+      // Read before the run is reported as started, so that tests can then change them.
+      List<Long> results = this.results;
+      RuntimeException failure = this.failure;
+      runs.incrementAndGet();
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      started.release();
+      try {
+        CountDownLatch gate = this.gate;
+        if (gate != null) {
+          gate.await();
+        }
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      } finally {
+        running.decrementAndGet();
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      return results;
+    }
+
+    void awaitStart() throws InterruptedException {
+      assertTrue(started.tryAcquire(5, TimeUnit.SECONDS));
+    }
+
+    void assertNoStart() throws InterruptedException {
+      assertFalse(started.tryAcquire(QUIET_MILLIS, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  private static final class Recorder implements LiveQuery.Listener<Long> {
+    final BlockingQueue<List<Long>> results = new LinkedBlockingQueue<>();
+    final BlockingQueue<RuntimeException> errors = new LinkedBlockingQueue<>();
+
+    @Override
+    public void onChanged(List<Long> entities) {
+      results.add(entities);
+    }
+
+    @Override
+    public void onError(RuntimeException e) {
+      errors.add(e);
+    }
+
+    List<Long> awaitResults() throws InterruptedException {
+      List<Long> entities = results.poll(5, TimeUnit.SECONDS);
+      assertTrue(entities != null);
+      return entities;
+    }
+
+    void assertNoResults() throws InterruptedException {
+      assertNull(results.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  @Test
+  public void start_runsQueryOnce() throws InterruptedException {
+    FakeQuery query = new FakeQuery();
+    Recorder recorder = new Recorder();
+    new FakeObserver().register(new LiveQuery<>(query, null, WINDOW_MILLIS, recorder));
+
+    assertEquals(Arrays.asList(1L, 2L), recorder.awaitResults());
+    query.awaitStart();
+    query.assertNoStart();
+    assertEquals(1, query.runs.get());
+  }
+
+  @Test
+  public void notificationBurst_runsQueryOnce() throws InterruptedException {
+    FakeQuery query = new FakeQuery();
+    Recorder recorder = new Recorder();
+    FakeObserver observer = new FakeObserver();
+    observer.register(new LiveQuery<>(query, null, WINDOW_MILLIS, recorder));
+    recorder.awaitResults();
+    query.awaitStart();
+
+    long start = System.nanoTime();
+    for (int i = 0; i < 1000; ++i) {
+      observer.dispatchChange();
+    }
+    query.awaitStart();
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    recorder.awaitResults();
+
+    query.assertNoStart();
+    assertEquals(2, query.runs.get());
+    assertTrue("ran after " + elapsedMillis + " ms", elapsedMillis >= WINDOW_MILLIS);
+  }
+
+  @Test
+  public void notificationsWhileRunning_runQueryOnceMore() throws InterruptedException {
+    FakeQuery query = new FakeQuery();
+    CountDownLatch gate = new CountDownLatch(1);
+    query.gate = gate;
+    Recorder recorder = new Recorder();
+    FakeObserver observer = new FakeObserver();
+    observer.register(new LiveQuery<>(query, null, WINDOW_MILLIS, recorder));
+    query.awaitStart();
+
+    for (int i = 0; i < 100; ++i) {
+      observer.dispatchChange();
+    }
+    // The notifications do not start a second run while the first one is blocked.
+    query.assertNoStart();
+    query.gate = null;
+    gate.countDown();
+
+    recorder.awaitResults();
+    query.awaitStart();
+    recorder.awaitResults();
+    query.assertNoStart();
+    assertEquals(2, query.runs.get());
+    assertEquals(1, query.maxRunning.get());
+  }
+
+  @Test
+  public void notificationsAfterRun_runQueryAgain() throws InterruptedException {
+    FakeQuery query = new FakeQuery();
+    Recorder recorder = new Recorder();
+    FakeObserver observer = new FakeObserver();
+    observer.register(new LiveQuery<>(query, null, WINDOW_MILLIS, recorder));
+    recorder.awaitResults();
+
+    for (int i = 0; i < 3; ++i) {
+      query.results = Arrays.asList((long) i);
+      observer.dispatchChange();
+      assertEquals(Arrays.asList((long) i), recorder.awaitResults());
+    }
+    assertEquals(4, query.runs.get());
+  }
+
+  @Test
+  public void close_unregistersObserverOnce() throws InterruptedException {
+    FakeQuery query = new FakeQuery();
+    Recorder recorder = new Recorder();
+    FakeObserver observer = new FakeObserver();
+    LiveQuery<Long> liveQuery = new LiveQuery<>(query, null, WINDOW_MILLIS, recorder);
+    observer.register(liveQuery);
+    assertTrue(observer.isRegistered());
+    recorder.awaitResults();
+
+    liveQuery.close();
+    assertFalse(observer.isRegistered());
+    assertEquals(1, observer.getUnregistrations());
+    liveQuery.close();
+    assertEquals(1, observer.getUnregistrations());
+
+    // A notification already on its way when the observer was unregistered is ignored.
+    liveQuery.onChange();
+    query.awaitStart();
+    query.assertNoStart();
+    assertEquals(1, query.runs.get());
+  }
+
+  @Test
+  public void close_cancelsScheduledRun() throws InterruptedException {
+    FakeQuery query = new FakeQuery();
+    Recorder recorder = new Recorder();
+    FakeObserver observer = new FakeObserver();
+    LiveQuery<Long> liveQuery = new LiveQuery<>(query, null, WINDOW_MILLIS, recorder);
+    observer.register(liveQuery);
+    recorder.awaitResults();
+    query.awaitStart();
+
+    observer.dispatchChange();
+    liveQuery.close();
+
+    query.assertNoStart();
+    recorder.assertNoResults();
+  }
+
+  @Test
+  public void close_whileRunning_dropsResultsAndPendingRun() throws InterruptedException {
+    FakeQuery query = new FakeQuery();
+    CountDownLatch gate = new CountDownLatch(1);
+    query.gate = gate;
+    Recorder recorder = new Recorder();
+    FakeObserver observer = new FakeObserver();
+    LiveQuery<Long> liveQuery = new LiveQuery<>(query, null, WINDOW_MILLIS, recorder);
+    observer.register(liveQuery);
+    query.awaitStart();
+
+    observer.dispatchChange();
+    liveQuery.close();
+    assertEquals(1, observer.getUnregistrations());
+    gate.countDown();
+
+    recorder.assertNoResults();
+    query.assertNoStart();
+  }
+
+  @Test
+  public void sameFingerprints_areNotDelivered() throws InterruptedException {
+    FakeQuery query = new FakeQuery();
+    Recorder recorder = new Recorder();
+    FakeObserver observer = new FakeObserver();
+    observer.register(new LiveQuery<>(query, Long::longValue, WINDOW_MILLIS, recorder));
+    assertEquals(Arrays.asList(1L, 2L), recorder.awaitResults());
+    query.awaitStart();
+
+    query.results = Arrays.asList(1L, 2L);
+    observer.dispatchChange();
+    query.awaitStart();
+
+    query.results = Arrays.asList(1L, 3L);
+    observer.dispatchChange();
+    // The second run delivered nothing, so the next results are those of the third run.
+    assertEquals(Arrays.asList(1L, 3L), recorder.awaitResults());
+
+    query.results = Arrays.asList(1L, 3L, 0L);
+    observer.dispatchChange();
+    assertEquals(Arrays.asList(1L, 3L, 0L), recorder.awaitResults());
+    assertEquals(4, query.runs.get());
+  }
+
+  @Test
+  public void failure_isReportedAndObservingContinues() throws InterruptedException {
+    FakeQuery query = new FakeQuery();
+    IllegalStateException failure = new IllegalStateException();
+    query.failure = failure;
+    Recorder recorder = new Recorder();
+    FakeObserver observer = new FakeObserver();
+    observer.register(new LiveQuery<>(query, null, WINDOW_MILLIS, recorder));
+    assertSame(failure, recorder.errors.poll(5, TimeUnit.SECONDS));
+    assertTrue(observer.isRegistered());
+
+    query.failure = null;
+    observer.dispatchChange();
+    assertEquals(Arrays.asList(1L, 2L), recorder.awaitResults());
+    assertTrue(recorder.errors.isEmpty());
+  }
+
+  /** Calls the listener on a new thread, and returns what reached its uncaught handler. */
+  private static Throwable uncaughtFrom(LiveQuery.Listener<Long> listener, RuntimeException e)
+      throws InterruptedException {
+    BlockingQueue<Throwable> uncaught = new LinkedBlockingQueue<>();
+    Thread thread = new Thread(() -> listener.onError(e));
+    thread.setUncaughtExceptionHandler((t, u) -> uncaught.add(u));
+    thread.start();
+    thread.join();
+    return uncaught.poll();
+  }
+
+  @Test
+  public void defaultOnError_logsWithoutCrashing() throws InterruptedException {
+    List<LogRecord> records = new CopyOnWriteArrayList<>();
+    Handler handler =
+        new Handler() {
+          @Override
+          public void publish(LogRecord record) {
+            records.add(record);
+          }
+
+          @Override
+          public void flush() {}
+
+          @Override
+          public void close() {}
+        };
+    Logger logger = Logger.getLogger(LiveQuery.class.getName());
+    logger.addHandler(handler);
+    try {
+      IllegalStateException failure = new IllegalStateException();
+      assertNull(uncaughtFrom(entities -> {}, failure));
+      assertEquals(1, records.size());
+      assertSame(failure, records.get(0).getThrown());
+    } finally {
+      logger.removeHandler(handler);
+    }
+  }
+
+  @Test
+  public void rethrow_reachesUncaughtHandler() throws InterruptedException {
+    LiveQuery.Listener<Long> listener =
+        new LiveQuery.Listener<Long>() {
+          @Override
+          public void onChanged(List<Long> entities) {}
+
+          @Override
+          public void onError(RuntimeException e) {
+            LiveQuery.Listener.rethrow(e);
+          }
+        };
+    IllegalStateException failure = new IllegalStateException();
+    assertSame(failure, uncaughtFrom(listener, failure));
+  }
+
+  @Test
+  public void negativeWindow_throws() {
+    try {
+      new LiveQuery<>(new FakeQuery(), null, -1, new Recorder());
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
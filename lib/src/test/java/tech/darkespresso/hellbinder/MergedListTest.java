@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tech.darkespresso.hellbinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+/** Tests for {@link MergedList}. */
+public class MergedListTest {
+  private static final Comparator<Item> BY_KEY = (a, b) -> Integer.compare(a.key, b.key);
+
+  private static class Item {
+    final int key;
+    final int shard;
+
+    Item(int key, int shard) {
+      this.key = key;
+      this.shard = shard;
+    }
+
+    @Override
+    public String toString() {
+      return key + "@" + shard;
+    }
+  }
+
+  private static class FakeList extends AbstractList<Item> implements CloseableList<Item> {
+    private final List<Item> mItems;
+    private boolean mClosed;
+
+    FakeList(int shard, int... keys) {
+      mItems = new ArrayList<>(keys.length);
+      for (int key : keys) {
+        mItems.add(new Item(key, shard));
+      }
+    }
+
+    @Override
+    public Item get(int index) {
+      return get(index, null);
+    }
+
+    @Override
+    public Item get(int index, Item item) {
+      assertFalse(mClosed);
+      return mItems.get(index);
+    }
+
+    @Override
+    public int size() {
+      return mItems.size();
+    }
+
+    @Override
+    public void close() {
+      mClosed = true;
+    }
+  }
+
+  private static List<Callable<FakeList>> shards(FakeList... lists) {
+    List<Callable<FakeList>> shards = new ArrayList<>(lists.length);
+    for (FakeList list : lists) {
+      shards.add(() -> list);
+    }
+    return shards;
+  }
+
+  private static List<String> toStrings(List<Item> items) {
+    List<String> strings = new ArrayList<>(items.size());
+    for (Item item : items) {
+      strings.add(item.toString());
+    }
+    return strings;
+  }
+
+  @Test
+  public void fanOut_merges() {
+    MergedList<Item> merged =
+        MergedList.fanOut(
+            shards(new FakeList(0, 1, 4, 9), new FakeList(1, 2, 3, 10), new FakeList(2, 0)),
+            BY_KEY);
+
+    assertEquals(7, merged.size());
+    assertEquals(
+        Arrays.asList("0@2", "1@0", "2@1", "3@1", "4@0", "9@0", "10@1"), toStrings(merged));
+  }
+
+  @Test
+  public void fanOut_tiesKeepTheOrderOfTheShards() {
+    MergedList<Item> merged =
+        MergedList.fanOut(
+            shards(new FakeList(0, 1, 1, 2), new FakeList(1, 1, 2), new FakeList(2, 1, 2, 2)),
+            BY_KEY);
+
+    assertEquals(
+        Arrays.asList("1@0", "1@0", "1@1", "1@2", "2@0", "2@1", "2@2", "2@2"),
+        toStrings(merged));
+  }
+
+  @Test
+  public void fanOut_randomAccessBeforeIteration() {
+    MergedList<Item> merged =
+        MergedList.fanOut(shards(new FakeList(0, 5, 6), new FakeList(1, 1, 7)), BY_KEY);
+
+    assertEquals("7@1", merged.get(3).toString());
+    assertEquals("1@1", merged.get(0).toString());
+    try {
+      merged.get(4);
+      fail();
+    } catch (IndexOutOfBoundsException e) {
+      // expected.
+    }
+  }
+
+  @Test
+  public void fanOut_emptyShards() {
+    assertEquals(
+        Arrays.asList("1@1", "2@3", "3@1"),
+        toStrings(
+            MergedList.fanOut(
+                shards(
+                    new FakeList(0),
+                    new FakeList(1, 1, 3),
+                    new FakeList(2),
+                    new FakeList(3, 2),
+                    new FakeList(4)),
+                BY_KEY)));
+    assertEquals(
+        Arrays.asList("3@1", "1@1", "2@3"),
+        toStrings(
+            MergedList.fanOut(
+                shards(
+                    new FakeList(0),
+                    new FakeList(1, 3, 1),
+                    new FakeList(2),
+                    new FakeList(3, 2),
+                    new FakeList(4)),
+                null)));
+    assertTrue(MergedList.fanOut(shards(new FakeList(0), new FakeList(1)), BY_KEY).isEmpty());
+    assertTrue(MergedList.<Item>fanOut(Collections.emptyList(), null).isEmpty());
+  }
+
+  @Test
+  public void close_closesEveryShard() {
+    FakeList first = new FakeList(0, 1);
+    FakeList second = new FakeList(1);
+    MergedList<Item> merged = MergedList.fanOut(shards(first, second), BY_KEY);
+
+    merged.close();
+
+    assertTrue(first.mClosed);
+    assertTrue(second.mClosed);
+  }
+
+  @Test
+  public void fanOut_failingShardClosesTheOthers() {
+    FakeList first = new FakeList(0, 1);
+    FakeList third = new FakeList(2, 2);
+    CountDownLatch opened = new CountDownLatch(1);
+    AtomicBoolean thirdOpened = new AtomicBoolean();
+    IllegalStateException failure = new IllegalStateException();
+    List<Callable<FakeList>> shards =
+        Arrays.asList(
+            () -> {
+              opened.countDown();
+              return first;
+            },
+            () -> {
+              opened.await();
+              throw failure;
+            },
+            () -> {
+              thirdOpened.set(true);
+              return third;
+            });
+
+    try {
+      MergedList.fanOut(shards, BY_KEY);
+      fail();
+    } catch (IllegalStateException e) {
+      assertSame(failure, e);
+    }
+    assertTrue(first.mClosed);
+    // The last shard may have been skipped after the failure, but not left open.
+    assertEquals(thirdOpened.get(), third.mClosed);
+  }
+}
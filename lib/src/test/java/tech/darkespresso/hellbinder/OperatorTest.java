@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/** Tests for {@link Operator}. */
+public class OperatorTest {
+  @Test
+  public void toString_distinguishesOperators() {
+    assertEquals("STARTS WITH", Operator.STARTS_WITH.toString());
+    assertEquals("= COLLATE NOCASE", Operator.EQ_NOCASE.toString());
+    assertEquals(">=", Operator.GE.toString());
+    assertEquals("=", Operator.EQ.toString());
+  }
+
+  @Test
+  public void isTextual() {
+    for (Operator op : Operator.values()) {
+      assertEquals(op == Operator.STARTS_WITH || op == Operator.EQ_NOCASE, op.isTextual());
+    }
+  }
+
+  @Test
+  public void apply_startsWith() {
+    StringBuilder query = new StringBuilder();
+    List<String> args = new ArrayList<>();
+    Operator.STARTS_WITH.apply(query, args, "name", "ab");
+    assertEquals("(name >= ? AND name < ?)", query.toString());
+    assertEquals(Arrays.asList("ab", "ac"), args);
+  }
+
+  @Test
+  public void apply_startsWith_withoutUpperBound() {
+    StringBuilder query = new StringBuilder();
+    List<String> args = new ArrayList<>();
+    Operator.STARTS_WITH.apply(query, args, "name", "\udbff\udfff");
+    assertEquals("name >= ?", query.toString());
+    assertEquals(Arrays.asList("\udbff\udfff"), args);
+  }
+
+  @Test
+  public void apply_eqNoCase() {
+    StringBuilder query = new StringBuilder();
+    List<String> args = new ArrayList<>();
+    Operator.EQ_NOCASE.apply(query, args, "name", "Ab");
+    assertEquals("name = ? COLLATE NOCASE", query.toString());
+    assertEquals(Arrays.asList("Ab"), args);
+  }
+
+  @Test
+  public void apply_textualWithSubquery_throws() {
+    Subquery subquery = new Subquery("SELECT 1", new String[0]);
+    for (Operator op : Arrays.asList(Operator.STARTS_WITH, Operator.EQ_NOCASE)) {
+      try {
+        op.apply(new StringBuilder(), new ArrayList<>(), "name", subquery);
+        fail();
+      } catch (IllegalArgumentException expected) {
+        assertTrue(expected.getMessage().startsWith(op.name()));
+      }
+    }
+  }
+
+  @Test
+  public void upperBound() {
+    assertEquals("b", Operator.upperBound("a"));
+    assertEquals("b", Operator.upperBound("a\udbff\udfff"));
+    // Surrogates are skipped.
+    assertEquals("\ue000", Operator.upperBound("\ud7ff"));
+    assertEquals("\ud800\udc00", Operator.upperBound("\uffff"));
+    assertNull(Operator.upperBound("\udbff\udfff"));
+    assertNull(Operator.upperBound(""));
+  }
+}
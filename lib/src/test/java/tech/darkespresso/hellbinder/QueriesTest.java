@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tech.darkespresso.hellbinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+/** Tests for {@link Queries}. */
+public class QueriesTest {
+  private static final Object RESOLVER = new Object();
+
+  private static class FakeList extends AbstractList<String> implements CloseableList<String> {
+    private final List<String> mValues;
+    private volatile boolean mClosed;
+
+    FakeList(String... values) {
+      mValues = Arrays.asList(values);
+    }
+
+    @Override
+    public String get(int index) {
+      return get(index, null);
+    }
+
+    @Override
+    public String get(int index, String value) {
+      return mValues.get(index);
+    }
+
+    @Override
+    public int size() {
+      return mValues.size();
+    }
+
+    @Override
+    public void close() {
+      mClosed = true;
+    }
+  }
+
+  /** A query returning the given list, after checking the content resolver. */
+  private static class FakeQuery implements QueryExecutor<String, Object> {
+    private final CloseableList<String> mList;
+    private final List<Thread> mThreads = new ArrayList<>();
+
+    FakeQuery(CloseableList<String> list) {
+      mList = list;
+    }
+
+    @Override
+    public CloseableList<String> get(Object contentResolver) {
+      assertSame(RESOLVER, contentResolver);
+      synchronized (mThreads) {
+        mThreads.add(Thread.currentThread());
+      }
+      return mList;
+    }
+
+    @Override
+    public int count(Object contentResolver) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  @Test
+  public void cannotInstantiate() {
+    Constructor[] constructors = Queries.class.getDeclaredConstructors();
+    assertEquals(1, constructors.length);
+    Constructor constructor = constructors[0];
+
+    assertTrue(Modifier.isPrivate(constructor.getModifiers()));
+    assertEquals(0, constructor.getParameterCount());
+
+    try {
+      constructor.setAccessible(true);
+      constructor.newInstance();
+      fail();
+    } catch (IllegalAccessException | InstantiationException e) {
+      fail();
+    } catch (InvocationTargetException e) {
+      // success.
+    }
+  }
+
+  @Test
+  public void all_returnsEveryList() {
+    FakeList accounts = new FakeList("a", "b");
+    FakeList messages = new FakeList("m");
+    FakeList empty = new FakeList();
+    FakeQuery accountQuery = new FakeQuery(accounts);
+    FakeQuery messageQuery = new FakeQuery(messages);
+    FakeQuery emptyQuery = new FakeQuery(empty);
+
+    Queries.Results results = Queries.all(RESOLVER, accountQuery, messageQuery, emptyQuery);
+
+    assertEquals(3, results.size());
+    assertSame(accounts, results.get(0));
+    assertSame(messages, results.get(1));
+    assertSame(empty, results.get(2));
+    assertSame(accounts, results.get(accountQuery));
+    assertSame(messages, results.get(messageQuery));
+    assertSame(empty, results.get(emptyQuery));
+    // The last query is run by the calling thread.
+    assertEquals(Arrays.asList(Thread.currentThread()), emptyQuery.mThreads);
+  }
+
+  @Test
+  public void all_noQueries() {
+    assertEquals(0, Queries.all(RESOLVER).size());
+  }
+
+  @Test
+  public void all_nullList() {
+    FakeQuery query = new FakeQuery(null);
+    Queries.Results results = Queries.all(RESOLVER, query, new FakeQuery(new FakeList()));
+
+    assertNull(results.get(query));
+    // Closing skips the missing list.
+    results.close();
+  }
+
+  @Test
+  public void get_unknownQuery() {
+    Queries.Results results = Queries.all(RESOLVER, new FakeQuery(new FakeList()));
+    try {
+      results.get(new FakeQuery(new FakeList()));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected.
+    }
+  }
+
+  @Test
+  public void close_closesEveryList() {
+    FakeList first = new FakeList("a");
+    FakeList second = new FakeList("b");
+    Queries.Results results = Queries.all(RESOLVER, new FakeQuery(first), new FakeQuery(second));
+    assertFalse(first.mClosed || second.mClosed);
+
+    results.close();
+
+    assertTrue(first.mClosed);
+    assertTrue(second.mClosed);
+  }
+
+  @Test
+  public void all_failureClosesTheOtherLists() {
+    FakeList first = new FakeList("a");
+    CountDownLatch opened = new CountDownLatch(1);
+    IllegalStateException failure = new IllegalStateException();
+    QueryExecutor<String, Object> failing =
+        new FakeQuery(null) {
+          @Override
+          public CloseableList<String> get(Object contentResolver) {
+            try {
+              opened.await();
+            } catch (InterruptedException e) {
+              throw new AssertionError(e);
+            }
+            throw failure;
+          }
+        };
+    QueryExecutor<String, Object> succeeding =
+        new FakeQuery(first) {
+          @Override
+          public CloseableList<String> get(Object contentResolver) {
+            opened.countDown();
+            return super.get(contentResolver);
+          }
+        };
+
+    try {
+      Queries.all(RESOLVER, succeeding, failing);
+      fail();
+    } catch (IllegalStateException e) {
+      assertSame(failure, e);
+    }
+    assertTrue(first.mClosed);
+  }
+
+  @Test
+  public void all_interrupted() {
+    FakeList first = new FakeList("a");
+    FakeList last = new FakeList("b");
+    CountDownLatch started = new CountDownLatch(1);
+    QueryExecutor<String, Object> slow =
+        new FakeQuery(first) {
+          @Override
+          public CloseableList<String> get(Object contentResolver) {
+            started.countDown();
+            try {
+              Thread.sleep(50);
+            } catch (InterruptedException e) {
+              throw new AssertionError(e);
+            }
+            return super.get(contentResolver);
+          }
+        };
+    QueryExecutor<String, Object> interrupting =
+        new FakeQuery(last) {
+          @Override
+          public CloseableList<String> get(Object contentResolver) {
+            try {
+              started.await();
+            } catch (InterruptedException e) {
+              throw new AssertionError(e);
+            }
+            Thread.currentThread().interrupt();
+            return super.get(contentResolver);
+          }
+        };
+
+    try {
+      Queries.all(RESOLVER, slow, interrupting);
+      fail();
+    } catch (CancellationException e) {
+      // expected.
+    } finally {
+      assertTrue(Thread.interrupted());
+    }
+    assertTrue(first.mClosed);
+    assertTrue(last.mClosed);
+  }
+}
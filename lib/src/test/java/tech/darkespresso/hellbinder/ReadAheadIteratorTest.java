@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tech.darkespresso.hellbinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.AbstractList;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.Test;
+
+/** Tests for {@link ReadAheadIterator}. */
+public class ReadAheadIteratorTest {
+  /** A mutable entity, so that recycling can be observed. */
+  private static class Holder {
+    int value;
+  }
+
+  /** A list of the integers from 0 to size - 1, binding them into recycled holders. */
+  private static class FakeList extends AbstractList<Holder> implements CloseableList<Holder> {
+    private final int mSize;
+    private final int mFailAt;
+    private final long mDelayNanos;
+    volatile int allocated;
+    volatile boolean closed;
+
+    FakeList(int size) {
+      this(size, -1, 0);
+    }
+
+    FakeList(int size, int failAt, long delayNanos) {
+      mSize = size;
+      mFailAt = failAt;
+      mDelayNanos = delayNanos;
+    }
+
+    @Override
+    public Holder get(int index) {
+      return get(index, null);
+    }
+
+    @Override
+    public Holder get(int index, Holder holder) {
+      assertFalse(closed);
+      if (index == mFailAt) {
+        throw new IllegalStateException("row " + index);
+      }
+      if (mDelayNanos > 0) {
+        LockSupport.parkNanos(mDelayNanos);
+      }
+      if (holder == null) {
+        holder = new Holder();
+        ++allocated;
+      }
+      holder.value = index;
+      return holder;
+    }
+
+    @Override
+    public int size() {
+      return mSize;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  @Test
+  public void next_returnsEveryRowInOrder() {
+    Random random = new Random(42);
+    for (int capacity : new int[] {1, 2, 3, 16, 1000}) {
+      FakeList list = new FakeList(5000);
+      ReadAheadIterator<Holder> iterator = new ReadAheadIterator<>(list, capacity);
+      for (int i = 0; i < 5000; ++i) {
+        assertTrue(iterator.hasNext());
+        assertEquals(i, iterator.next().value);
+        if (random.nextInt(500) == 0) {
+          // Let the producer fill the ring.
+          LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(2));
+        }
+      }
+      assertFalse(iterator.hasNext());
+      iterator.close();
+      assertTrue(list.closed);
+      // The entities are recycled: one per slot, plus the one held by the consumer.
+      assertTrue(list.allocated <= capacity + 1);
+    }
+  }
+
+  @Test
+  public void next_waitsForASlowProducer() {
+    FakeList list = new FakeList(50, -1, TimeUnit.MILLISECONDS.toNanos(1));
+    ReadAheadIterator<Holder> iterator = new ReadAheadIterator<>(list, 4);
+    for (int i = 0; i < 50; ++i) {
+      assertEquals(i, iterator.next().value);
+    }
+    assertFalse(iterator.hasNext());
+    iterator.close();
+    assertTrue(list.closed);
+  }
+
+  @Test
+  public void next_afterTheEnd() {
+    FakeList list = new FakeList(0);
+    ReadAheadIterator<Holder> iterator = new ReadAheadIterator<>(list, 1);
+    assertFalse(iterator.hasNext());
+    try {
+      iterator.next();
+      fail();
+    } catch (NoSuchElementException e) {
+      // expected.
+    }
+    iterator.close();
+    assertTrue(list.closed);
+  }
+
+  @Test
+  public void next_failureIsThrownAfterThePreviousRows() {
+    FakeList list = new FakeList(10, 3, 0);
+    ReadAheadIterator<Holder> iterator = new ReadAheadIterator<>(list, 8);
+    for (int i = 0; i < 3; ++i) {
+      assertEquals(i, iterator.next().value);
+    }
+    try {
+      iterator.next();
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("row 3", e.getMessage());
+    }
+    assertTrue(list.closed);
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void close_stopsTheProducerEarly() {
+    FakeList list = new FakeList(1000);
+    ReadAheadIterator<Holder> iterator = new ReadAheadIterator<>(list, 2);
+    assertEquals(0, iterator.next().value);
+
+    iterator.close();
+
+    assertTrue(list.closed);
+    assertFalse(iterator.hasNext());
+    // Closing again does nothing.
+    iterator.close();
+  }
+
+  @Test
+  public void close_restoresTheInterruptFlag() {
+    FakeList list = new FakeList(1000);
+    ReadAheadIterator<Holder> iterator = new ReadAheadIterator<>(list, 2);
+
+    Thread.currentThread().interrupt();
+    iterator.close();
+
+    assertTrue(Thread.interrupted());
+    assertTrue(list.closed);
+  }
+
+  @Test
+  public void constructor_invalidCapacity() {
+    FakeList list = new FakeList(3);
+    try {
+      new ReadAheadIterator<>(list, 0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected.
+    }
+    assertTrue(list.closed);
+  }
+
+  @Test
+  public void abandonedIterator_closesTheList() throws InterruptedException {
+    FakeList list = new FakeList(1000);
+    startAndAbandon(list);
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (!list.closed && System.nanoTime() < deadline) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    assertTrue(list.closed);
+  }
+
+  private static void startAndAbandon(FakeList list) {
+    ReadAheadIterator<Holder> iterator = new ReadAheadIterator<>(list, 2);
+    assertEquals(0, iterator.next().value);
+  }
+}
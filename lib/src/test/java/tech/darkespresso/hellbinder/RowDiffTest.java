@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+/** Tests for {@link RowDiff}. */
+public class RowDiffTest {
+  private static final class Row {
+    final long id;
+    final String name;
+
+    Row(long id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    long fingerprint() {
+      return RowDiff.mix(RowDiff.mix(RowDiff.SEED, id), name);
+    }
+  }
+
+  /** Records the operations, and applies them to a copy of the old list. */
+  private static final class Recorder implements RowDiff.Callback {
+    final List<String> operations = new ArrayList<>();
+    /** The rows of the old list, null where rows were inserted or changed. */
+    final List<Row> rows;
+    final Set<Integer> changed = new HashSet<>();
+
+    Recorder(List<Row> oldList) {
+      rows = new ArrayList<>(oldList);
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+      operations.add("insert " + position + " " + count);
+      rows.addAll(position, Collections.nCopies(count, null));
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+      operations.add("remove " + position + " " + count);
+      rows.subList(position, position + count).clear();
+    }
+
+    @Override
+    public void onChanged(int position, int count) {
+      operations.add("change " + position + " " + count);
+      for (int i = position; i < position + count; ++i) {
+        assertTrue("changed twice: " + i, changed.add(i));
+        rows.set(i, null);
+      }
+    }
+  }
+
+  private static List<Row> rows(Object... idsAndNames) {
+    List<Row> rows = new ArrayList<>();
+    for (int i = 0; i < idsAndNames.length; i += 2) {
+      rows.add(new Row(((Number) idsAndNames[i]).longValue(), (String) idsAndNames[i + 1]));
+    }
+    return rows;
+  }
+
+  /**
+   * Diffs the lists, checks that applying the operations to the old list yields the new one, and
+   * returns the operations.
+   */
+  private static List<String> diff(List<Row> oldList, List<Row> newList) {
+    Recorder recorder = new Recorder(oldList);
+    RowDiff.diff(oldList, newList, row -> row.id, Row::fingerprint, recorder);
+    assertEquals(newList.size(), recorder.rows.size());
+    Set<Long> oldIds = new HashSet<>();
+    for (Row row : oldList) {
+      oldIds.add(row.id);
+    }
+    for (int i = 0; i < newList.size(); ++i) {
+      Row expected = newList.get(i);
+      Row kept = recorder.rows.get(i);
+      if (kept != null) {
+        // Rows which are not reported keep their id and their columns.
+        assertEquals(expected.id, kept.id);
+        assertEquals(expected.fingerprint(), kept.fingerprint());
+      } else if (recorder.changed.contains(i)) {
+        assertTrue(oldIds.contains(expected.id));
+      } else {
+        assertFalse(oldIds.contains(expected.id));
+      }
+    }
+    return recorder.operations;
+  }
+
+  @Test
+  public void mix_dependsOnValuesAndOrder() {
+    long a = RowDiff.mix(RowDiff.mix(RowDiff.SEED, 1L), 2L);
+    long b = RowDiff.mix(RowDiff.mix(RowDiff.SEED, 2L), 1L);
+    assertNotEquals(a, b);
+    assertEquals(a, RowDiff.mix(RowDiff.mix(RowDiff.SEED, 1L), 2L));
+    assertNotEquals(RowDiff.mix(RowDiff.SEED, 0L), RowDiff.SEED);
+    assertNotEquals(RowDiff.mix(RowDiff.SEED, 1.0), RowDiff.mix(RowDiff.SEED, 1.5));
+  }
+
+  @Test
+  public void mix_strings() {
+    assertEquals(RowDiff.mix(RowDiff.SEED, "ab"), RowDiff.mix(RowDiff.SEED, new String("ab")));
+    assertNotEquals(RowDiff.mix(RowDiff.SEED, "ab"), RowDiff.mix(RowDiff.SEED, "ba"));
+    assertNotEquals(RowDiff.mix(RowDiff.SEED, "a"), RowDiff.mix(RowDiff.SEED, "a\u0000"));
+    assertNotEquals(RowDiff.mix(RowDiff.SEED, (String) null), RowDiff.mix(RowDiff.SEED, ""));
+    assertNotEquals(
+        RowDiff.mix(RowDiff.SEED, (String) null), RowDiff.mix(RowDiff.SEED, "null"));
+    // Columns are not concatenated: moving a character to the next column changes the row.
+    assertNotEquals(
+        RowDiff.mix(RowDiff.mix(RowDiff.SEED, "ab"), "c"),
+        RowDiff.mix(RowDiff.mix(RowDiff.SEED, "a"), "bc"));
+  }
+
+  @Test
+  public void diff_identicalLists_reportsNothing() {
+    List<Row> rows = rows(1, "a", 2, "b", 3, "c");
+    assertEquals(Collections.emptyList(), diff(rows, rows(1, "a", 2, "b", 3, "c")));
+    assertEquals(Collections.emptyList(), diff(rows(), rows()));
+  }
+
+  @Test
+  public void diff_inserted() {
+    assertEquals(
+        Arrays.asList("insert 0 1", "insert 2 2", "insert 5 1"),
+        diff(rows(2, "b", 5, "e"), rows(1, "a", 2, "b", 3, "c", 4, "d", 5, "e", 6, "f")));
+    assertEquals(Arrays.asList("insert 0 2"), diff(rows(), rows(1, "a", 2, "b")));
+  }
+
+  @Test
+  public void diff_removed() {
+    assertEquals(
+        Arrays.asList("remove 0 1", "remove 1 2", "remove 2 1"),
+        diff(rows(1, "a", 2, "b", 3, "c", 4, "d", 5, "e", 6, "f"), rows(2, "b", 5, "e")));
+    assertEquals(Arrays.asList("remove 0 2"), diff(rows(1, "a", 2, "b"), rows()));
+  }
+
+  @Test
+  public void diff_changed() {
+    assertEquals(
+        Arrays.asList("change 0 2", "change 3 1"),
+        diff(rows(1, "a", 2, "b", 3, "c", 4, "d"), rows(1, "A", 2, "B", 3, "c", 4, "D")));
+  }
+
+  @Test
+  public void diff_changedToNull() {
+    assertEquals(Arrays.asList("change 1 1"), diff(rows(1, "a", 2, ""), rows(1, "a", 2, null)));
+  }
+
+  @Test
+  public void diff_mixedOperations_positionsFollowPreviousOperations() {
+    assertEquals(
+        Arrays.asList("remove 0 1", "insert 0 1", "change 1 1", "insert 2 1", "remove 4 1"),
+        diff(rows(1, "a", 3, "c", 5, "e", 7, "g"), rows(2, "b", 3, "C", 4, "d", 5, "e")));
+  }
+
+  @Test
+  public void diff_rowsShiftedByInsertions_areNotReported() {
+    // The rows with ids 5 and 6 move to later positions, but keep their order and columns.
+    assertEquals(
+        Arrays.asList("insert 0 2"),
+        diff(rows(5, "e", 6, "f"), rows(1, "a", 2, "b", 5, "e", 6, "f")));
+  }
+
+  @Test
+  public void diff_randomLists() {
+    Random random = new Random(42);
+    for (int round = 0; round < 500; ++round) {
+      List<Row> oldList = new ArrayList<>();
+      List<Row> newList = new ArrayList<>();
+      for (long id = 0; id < 30; ++id) {
+        int kind = random.nextInt(5);
+        String name = Integer.toString(random.nextInt(3));
+        if (kind != 0) {
+          oldList.add(new Row(id, name));
+        }
+        if (kind != 1) {
+          newList.add(new Row(id, kind == 2 ? Integer.toString(random.nextInt(3)) : name));
+        }
+      }
+      diff(oldList, newList);
+    }
+  }
+
+  @Test
+  public void diff_unsortedList_throws() {
+    assertThrows(rows(2, "b", 1, "a"), rows(1, "a", 2, "b"));
+    assertThrows(rows(1, "a", 2, "b"), rows(2, "b", 1, "a"));
+  }
+
+  @Test
+  public void diff_duplicateIds_throws() {
+    assertThrows(rows(1, "a", 1, "b"), rows(1, "a"));
+    assertThrows(rows(1, "a", 2, "b"), rows(1, "a", 2, "b", 2, "c"));
+  }
+
+  private static void assertThrows(List<Row> oldList, List<Row> newList) {
+    try {
+      RowDiff.diff(oldList, newList, row -> row.id, Row::fingerprint, new Recorder(oldList));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
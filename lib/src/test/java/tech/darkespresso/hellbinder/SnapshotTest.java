@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package tech.darkespresso.hellbinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+/** Tests for {@link Snapshot}. */
+public class SnapshotTest {
+  private static final List<String> COLUMNS = Arrays.asList("id", "name", "score");
+
+  private static final ColumnAccessor<Row> ID = ColumnAccessor.ofLong(row -> row.id);
+  private static final ColumnAccessor<Row> NAME = ColumnAccessor.ofString(row -> row.name);
+  private static final ColumnAccessor<Row> SCORE = ColumnAccessor.ofDouble(row -> row.score);
+
+  private static final class Row {
+    final long id;
+    final String name;
+    final double score;
+
+    Row(long id, String name, double score) {
+      this.id = id;
+      this.name = name;
+      this.score = score;
+    }
+
+    @Override
+    public String toString() {
+      return id + ":" + name + ":" + score;
+    }
+  }
+
+  private static ColumnAccessor<Row> column(String column) {
+    switch (column) {
+      case "id":
+        return ID;
+      case "name":
+        return NAME;
+      case "score":
+        return SCORE;
+      default:
+        throw new IllegalArgumentException(column);
+    }
+  }
+
+  /** Rows with NULLs, duplicate values, and strings around {@code U+FFFF}. */
+  private static List<Row> rows() {
+    return Arrays.asList(
+        new Row(3, "b", 1.5),
+        new Row(1, null, 0.0),
+        new Row(2, "a", -0.0),
+        new Row(3, "\uffff", 2),
+        new Row(-1, "a", -1),
+        new Row(5, "\uffff\uffff", 1.5),
+        new Row(4, "\ud800\udc00", Double.MAX_VALUE),
+        new Row(2, null, 1.5),
+        new Row(6, "a\uffff", -Double.MAX_VALUE),
+        new Row(7, "", 0),
+        new Row(8, "\udbff\udfff", 3),
+        new Row(9, "\udbff\udfffa", 3),
+        new Row(Long.MAX_VALUE, "ab", Double.POSITIVE_INFINITY),
+        new Row(Long.MIN_VALUE, "A", Double.NEGATIVE_INFINITY));
+  }
+
+  /**
+   * Filters the rows with and without indexes, checks that the results agree, and returns them.
+   */
+  private static List<Row> filter(Condition condition) {
+    List<Row> rows = rows();
+    Snapshot<Row> indexed = new Snapshot<>(rows, SnapshotTest::column, COLUMNS);
+    Snapshot<Row> scanned =
+        new Snapshot<>(rows, SnapshotTest::column, Collections.<String>emptyList());
+    List<Row> expected = scanned.filter(condition);
+    List<Row> actual = indexed.filter(condition);
+    assertEquals(condition.toString(), expected, actual);
+    // Filtering again reuses the indexes built the first time.
+    assertEquals(condition.toString(), expected, indexed.filter(condition));
+    return actual;
+  }
+
+  private static List<Long> ids(List<Row> rows) {
+    List<Long> ids = new ArrayList<>(rows.size());
+    for (Row row : rows) {
+      ids.add(row.id);
+    }
+    return ids;
+  }
+
+  @Test
+  public void filter_comparisons_matchWithoutIndexes() {
+    List<Operator> operators =
+        Arrays.asList(
+            Operator.EQ,
+            Operator.NE,
+            Operator.LT,
+            Operator.LE,
+            Operator.GT,
+            Operator.GE,
+            Operator.IN,
+            Operator.NOT_IN,
+            Operator.STARTS_WITH);
+    List<String> names =
+        Arrays.asList(
+            "", "a", "A", "ab", "b", "c", "\uffff", "a\uffff", "\ud800\udc00", "\udbff\udfff");
+    List<String> numbers =
+        Arrays.asList(
+            "0", "-0", "1", "1.5", "2", "3", " 3 ", "-1", "x", "9223372036854775807",
+            "-9223372036854775808", "1e308");
+    for (Operator op : operators) {
+      for (String name : names) {
+        filter(Condition.compare("name", op, name));
+      }
+      if (op.isTextual()) {
+        continue;
+      }
+      for (String number : numbers) {
+        filter(Condition.compare("id", op, number));
+        filter(Condition.compare("score", op, number));
+      }
+    }
+  }
+
+  @Test
+  public void filter_between_matchesWithoutIndexes() {
+    filter(Condition.compare("name", Operator.BETWEEN, "a", "\uffff"));
+    filter(Condition.compare("name", Operator.BETWEEN, "\uffff", "\ud800\udc00"));
+    filter(Condition.compare("name", Operator.BETWEEN, "b", "a"));
+    filter(Condition.compare("id", Operator.BETWEEN, "2", "3"));
+    filter(Condition.compare("id", Operator.BETWEEN, "-1", "x"));
+    filter(Condition.compare("score", Operator.BETWEEN, "-0", "1.5"));
+  }
+
+  @Test
+  public void filter_startsWith_atMaxChar() {
+    assertEquals(
+        Arrays.asList(3L, 5L),
+        ids(filter(Condition.compare("name", Operator.STARTS_WITH, "\uffff"))));
+    assertEquals(
+        Arrays.asList(6L), ids(filter(Condition.compare("name", Operator.STARTS_WITH, "a\uffff"))));
+    // The largest code point has no upper bound, so the prefix only sets a lower one.
+    assertEquals(
+        Arrays.asList(8L, 9L),
+        ids(filter(Condition.compare("name", Operator.STARTS_WITH, "\udbff\udfff"))));
+    assertEquals(
+        Arrays.asList(2L, -1L, 6L, Long.MAX_VALUE),
+        ids(filter(Condition.compare("name", Operator.STARTS_WITH, "a"))));
+  }
+
+  @Test
+  public void filter_nulls() {
+    assertEquals(Arrays.asList(1L, 2L), ids(filter(Condition.isNull("name", true))));
+    assertEquals(12, filter(Condition.isNull("name", false)).size());
+    // NULL satisfies no comparison, whether or not the column is indexed.
+    assertEquals(Arrays.asList(3L), ids(filter(Condition.compare("name", Operator.EQ, "b"))));
+    assertEquals(11, filter(Condition.compare("name", Operator.NE, "b")).size());
+    filter(Condition.or(Condition.isNull("name", true), Condition.compare("id", Operator.EQ, "3")));
+  }
+
+  @Test
+  public void filter_duplicates_keepSnapshotOrder() {
+    assertEquals(
+        Arrays.asList(2L, -1L), ids(filter(Condition.compare("name", Operator.EQ, "a"))));
+    assertEquals(
+        Arrays.asList(3L, 3L), ids(filter(Condition.compare("id", Operator.EQ, "3"))));
+    assertEquals(
+        Arrays.asList(3L, 5L, 2L),
+        ids(filter(Condition.compare("score", Operator.EQ, "1.5"))));
+    // 0.0 and -0.0 are equal.
+    assertEquals(
+        Arrays.asList(1L, 2L, 7L), ids(filter(Condition.compare("score", Operator.EQ, "-0"))));
+  }
+
+  @Test
+  public void filter_junctions_matchWithoutIndexes() {
+    Condition a = Condition.compare("name", Operator.EQ, "a");
+    Condition three = Condition.compare("id", Operator.GE, "3");
+    Condition score = Condition.compare("score", Operator.LT, "1.5");
+    Condition like = Condition.compare("name", Operator.LIKE, "A%");
+    filter(Condition.and(a, score));
+    filter(Condition.or(a, three));
+    filter(Condition.or(a, like));
+    filter(Condition.and(like, three));
+    filter(Condition.and(Condition.or(a, three), Condition.or(score, like)));
+    filter(Condition.or(Condition.and(a, score), Condition.and(three, like)));
+  }
+
+  @Test
+  public void filter_usesIndexes() {
+    Snapshot<Row> snapshot = new Snapshot<>(rows(), SnapshotTest::column, COLUMNS);
+    assertNotNull(snapshot.index("name"));
+    assertNotNull(snapshot.index("id"));
+    assertNotNull(snapshot.index("score"));
+  }
+
+  @Test
+  public void update_dropsIndexes() {
+    Snapshot<Row> snapshot = new Snapshot<>(rows(), SnapshotTest::column, COLUMNS);
+    Condition a = Condition.compare("name", Operator.EQ, "a");
+    assertEquals(Arrays.asList(2L, -1L), ids(snapshot.filter(a)));
+    snapshot.update(Arrays.asList(new Row(10, "a", 0), new Row(11, "b", 0)));
+    assertEquals(Arrays.asList(10L), ids(snapshot.filter(a)));
+  }
+
+  @Test
+  public void merge_dropsIndexes() {
+    Snapshot<Row> snapshot = new Snapshot<>(rows(), SnapshotTest::column, COLUMNS);
+    Condition b = Condition.compare("name", Operator.EQ, "b");
+    assertEquals(Arrays.asList(3L), ids(snapshot.filter(b)));
+    long[] missing =
+        snapshot.merge(
+            new long[] {7, 12, 5}, Arrays.asList(new Row(7, "b", 0)), row -> row.id);
+    assertEquals(1, missing.length);
+    assertEquals(12, missing[0]);
+    assertEquals(Arrays.asList(7L), ids(snapshot.filter(b)));
+  }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2017, DarkEspresso
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package tech.darkespresso.hellbinder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+/** Tests for {@link Workers}. */
+public class WorkersTest {
+  private static class Resource implements AutoCloseable {
+    volatile boolean closed;
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  @Test
+  public void cannotInstantiate() {
+    Constructor[] constructors = Workers.class.getDeclaredConstructors();
+    assertEquals(1, constructors.length);
+    Constructor constructor = constructors[0];
+
+    assertTrue(Modifier.isPrivate(constructor.getModifiers()));
+    assertEquals(0, constructor.getParameterCount());
+
+    try {
+      constructor.setAccessible(true);
+      constructor.newInstance();
+      fail();
+    } catch (IllegalAccessException | InstantiationException e) {
+      fail();
+    } catch (InvocationTargetException e) {
+      // success.
+    }
+  }
+
+  @Test
+  public void invokeAll_returnsResultsInOrder() {
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int i = 0; i < 20; ++i) {
+      final int value = i;
+      tasks.add(
+          () -> {
+            Thread.sleep(20 - value);
+            return value;
+          });
+    }
+
+    List<Integer> results = Workers.invokeAll(tasks);
+
+    for (int i = 0; i < 20; ++i) {
+      assertEquals(i, (int) results.get(i));
+    }
+  }
+
+  @Test
+  public void invokeAll_runsTheLastTaskOnTheCallingThread() {
+    Thread caller = Thread.currentThread();
+
+    List<Thread> threads =
+        Workers.invokeAll(Arrays.asList(Thread::currentThread, Thread::currentThread));
+    assertFalse(threads.get(0) == caller);
+    assertSame(caller, threads.get(1));
+
+    assertSame(caller, Workers.invokeAll(Collections.singletonList(Thread::currentThread)).get(0));
+    assertTrue(Workers.invokeAll(Collections.<Callable<Object>>emptyList()).isEmpty());
+  }
+
+  @Test
+  public void invokeAll_nestedCallsRunInline() {
+    // Every worker waits for more tasks than the pool has threads: this only completes if nested
+    // tasks do not need a free worker.
+    int count = Workers.parallelism() * 2;
+    List<Callable<List<Thread>>> tasks = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      tasks.add(
+          () -> {
+            List<Callable<Thread>> nested = new ArrayList<>();
+            for (int j = 0; j < count; ++j) {
+              nested.add(Thread::currentThread);
+            }
+            return Workers.invokeAll(nested);
+          });
+    }
+
+    List<List<Thread>> results = Workers.invokeAll(tasks);
+
+    for (List<Thread> threads : results.subList(0, count - 1)) {
+      assertEquals(Collections.nCopies(count, threads.get(0)), threads);
+    }
+  }
+
+  @Test
+  public void invokeAll_failureClosesTheOtherResults() {
+    Resource first = new Resource();
+    Resource third = new Resource();
+    CountDownLatch opened = new CountDownLatch(2);
+    IllegalStateException failure = new IllegalStateException();
+    List<Callable<Resource>> tasks =
+        Arrays.asList(
+            () -> {
+              opened.countDown();
+              return first;
+            },
+            () -> {
+              opened.await();
+              throw failure;
+            },
+            () -> {
+              // Still running when the failure happens.
+              opened.countDown();
+              Thread.sleep(50);
+              return third;
+            });
+
+    try {
+      Workers.invokeAll(tasks);
+      fail();
+    } catch (IllegalStateException e) {
+      assertSame(failure, e);
+    }
+    assertTrue(first.closed);
+    assertTrue(third.closed);
+  }
+
+  @Test
+  public void invokeAll_wrapsCheckedExceptions() {
+    IOException failure = new IOException();
+    try {
+      Workers.invokeAll(
+          Arrays.<Callable<Object>>asList(
+              Object::new,
+              () -> {
+                throw failure;
+              }));
+      fail();
+    } catch (RuntimeException e) {
+      assertSame(failure, e.getCause());
+    }
+  }
+
+  @Test
+  public void invokeAll_skipsTasksAfterAFailure() throws InterruptedException {
+    // Occupy every worker, so that the tasks below are queued.
+    int parallelism = Workers.parallelism();
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch busy = new CountDownLatch(parallelism);
+    List<Callable<Object>> blockers = new ArrayList<>();
+    for (int i = 0; i < parallelism; ++i) {
+      blockers.add(
+          () -> {
+            busy.countDown();
+            release.await();
+            return null;
+          });
+    }
+    blockers.add(
+        () -> {
+          busy.await();
+          return null;
+        });
+    Thread blocking = new Thread(() -> Workers.invokeAll(blockers));
+    blocking.start();
+    assertTrue(busy.await(10, TimeUnit.SECONDS));
+
+    AtomicBoolean ran = new AtomicBoolean();
+    // The first task is queued until the workers are released, after the second one has failed.
+    Thread releasing =
+        new Thread(
+            () -> {
+              try {
+                Thread.sleep(100);
+              } catch (InterruptedException e) {
+                // Release the workers right away.
+              }
+              release.countDown();
+            });
+    releasing.start();
+    try {
+      Workers.invokeAll(
+          Arrays.<Callable<Object>>asList(
+              () -> {
+                ran.set(true);
+                return null;
+              },
+              () -> {
+                throw new IllegalStateException();
+              }));
+      fail();
+    } catch (IllegalStateException e) {
+      // expected.
+    }
+    releasing.join();
+    blocking.join();
+    assertFalse(ran.get());
+  }
+
+  @Test
+  public void invokeAll_interruptedThrowsCancellationException() {
+    Resource first = new Resource();
+    Resource last = new Resource();
+    CountDownLatch started = new CountDownLatch(1);
+    List<Callable<Resource>> tasks =
+        Arrays.asList(
+            () -> {
+              started.countDown();
+              Thread.sleep(50);
+              return first;
+            },
+            () -> {
+              // Run by the calling thread, which is interrupted while the first task is running.
+              started.await();
+              Thread.currentThread().interrupt();
+              return last;
+            });
+
+    try {
+      Workers.invokeAll(tasks);
+      fail();
+    } catch (CancellationException e) {
+      // expected.
+    } finally {
+      assertTrue(Thread.interrupted());
+    }
+    assertTrue(first.closed);
+    assertTrue(last.closed);
+  }
+
+  @Test
+  public void schedule_runsTaskAfterDelay() throws InterruptedException {
+    CountDownLatch ran = new CountDownLatch(1);
+    long start = System.nanoTime();
+
+    Workers.schedule(ran::countDown, 50);
+
+    assertTrue(ran.await(5, TimeUnit.SECONDS));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  public void schedule_cancelledTaskDoesNotRun() throws InterruptedException {
+    AtomicBoolean ran = new AtomicBoolean();
+
+    Future<?> future = Workers.schedule(() -> ran.set(true), 50);
+    assertTrue(future.cancel(false));
+
+    Thread.sleep(150);
+    assertFalse(ran.get());
+  }
+
+  @Test
+  public void schedule_negativeDelayRunsNow() throws InterruptedException {
+    CountDownLatch ran = new CountDownLatch(1);
+    Workers.schedule(ran::countDown, -1000);
+    assertTrue(ran.await(5, TimeUnit.SECONDS));
+  }
+}